@@ -22,6 +22,7 @@
 package com.couchbase.client.core.cluster;
 
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
 import com.couchbase.client.core.message.binary.GetRequest;
 import com.couchbase.client.core.message.binary.GetResponse;
 import com.couchbase.client.core.message.binary.InsertRequest;
@@ -44,6 +45,9 @@ import org.junit.Test;
 import rx.Observable;
 import rx.functions.Func1;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 
 /**
@@ -84,6 +88,22 @@ public class BinaryMessageTest {
         assertEquals(content, cluster.<GetResponse>send(request).toBlockingObservable().single().content().toString(CharsetUtil.UTF_8));
     }
 
+    @Test
+    public void shouldBulkGetDocuments() {
+        List<String> keys = Arrays.asList("bulk-key-1", "bulk-key-2", "bulk-key-3");
+        for (String key : keys) {
+            UpsertRequest upsert = new UpsertRequest(key, Unpooled.copiedBuffer(key, CharsetUtil.UTF_8), bucket);
+            cluster.<UpsertResponse>send(upsert).toBlockingObservable().single();
+        }
+
+        List<GetResponse> responses = cluster.<GetResponse>send(new BulkGetRequest(keys, bucket))
+            .toList().toBlockingObservable().single();
+        assertEquals(keys.size(), responses.size());
+        for (GetResponse response : responses) {
+            assertEquals(response.key(), response.content().toString(CharsetUtil.UTF_8));
+        }
+    }
+
     @Test
     public void shouldUpsertWithExpiration() throws Exception {
         String key = "upsert-key-vanish";
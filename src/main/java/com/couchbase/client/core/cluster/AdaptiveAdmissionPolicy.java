@@ -0,0 +1,150 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.lmax.disruptor.RingBuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests waiting in the ringbuffer to what the dispatcher drains within the target delay.
+ *
+ * The occupancy of the ringbuffer acts as the semaphore: a request takes a permit when it is published and returns
+ * it once the dispatcher takes it off the ringbuffer. The number of permits is sized from the drain rate observed
+ * over the last sample interval, bounded by the minimum limit and the size of the ringbuffer. Requests exceeding the
+ * limit wait for a permit until the deadline, after which they are rejected.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class AdaptiveAdmissionPolicy extends AdmissionPolicy {
+
+    /**
+     * The interval in which the drain rate is sampled.
+     */
+    private static final long SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    /**
+     * The queueing delay the limit is sized for.
+     */
+    private final long targetDelayNanos;
+
+    /**
+     * The maximum time to wait for a permit.
+     */
+    private final long deadlineNanos;
+
+    /**
+     * The lower bound of the limit.
+     */
+    private final int minLimit;
+
+    /**
+     * The current limit of requests waiting in the ringbuffer.
+     */
+    private volatile int limit;
+
+    /**
+     * The time of the last sample.
+     */
+    private final AtomicLong lastSample;
+
+    /**
+     * The drained sequence at the last sample.
+     */
+    private volatile long lastDrained;
+
+    /**
+     * Creates a new {@link AdaptiveAdmissionPolicy}.
+     *
+     * @param ringBuffer the ringbuffer to publish into.
+     * @param stats the shared statistics.
+     * @param deadline the maximum time to wait for a permit in milliseconds.
+     * @param targetDelay the queueing delay the limit is sized for in microseconds.
+     * @param minLimit the lower bound of the limit.
+     */
+    public AdaptiveAdmissionPolicy(final RingBuffer<RequestEvent> ringBuffer, final AdmissionStats stats,
+        final long deadline, final long targetDelay, final int minLimit) {
+        super(ringBuffer, stats);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadline);
+        this.targetDelayNanos = TimeUnit.MICROSECONDS.toNanos(targetDelay);
+        this.minLimit = Math.min(minLimit, ringBuffer.getBufferSize());
+        this.limit = ringBuffer.getBufferSize();
+        this.lastSample = new AtomicLong(System.nanoTime());
+        this.lastDrained = drained();
+    }
+
+    @Override
+    public boolean publish(final CouchbaseRequest request) {
+        sample();
+        if (occupancy() < limit && tryPublish(request)) {
+            return true;
+        }
+
+        stats().recordThrottled();
+        long deadline = System.nanoTime() + deadlineNanos;
+        while (await(deadline)) {
+            sample();
+            if (occupancy() < limit && tryPublish(request)) {
+                return true;
+            }
+        }
+        stats().recordRejected();
+        return false;
+    }
+
+    /**
+     * The current limit of requests waiting in the ringbuffer.
+     *
+     * @return the current limit.
+     */
+    public int limit() {
+        return limit;
+    }
+
+    /**
+     * Resizes the limit from the drain rate, once per sample interval.
+     *
+     * The limit is only lowered while requests are waiting, since a ringbuffer which ran empty says nothing about
+     * how fast the dispatcher could drain it.
+     */
+    private void sample() {
+        long now = System.nanoTime();
+        long last = lastSample.get();
+        long elapsed = now - last;
+        if (elapsed < SAMPLE_NANOS || !lastSample.compareAndSet(last, now)) {
+            return;
+        }
+
+        long drained = drained();
+        long estimate = (drained - lastDrained) * targetDelayNanos / elapsed;
+        lastDrained = drained;
+
+        int newLimit = (int) Math.max(minLimit, Math.min(ringBuffer().getBufferSize(), estimate));
+        if (newLimit > limit || occupancy() > 0) {
+            limit = newLimit;
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decides if and when a request is published into its request {@link RingBuffer}.
+ *
+ * Every request shard has its own policy instance, so the occupancy of its ringbuffer can be used as the measure
+ * of requests in flight towards the dispatcher.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public abstract class AdmissionPolicy {
+
+    /**
+     * Translates {@link CouchbaseRequest}s into {@link RequestEvent}s.
+     */
+    private static final EventTranslatorOneArg<RequestEvent, CouchbaseRequest> REQUEST_TRANSLATOR =
+        new EventTranslatorOneArg<RequestEvent, CouchbaseRequest>() {
+            @Override
+            public void translateTo(RequestEvent event, long sequence, CouchbaseRequest request) {
+                event.setRequest(request);
+            }
+        };
+
+    /**
+     * The time to park while waiting for capacity.
+     */
+    private static final long PARK_NANOS = 50000;
+
+    /**
+     * The ringbuffer to publish into.
+     */
+    private final RingBuffer<RequestEvent> ringBuffer;
+
+    /**
+     * The shared statistics.
+     */
+    private final AdmissionStats stats;
+
+    /**
+     * Creates a new {@link AdmissionPolicy}.
+     *
+     * @param ringBuffer the ringbuffer to publish into.
+     * @param stats the shared statistics.
+     */
+    protected AdmissionPolicy(final RingBuffer<RequestEvent> ringBuffer, final AdmissionStats stats) {
+        this.ringBuffer = ringBuffer;
+        this.stats = stats;
+        stats.track(ringBuffer);
+    }
+
+    /**
+     * Publishes the request, if it is admitted.
+     *
+     * @param request the request to publish.
+     * @return true if the request has been published, false if it needs to be failed with backpressure.
+     */
+    public abstract boolean publish(CouchbaseRequest request);
+
+    /**
+     * Publishes the request only if there is capacity right away, independent of the policy.
+     *
+     * @param request the request to publish.
+     * @return true if the request has been published, false if it needs to be failed with backpressure.
+     */
+    public boolean publishNow(final CouchbaseRequest request) {
+        if (tryPublish(request)) {
+            return true;
+        }
+        stats.recordRejected();
+        return false;
+    }
+
+    /**
+     * Tries to publish the request without waiting.
+     *
+     * @param request the request to publish.
+     * @return true if it has been published.
+     */
+    protected boolean tryPublish(final CouchbaseRequest request) {
+        return ringBuffer.tryPublishEvent(REQUEST_TRANSLATOR, request);
+    }
+
+    /**
+     * Parks the calling thread for a short moment while waiting for capacity.
+     *
+     * @param deadline the deadline in {@link System#nanoTime()}.
+     * @return false if the deadline has passed.
+     */
+    protected boolean await(final long deadline) {
+        if (System.nanoTime() - deadline >= 0) {
+            return false;
+        }
+        LockSupport.parkNanos(PARK_NANOS);
+        return true;
+    }
+
+    /**
+     * The number of requests waiting in the ringbuffer to be dispatched.
+     *
+     * @return the number of occupied slots.
+     */
+    protected long occupancy() {
+        return ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+    }
+
+    /**
+     * The total number of requests the dispatcher has taken off the ringbuffer so far.
+     *
+     * @return the drained sequence.
+     */
+    protected long drained() {
+        return ringBuffer.getCursor() - occupancy();
+    }
+
+    protected RingBuffer<RequestEvent> ringBuffer() {
+        return ringBuffer;
+    }
+
+    protected AdmissionStats stats() {
+        return stats;
+    }
+
+}
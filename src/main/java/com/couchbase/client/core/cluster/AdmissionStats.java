@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.lmax.disruptor.RingBuffer;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts how often the {@link AdmissionPolicy} of the request ringbuffers engages.
+ *
+ * One instance is shared by the policies of all request shards. Admitted requests are not counted on the publish
+ * path, they are derived from the sequences of the tracked ringbuffers when asked for, so that only the rare
+ * throttled and rejected requests touch a shared counter.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class AdmissionStats {
+
+    private final Set<RingBuffer<?>> ringBuffers = new CopyOnWriteArraySet<RingBuffer<?>>();
+    private final AtomicLong throttled = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The number of requests published into a request ringbuffer.
+     *
+     * @return the number of admitted requests.
+     */
+    public long admitted() {
+        long admitted = 0;
+        for (RingBuffer<?> ringBuffer : ringBuffers) {
+            admitted += ringBuffer.getCursor() + 1;
+        }
+        return admitted;
+    }
+
+    /**
+     * The number of requests which had to wait before they could be published.
+     *
+     * @return the number of throttled requests.
+     */
+    public long throttled() {
+        return throttled.get();
+    }
+
+    /**
+     * The number of requests which have been failed with a {@link BackpressureException}.
+     *
+     * @return the number of rejected requests.
+     */
+    public long rejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Counts the requests published into the given ringbuffer as admitted.
+     *
+     * @param ringBuffer the request ringbuffer only published into through an {@link AdmissionPolicy}.
+     */
+    void track(final RingBuffer<?> ringBuffer) {
+        ringBuffers.add(ringBuffer);
+    }
+
+    void recordThrottled() {
+        throttled.incrementAndGet();
+    }
+
+    void recordRejected() {
+        rejected.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.lmax.disruptor.RingBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocks the calling thread until the ringbuffer has capacity, but at most until the deadline is reached.
+ *
+ * This absorbs short bursts without failing requests, at the cost of blocking the caller.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class BlockingAdmissionPolicy extends AdmissionPolicy {
+
+    /**
+     * The maximum time to block.
+     */
+    private final long deadlineNanos;
+
+    /**
+     * Creates a new {@link BlockingAdmissionPolicy}.
+     *
+     * @param ringBuffer the ringbuffer to publish into.
+     * @param stats the shared statistics.
+     * @param deadline the maximum time to block in milliseconds.
+     */
+    public BlockingAdmissionPolicy(final RingBuffer<RequestEvent> ringBuffer, final AdmissionStats stats,
+        final long deadline) {
+        super(ringBuffer, stats);
+        this.deadlineNanos = TimeUnit.MILLISECONDS.toNanos(deadline);
+    }
+
+    @Override
+    public boolean publish(final CouchbaseRequest request) {
+        if (tryPublish(request)) {
+            return true;
+        }
+
+        stats().recordThrottled();
+        long deadline = System.nanoTime() + deadlineNanos;
+        while (await(deadline)) {
+            if (tryPublish(request)) {
+                return true;
+            }
+        }
+        stats().recordRejected();
+        return false;
+    }
+
+}
@@ -42,4 +42,16 @@ public interface Cluster {
      * @return the {@link CouchbaseResponse} wrapped into a {@link Observable}.
      */
     <R extends CouchbaseResponse> Observable<R> send(CouchbaseRequest request);
+
+    /**
+     * Sends a {@link CouchbaseRequest} into the cluster only if it can be admitted right away.
+     *
+     * This is used for requests the client sends on its own behalf, like retries and background polls. They are
+     * sent from shared threads like the timer, which must never be held back waiting for capacity, so if there is
+     * no room the request fails with backpressure instead.
+     *
+     * @param request the request to send.
+     * @return the {@link CouchbaseResponse} wrapped into a {@link Observable}.
+     */
+    <R extends CouchbaseResponse> Observable<R> trySend(CouchbaseRequest request);
 }
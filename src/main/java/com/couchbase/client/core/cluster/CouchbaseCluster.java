@@ -29,11 +29,15 @@ import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
 import com.couchbase.client.core.message.cluster.ClusterRequest;
 import com.couchbase.client.core.message.cluster.OpenBucketRequest;
 import com.couchbase.client.core.message.cluster.OpenBucketResponse;
 import com.couchbase.client.core.message.cluster.SeedNodesRequest;
 import com.couchbase.client.core.message.cluster.SeedNodesResponse;
+import com.couchbase.client.core.message.config.ConfigRequest;
 import com.couchbase.client.core.message.internal.AddNodeRequest;
 import com.couchbase.client.core.message.internal.AddNodeResponse;
 import com.couchbase.client.core.message.internal.AddServiceRequest;
@@ -41,16 +45,25 @@ import com.couchbase.client.core.message.internal.AddServiceResponse;
 import com.couchbase.client.core.message.internal.InternalRequest;
 import com.couchbase.client.core.message.internal.RemoveNodeRequest;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.metrics.Gauge;
+import com.couchbase.client.core.metrics.GaugeMetrics;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import com.couchbase.client.core.metrics.RequestStage;
 import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.state.LifecycleState;
-import com.lmax.disruptor.EventTranslatorOneArg;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import io.netty.util.Timer;
 import rx.Observable;
 import rx.Observer;
+import rx.functions.Action1;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The general implementation of a {@link Cluster}.
@@ -61,25 +74,29 @@ import java.util.concurrent.Executors;
 public class CouchbaseCluster implements Cluster {
 
     /**
-     * Translates {@link CouchbaseRequest}s into {@link RequestEvent}s.
+     * A preconstructed {@link BackpressureException}.
      */
-    private static final EventTranslatorOneArg<RequestEvent, CouchbaseRequest> REQUEST_TRANSLATOR =
-        new EventTranslatorOneArg<RequestEvent, CouchbaseRequest>() {
-            @Override
-            public void translateTo(RequestEvent event, long sequence, CouchbaseRequest request) {
-                event.setRequest(request);
-            }
-        };
+    private static final BackpressureException BACKPRESSURE_EXCEPTION = new BackpressureException();
 
     /**
-     * A preconstructed {@link BackpressureException}.
+     * The {@link RequestEvent} {@link RingBuffer}s, one per dispatch shard.
      */
-    private static final BackpressureException BACKPRESSURE_EXCEPTION = new BackpressureException();
+    private final RingBuffer<RequestEvent>[] requestRingBuffers;
+
+    /**
+     * The {@link AdmissionPolicy}s of the request shards, one per {@link RingBuffer}.
+     */
+    private final AdmissionPolicy[] admissionPolicies;
+
+    /**
+     * The statistics shared by all admission policies.
+     */
+    private final AdmissionStats admissionStats;
 
     /**
-     * The {@link RequestEvent} {@link RingBuffer}.
+     * The mask to apply on a hash to select the request shard.
      */
-    private final RingBuffer<RequestEvent> requestRingBuffer;
+    private final int shardMask;
 
     /**
      * The handler for all cluster nodes.
@@ -91,6 +108,41 @@ public class CouchbaseCluster implements Cluster {
      */
     private final ConfigurationProvider configProvider;
 
+    /**
+     * The timer which tracks the timeouts of all dispatched requests.
+     */
+    private final Timer timer;
+
+    /**
+     * The default timeout of binary requests in milliseconds.
+     */
+    private final long binaryTimeout;
+
+    /**
+     * The default timeout of config requests in milliseconds.
+     */
+    private final long configTimeout;
+
+    /**
+     * The default timeout of view requests in milliseconds.
+     */
+    private final long viewTimeout;
+
+    /**
+     * If requests are stamped with their send time to record their latency.
+     */
+    private final boolean latencyMetricsEnabled;
+
+    /**
+     * The metrics which record the latency of all requests, including the ones which time out or are rejected.
+     */
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * If requests record the time they reach every stage.
+     */
+    private final boolean stageMarksEnabled;
+
     /**
      * Populate the static exceptions with stack trace elements.
      */
@@ -108,40 +160,127 @@ public class CouchbaseCluster implements Cluster {
     /**
      * Creates a new {@link CouchbaseCluster}.
      */
+    @SuppressWarnings("unchecked")
     public CouchbaseCluster(Environment environment) {
         configProvider = new DefaultConfigurationProvider(this, environment);
-        Executor executor = Executors.newFixedThreadPool(2);
+        timer = environment.timer();
+        binaryTimeout = environment.binaryTimeout();
+        configTimeout = environment.configTimeout();
+        viewTimeout = environment.viewTimeout();
+        latencyMetricsEnabled = environment.latencyMetricsEnabled();
+        latencyMetrics = environment.latencyMetrics();
+        stageMarksEnabled = environment.stageMarksEnabled();
+        int shards = environment.requestShards();
+        int responseHandlers = environment.responseHandlers();
 
         Disruptor<ResponseEvent> responseDisruptor = new Disruptor<ResponseEvent>(
             new ResponseEventFactory(),
             environment.responseBufferSize(),
-            executor
+            Executors.newFixedThreadPool(responseHandlers,
+                new DispatchThreadFactory("cb-response", environment.dispatchAffinity())),
+            ProducerType.MULTI,
+            environment.responseWaitStrategy()
         );
-        responseDisruptor.handleEventsWith(new ResponseHandler(this));
+        final RetryScheduler retryScheduler = new RetryScheduler(this, environment, configProvider);
+        ResponseHandler[] handlers = new ResponseHandler[responseHandlers];
+        for (int i = 0; i < responseHandlers; i++) {
+            handlers[i] = new ResponseHandler(retryScheduler, latencyMetrics, i, responseHandlers);
+        }
+        responseDisruptor.handleEventsWith(handlers);
         responseDisruptor.start();
-        RingBuffer<ResponseEvent> responseRingBuffer = responseDisruptor.getRingBuffer();
+        final RingBuffer<ResponseEvent> responseRingBuffer = responseDisruptor.getRingBuffer();
 
-        Disruptor<RequestEvent> requestDisruptor = new Disruptor<RequestEvent>(
-            new RequestEventFactory(),
-            environment.requestBufferSize(),
-            executor
-        );
-        requestHandler = new RequestHandler(environment, configProvider.configs(), responseRingBuffer);
-        requestDisruptor.handleEventsWith(requestHandler);
-        requestDisruptor.start();
-        requestRingBuffer = requestDisruptor.getRingBuffer();
+        requestHandler = new RequestHandler(environment, configProvider, responseRingBuffer);
+        // Subscribed after the request handler, so parked requests are dispatched against the new configuration.
+        configProvider.configs().subscribe(new Action1<ClusterConfig>() {
+            @Override
+            public void call(final ClusterConfig config) {
+                retryScheduler.redispatch();
+            }
+        });
+        requestRingBuffers = (RingBuffer<RequestEvent>[]) new RingBuffer<?>[shards];
+        shardMask = shards - 1;
+        Executor requestExecutor = Executors.newFixedThreadPool(shards,
+            new DispatchThreadFactory("cb-request", environment.dispatchAffinity()));
+        for (int i = 0; i < shards; i++) {
+            Disruptor<RequestEvent> requestDisruptor = new Disruptor<RequestEvent>(
+                new RequestEventFactory(),
+                environment.requestBufferSize(),
+                requestExecutor,
+                ProducerType.MULTI,
+                environment.requestWaitStrategy()
+            );
+            requestDisruptor.handleEventsWith(requestHandler);
+            requestDisruptor.start();
+            requestRingBuffers[i] = requestDisruptor.getRingBuffer();
+        }
+
+        admissionStats = new AdmissionStats();
+        admissionPolicies = new AdmissionPolicy[shards];
+        for (int i = 0; i < shards; i++) {
+            admissionPolicies[i] = createAdmissionPolicy(environment, requestRingBuffers[i], admissionStats);
+        }
+
+        GaugeMetrics gauges = environment.gaugeMetrics();
+        gauges.register("cluster.responseBuffer.remainingCapacity", remainingCapacity(responseRingBuffer));
+        for (int i = 0; i < shards; i++) {
+            gauges.register("cluster.requestBuffer." + i + ".remainingCapacity",
+                remainingCapacity(requestRingBuffers[i]));
+        }
+        environment.start();
+    }
+
+    /**
+     * Creates a {@link Gauge} of the remaining capacity of a {@link RingBuffer}.
+     *
+     * @param ringBuffer the ring buffer.
+     * @return the gauge.
+     */
+    private static Gauge remainingCapacity(final RingBuffer<?> ringBuffer) {
+        return new Gauge() {
+            @Override
+            public long value() {
+                return ringBuffer.remainingCapacity();
+            }
+        };
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public <R extends CouchbaseResponse> Observable<R> send(CouchbaseRequest request) {
+        return dispatch(request, true);
+    }
+
+    @Override
+    public <R extends CouchbaseResponse> Observable<R> trySend(CouchbaseRequest request) {
+        return dispatch(request, false);
+    }
+
+    /**
+     * Dispatches the request to its handler or publishes it into its request shard.
+     *
+     * @param request the request to send.
+     * @param wait if the {@link AdmissionPolicy} may hold the calling thread back while waiting for capacity.
+     * @return the {@link CouchbaseResponse} wrapped into a {@link Observable}.
+     */
+    @SuppressWarnings("unchecked")
+    private <R extends CouchbaseResponse> Observable<R> dispatch(final CouchbaseRequest request, final boolean wait) {
         if (request instanceof InternalRequest) {
             handleInternalRequest(request);
         } else if (request instanceof ClusterRequest) {
             handleClusterRequest(request);
         } else {
-            boolean published = requestRingBuffer.tryPublishEvent(REQUEST_TRANSLATOR, request);
-            if (!published) {
+            if (latencyMetricsEnabled && request.sendTime() == 0) {
+                request.sendTime(System.nanoTime());
+            }
+            if (stageMarksEnabled) {
+                request.enableStageMarks();
+            }
+            scheduleTimeout(request);
+            request.mark(RequestStage.PUBLISHED);
+            AdmissionPolicy policy = admissionPolicies[shardFor(request)];
+            boolean published = wait ? policy.publish(request) : policy.publishNow(request);
+            if (!published && request.cancelTimeout()) {
+                latencyMetrics.record(request, RequestOutcome.REJECTED);
                 request.observable().onError(BACKPRESSURE_EXCEPTION);
             }
         }
@@ -149,6 +288,93 @@ public class CouchbaseCluster implements Cluster {
         return (Observable<R>) request.observable();
     }
 
+    /**
+     * The statistics of the request admission.
+     *
+     * @return how often requests have been admitted, throttled and rejected.
+     */
+    public AdmissionStats admissionStats() {
+        return admissionStats;
+    }
+
+    /**
+     * Creates the configured {@link AdmissionPolicy} for a request shard.
+     *
+     * @param environment the environment.
+     * @param ringBuffer the ringbuffer of the shard.
+     * @param stats the shared statistics.
+     * @return the admission policy.
+     */
+    private static AdmissionPolicy createAdmissionPolicy(final Environment environment,
+        final RingBuffer<RequestEvent> ringBuffer, final AdmissionStats stats) {
+        String policy = environment.admissionPolicy();
+        if (policy.equals("blocking")) {
+            return new BlockingAdmissionPolicy(ringBuffer, stats, environment.admissionDeadline());
+        } else if (policy.equals("adaptive")) {
+            return new AdaptiveAdmissionPolicy(ringBuffer, stats, environment.admissionDeadline(),
+                environment.admissionTargetDelay(), environment.admissionMinLimit());
+        } else {
+            return new FailFastAdmissionPolicy(ringBuffer, stats);
+        }
+    }
+
+    /**
+     * Schedules the timeout of the request on the timer, unless it is already being tracked.
+     *
+     * The timeout is scheduled before the request is published, so that a fast response always finds the handle
+     * it needs to cancel. Requests which are sent again (for example when bounced by an endpoint) keep their
+     * original timeout.
+     *
+     * @param request the request to track.
+     */
+    private void scheduleTimeout(final CouchbaseRequest request) {
+        if (request.timeoutHandle() != null) {
+            return;
+        }
+
+        long timeout = request.timeout();
+        if (timeout <= 0) {
+            if (request instanceof BinaryRequest || request instanceof BulkGetRequest
+                || request instanceof ReplicaReadRequest) {
+                timeout = binaryTimeout;
+            } else if (request instanceof ViewRequest) {
+                timeout = viewTimeout;
+            } else if (request instanceof ConfigRequest) {
+                timeout = configTimeout;
+            } else {
+                return;
+            }
+        }
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request, latencyMetrics), timeout,
+            TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Selects the request shard for the given request.
+     *
+     * Requests with a document key are always assigned to the same shard, so the order of operations on the same
+     * key is preserved. All other requests keep the order of their calling thread.
+     *
+     * @param request the request to dispatch.
+     * @return the index of the shard to use.
+     */
+    private int shardFor(final CouchbaseRequest request) {
+        if (shardMask == 0) {
+            return 0;
+        }
+
+        int hash;
+        if (request instanceof BinaryRequest && ((BinaryRequest) request).key() != null) {
+            hash = ((BinaryRequest) request).key().hashCode();
+        } else if (request instanceof ReplicaReadRequest) {
+            hash = ((ReplicaReadRequest) request).key().hashCode();
+        } else {
+            hash = (int) Thread.currentThread().getId();
+        }
+        hash ^= (hash >>> 16);
+        return hash & shardMask;
+    }
+
     /**
      * Helper method to handle the cluster requests.
      *
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.env.ThreadAffinity;
+import com.lmax.disruptor.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link ThreadFactory} for the {@link RingBuffer} consumer threads which names them and optionally applies a
+ * {@link ThreadAffinity} hook.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class DispatchThreadFactory implements ThreadFactory {
+
+    /**
+     * The logger used.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(DispatchThreadFactory.class);
+
+    /**
+     * The name prefix of all created threads.
+     */
+    private final String prefix;
+
+    /**
+     * The optional affinity hook, may be null.
+     */
+    private final ThreadAffinity affinity;
+
+    /**
+     * The index of the next thread created.
+     */
+    private final AtomicInteger nextIndex = new AtomicInteger();
+
+    /**
+     * Creates a new {@link DispatchThreadFactory}.
+     *
+     * @param prefix the name prefix of the created threads.
+     * @param affinity the optional affinity hook, may be null.
+     */
+    public DispatchThreadFactory(final String prefix, final ThreadAffinity affinity) {
+        this.prefix = prefix;
+        this.affinity = affinity;
+    }
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+        final int index = nextIndex.getAndIncrement();
+        final String name = prefix + "-" + index;
+        return new Thread(new Runnable() {
+            @Override
+            public void run() {
+                if (affinity != null) {
+                    try {
+                        affinity.bind(name, index);
+                    } catch (Exception ex) {
+                        LOGGER.warn("Could not apply thread affinity to " + name, ex);
+                    }
+                }
+                runnable.run();
+            }
+        }, name);
+    }
+
+}
@@ -0,0 +1,207 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.binary.GetResponse;
+import com.couchbase.client.core.message.view.ViewQueryResponse;
+import io.netty.util.ReferenceCountUtil;
+import rx.Subscriber;
+import rx.subjects.Subject;
+
+/**
+ * Arbitrates between the copies of a hedged request, so that only the first copy which answers completes the
+ * observable of the original request.
+ *
+ * Every copy completes into its own lane. The first lane which emits a response or completes wins and all signals
+ * of the other lanes are discarded, releasing the content of their responses. An error only fails the original
+ * request if no other copy is still outstanding, so a hedge never fails a request which would have succeeded
+ * without it. The winner cancels the timeout of the original request, if it already expired all copies are
+ * discarded.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+final class HedgeArbiter {
+
+    /**
+     * The original request.
+     */
+    private final CouchbaseRequest request;
+
+    /**
+     * The observable of the original request.
+     */
+    private final Subject<CouchbaseResponse, CouchbaseResponse> parent;
+
+    /**
+     * The lane which won, null while no copy has answered.
+     */
+    private Lane winner;
+
+    /**
+     * The number of copies which have neither answered nor failed.
+     */
+    private int outstanding;
+
+    /**
+     * Set once the original request has been failed or expired.
+     */
+    private boolean failed;
+
+    /**
+     * Creates a new {@link HedgeArbiter}.
+     *
+     * @param request the original request.
+     */
+    HedgeArbiter(final CouchbaseRequest request) {
+        this.request = request;
+        this.parent = request.observable();
+    }
+
+    /**
+     * Opens the lane of the first copy.
+     *
+     * @return the lane to complete the first copy into.
+     */
+    synchronized Subject<CouchbaseResponse, CouchbaseResponse> primary() {
+        outstanding++;
+        return new Lane(this);
+    }
+
+    /**
+     * Checks if a hedge is still useful.
+     *
+     * @return true if no copy has answered or failed the request yet.
+     */
+    synchronized boolean open() {
+        return winner == null && !failed;
+    }
+
+    /**
+     * Opens the lane of the hedge, unless it is not needed anymore.
+     *
+     * @return the lane to complete the hedge into or null if the request has already been answered.
+     */
+    synchronized Subject<CouchbaseResponse, CouchbaseResponse> hedge() {
+        if (!open()) {
+            return null;
+        }
+        outstanding++;
+        return new Lane(this);
+    }
+
+    private synchronized void next(final Lane lane, final CouchbaseResponse response) {
+        if (wins(lane)) {
+            parent.onNext(response);
+        } else {
+            release(response);
+        }
+    }
+
+    private synchronized void completed(final Lane lane) {
+        if (wins(lane)) {
+            parent.onCompleted();
+        }
+    }
+
+    private synchronized void error(final Lane lane, final Throwable e) {
+        if (winner == lane) {
+            parent.onError(e);
+            return;
+        }
+        if (winner != null || failed) {
+            return;
+        }
+        if (--outstanding == 0) {
+            failed = true;
+            if (request.cancelTimeout()) {
+                parent.onError(e);
+            }
+        }
+    }
+
+    /**
+     * Checks if the given lane is the winner, making it the winner if no copy has answered yet.
+     *
+     * @param lane the lane which signals.
+     * @return true if the signals of the lane are passed on.
+     */
+    private boolean wins(final Lane lane) {
+        if (winner == null && !failed) {
+            if (request.cancelTimeout()) {
+                winner = lane;
+            } else {
+                failed = true;
+            }
+        }
+        return winner == lane;
+    }
+
+    /**
+     * Releases the content of a discarded response.
+     *
+     * @param response the response to release.
+     */
+    private static void release(final CouchbaseResponse response) {
+        if (response instanceof GetResponse) {
+            ReferenceCountUtil.release(((GetResponse) response).content());
+        } else if (response instanceof ViewQueryResponse) {
+            ReferenceCountUtil.release(((ViewQueryResponse) response).content());
+        }
+    }
+
+    /**
+     * The observable a single copy completes into.
+     */
+    static final class Lane extends Subject<CouchbaseResponse, CouchbaseResponse> {
+
+        private final HedgeArbiter arbiter;
+
+        Lane(final HedgeArbiter arbiter) {
+            super(new OnSubscribe<CouchbaseResponse>() {
+                @Override
+                public void call(final Subscriber<? super CouchbaseResponse> subscriber) {
+                    arbiter.parent.subscribe(subscriber);
+                }
+            });
+            this.arbiter = arbiter;
+        }
+
+        @Override
+        public void onNext(final CouchbaseResponse response) {
+            arbiter.next(this, response);
+        }
+
+        @Override
+        public void onCompleted() {
+            arbiter.completed(this);
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            arbiter.error(this, e);
+        }
+    }
+
+}
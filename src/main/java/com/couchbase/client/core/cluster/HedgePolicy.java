@@ -0,0 +1,251 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.metrics.HistogramSnapshot;
+import com.couchbase.client.core.metrics.LatencyKey;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when a hedged request sends its second copy and caps how many copies are sent overall.
+ *
+ * The delay is a percentile of the latencies recently recorded in the {@link LatencyMetrics} for the operation and
+ * the node the request has been dispatched to, including the requests which timed out or failed there, so only
+ * requests which are slower than usual for that node are hedged. The delays are recomputed every interval on the
+ * timer, from the values recorded since the last computation. A node which has not collected enough samples since
+ * then keeps its previous delay and collects further, so it is not hedged before it has reached enough samples once.
+ *
+ * The number of hedges is limited to a fraction of the hedgeable requests. Both counters decay by half with every
+ * interval, so the budget follows the recent traffic.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class HedgePolicy implements TimerTask {
+
+    /**
+     * The minimum number of recent samples before a delay is derived from them.
+     */
+    static final long MIN_SAMPLES = 100;
+
+    private final LatencyMetrics metrics;
+    private final double percentile;
+    private final long minDelay;
+    private final double budget;
+    private final long interval;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+
+    /**
+     * The snapshots the current delays have been computed from, only accessed by {@link #refresh()}.
+     */
+    private Map<LatencyKey, HistogramSnapshot> baselines = new HashMap<LatencyKey, HistogramSnapshot>();
+
+    /**
+     * The current delays in microseconds, by request type and hostname.
+     */
+    private volatile Map<Class<? extends CouchbaseRequest>, Map<String, Long>> delays =
+        Collections.emptyMap();
+
+    /**
+     * Creates a new {@link HedgePolicy}.
+     *
+     * @param metrics the latency metrics to derive the delays from.
+     * @param percentile the percentile of the recent latency after which a copy is sent.
+     * @param minDelay the lower bound of the delay in microseconds.
+     * @param budget the maximum share of hedges among the hedgeable requests, between 0 and 1.
+     * @param interval the interval between recomputations in milliseconds.
+     */
+    public HedgePolicy(final LatencyMetrics metrics, final double percentile, final long minDelay,
+        final double budget, final long interval) {
+        this.metrics = metrics;
+        this.percentile = percentile;
+        this.minDelay = minDelay;
+        this.budget = budget;
+        this.interval = interval;
+    }
+
+    /**
+     * Returns the delay after which a copy of the request should be sent.
+     *
+     * @param operation the type of the request.
+     * @param hostname the node the request has been dispatched to.
+     * @return the delay in microseconds or 0 if the request should not be hedged.
+     */
+    public long delayFor(final Class<? extends CouchbaseRequest> operation, final String hostname) {
+        Map<String, Long> nodes = delays.get(operation);
+        if (nodes == null) {
+            return 0;
+        }
+        Long delay = nodes.get(hostname);
+        return delay == null ? 0 : delay;
+    }
+
+    /**
+     * Counts a hedgeable request towards the budget.
+     */
+    public void requested() {
+        requests.incrementAndGet();
+    }
+
+    /**
+     * Claims a hedge from the budget.
+     *
+     * @return true if the copy may be sent, false if the budget is exhausted.
+     */
+    public boolean tryHedge() {
+        if (hedges.get() >= (long) (requests.get() * budget)) {
+            return false;
+        }
+        hedges.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Recomputes the delays from the latencies recorded since they have been computed last and decays the budget.
+     *
+     * The latencies of all outcomes of a node are merged, so requests which timed out or failed on it count towards
+     * its delay as well. Nodes which did not record enough values in between keep their current delay.
+     */
+    public synchronized void refresh() {
+        Map<LatencyKey, HistogramSnapshot> current = metrics.snapshot().histograms();
+        Map<Class<? extends CouchbaseRequest>, Map<String, HistogramSnapshot>> recent =
+            new HashMap<Class<? extends CouchbaseRequest>, Map<String, HistogramSnapshot>>();
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : current.entrySet()) {
+            LatencyKey key = entry.getKey();
+            if (key.hostname().equals(LatencyMetrics.UNDISPATCHED)) {
+                continue;
+            }
+            HistogramSnapshot baseline = baselines.get(key);
+            HistogramSnapshot since = baseline == null ? entry.getValue() : entry.getValue().since(baseline);
+            Map<String, HistogramSnapshot> nodes = recent.get(key.operation());
+            if (nodes == null) {
+                nodes = new HashMap<String, HistogramSnapshot>();
+                recent.put(key.operation(), nodes);
+            }
+            HistogramSnapshot merged = nodes.get(key.hostname());
+            nodes.put(key.hostname(), merged == null ? since : merged.merge(since));
+        }
+
+        Map<Class<? extends CouchbaseRequest>, Map<String, Long>> computed =
+            new HashMap<Class<? extends CouchbaseRequest>, Map<String, Long>>();
+        for (Map.Entry<Class<? extends CouchbaseRequest>, Map<String, HistogramSnapshot>> operation
+            : recent.entrySet()) {
+            for (Map.Entry<String, HistogramSnapshot> node : operation.getValue().entrySet()) {
+                long delay;
+                if (node.getValue().count() >= MIN_SAMPLES) {
+                    delay = Math.max(minDelay, node.getValue().percentile(percentile));
+                } else {
+                    delay = delayFor(operation.getKey(), node.getKey());
+                }
+
+                if (delay > 0) {
+                    Map<String, Long> nodes = computed.get(operation.getKey());
+                    if (nodes == null) {
+                        nodes = new HashMap<String, Long>();
+                        computed.put(operation.getKey(), nodes);
+                    }
+                    nodes.put(node.getKey(), delay);
+                }
+            }
+        }
+
+        Map<LatencyKey, HistogramSnapshot> nextBaselines = new HashMap<LatencyKey, HistogramSnapshot>();
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : current.entrySet()) {
+            LatencyKey key = entry.getKey();
+            if (key.hostname().equals(LatencyMetrics.UNDISPATCHED)) {
+                continue;
+            }
+            if (recent.get(key.operation()).get(key.hostname()).count() >= MIN_SAMPLES) {
+                nextBaselines.put(key, entry.getValue());
+            } else {
+                HistogramSnapshot baseline = baselines.get(key);
+                nextBaselines.put(key, baseline == null ? HistogramSnapshot.EMPTY : baseline);
+            }
+        }
+
+        baselines = nextBaselines;
+        delays = computed;
+        requests.set(requests.get() / 2);
+        hedges.set(hedges.get() / 2);
+    }
+
+    /**
+     * The number of hedgeable requests in the current budget window.
+     *
+     * @return the decayed number of requests.
+     */
+    public long requests() {
+        return requests.get();
+    }
+
+    /**
+     * The number of hedges sent in the current budget window.
+     *
+     * @return the decayed number of hedges.
+     */
+    public long hedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Starts recomputing the delays periodically on the given timer.
+     *
+     * @param timer the timer to schedule on.
+     */
+    public void start(final Timer timer) {
+        reschedule(timer);
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        try {
+            refresh();
+        } finally {
+            reschedule(timeout.timer());
+        }
+    }
+
+    /**
+     * Schedules the next recomputation, unless the timer has been stopped in the meantime.
+     *
+     * @param timer the timer to schedule on.
+     */
+    private void reschedule(final Timer timer) {
+        try {
+            timer.newTimeout(this, interval, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException ex) {
+            // The timer has been stopped, the delays stay as they are.
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+/**
+ * The {@link TimerTask} which sends the second copy of a hedged request once its first copy did not answer within
+ * the delay of the {@link HedgePolicy}.
+ *
+ * Nothing is sent if the first copy has answered in the meantime, the request has expired or the hedge budget is
+ * exhausted.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+final class HedgeTask implements TimerTask {
+
+    private final RequestHandler handler;
+    private final HedgePolicy policy;
+    private final CouchbaseRequest request;
+    private final HedgeArbiter arbiter;
+    private final String primary;
+
+    /**
+     * Creates a new {@link HedgeTask}.
+     *
+     * @param handler the handler which dispatches the hedge.
+     * @param policy the policy which holds the budget.
+     * @param request the original request.
+     * @param arbiter the arbiter between the copies.
+     * @param primary the hostname the first copy has been sent to.
+     */
+    HedgeTask(final RequestHandler handler, final HedgePolicy policy, final CouchbaseRequest request,
+        final HedgeArbiter arbiter, final String primary) {
+        this.handler = handler;
+        this.policy = policy;
+        this.request = request;
+        this.arbiter = arbiter;
+        this.primary = primary;
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        Timeout expiry = request.timeoutHandle();
+        if (expiry != null && expiry.isExpired()) {
+            return;
+        }
+        if (arbiter.open() && policy.tryHedge()) {
+            handler.dispatchHedge(request, arbiter, primary);
+        }
+    }
+
+}
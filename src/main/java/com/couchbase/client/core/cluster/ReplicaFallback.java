@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+/**
+ * The {@link TimerTask} which reads from the replicas once the master did not answer a {@link ReplicaReadRequest}
+ * within its fallback delay.
+ *
+ * If the master has answered in the meantime or the request has already expired, nothing is sent.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+final class ReplicaFallback implements TimerTask {
+
+    /**
+     * The handler which dispatches the replica reads.
+     */
+    private final RequestHandler handler;
+
+    /**
+     * The replica read which waits for the master.
+     */
+    private final ReplicaReadRequest request;
+
+    /**
+     * The number of replicas of the bucket.
+     */
+    private final int replicas;
+
+    /**
+     * Creates a new {@link ReplicaFallback}.
+     *
+     * @param handler the handler which dispatches the replica reads.
+     * @param request the replica read which waits for the master.
+     * @param replicas the number of replicas of the bucket.
+     */
+    ReplicaFallback(final RequestHandler handler, final ReplicaReadRequest request, final int replicas) {
+        this.handler = handler;
+        this.request = request;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        Timeout expiry = request.timeoutHandle();
+        if (expiry != null && expiry.isExpired()) {
+            return;
+        }
+        handler.dispatchReplicas(request, replicas);
+    }
+
+}
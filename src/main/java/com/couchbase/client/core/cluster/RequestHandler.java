@@ -23,54 +23,84 @@ package com.couchbase.client.core.cluster;
 
 import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
-import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.config.ConfigDiff;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
 import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
+import com.couchbase.client.core.message.binary.ReplicaMode;
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
+import com.couchbase.client.core.message.config.ConfigRequest;
 import com.couchbase.client.core.message.internal.AddServiceRequest;
 import com.couchbase.client.core.message.internal.RemoveServiceRequest;
 import com.couchbase.client.core.message.internal.SignalFlush;
+import com.couchbase.client.core.message.view.ViewQueryRequest;
 import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import com.couchbase.client.core.metrics.RequestStage;
 import com.couchbase.client.core.node.CouchbaseNode;
 import com.couchbase.client.core.node.Node;
+import com.couchbase.client.core.node.NodeRegistry;
 import com.couchbase.client.core.node.locate.BinaryLocator;
 import com.couchbase.client.core.node.locate.Locator;
+import com.couchbase.client.core.node.locate.RoutingTable;
+import com.couchbase.client.core.node.locate.ConfigLocator;
 import com.couchbase.client.core.node.locate.ViewLocator;
 import com.couchbase.client.core.service.Service;
-import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.state.LifecycleState;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.RingBuffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Observer;
 import rx.functions.Action1;
 import rx.functions.Func1;
+import rx.subjects.Subject;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * The {@link RequestHandler} handles the overall concept of {@link Node}s and manages them concurrently.
  *
+ * Dispatching only reads immutable snapshots of the nodes and routes, so one instance can safely be shared by the
+ * consumers of several request {@link RingBuffer} shards.
+ *
  * @author Michael Nitschinger
  * @since 1.0
  */
 public class RequestHandler implements EventHandler<RequestEvent> {
 
     /**
-     * The initial number of nodes, will expand automatically if more are needed.
+     * The logger used.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestHandler.class);
+
+    /**
+     * No bucket configurations, the base to compute all services of a configuration against.
      */
-    private static final int INITIAL_NODE_SIZE = 128;
+    private static final Map<String, BucketConfig> NO_CONFIGS = Collections.emptyMap();
 
     /**
      * The node locator for the binary service.
      */
-    private final Locator BINARY_LOCATOR = new BinaryLocator();
+    private final BinaryLocator BINARY_LOCATOR = new BinaryLocator();
 
     /**
      * The node locator for the view service;
@@ -78,14 +108,14 @@ public class RequestHandler implements EventHandler<RequestEvent> {
     private final Locator VIEW_LOCATOR = new ViewLocator();
 
     /**
-     * The read/write lock for the list of managed nodes.
+     * The node locator for the config service.
      */
-    private final ReadWriteLock nodeLock = new ReentrantReadWriteLock();
+    private final Locator CONFIG_LOCATOR = new ConfigLocator();
 
     /**
-     * The list of currently managed nodes against the cluster.
+     * The registry of currently managed nodes against the cluster.
      */
-    private final Set<Node> nodes;
+    private final NodeRegistry nodes;
 
     /**
      * The shared couchbase environment.
@@ -102,27 +132,84 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      */
     private final RingBuffer<ResponseEvent> responseBuffer;
 
+    /**
+     * The policy of hedged reads, null if hedging is disabled.
+     */
+    private final HedgePolicy hedgePolicy;
+
+    /**
+     * The metrics which record requests failing to dispatch.
+     */
+    private final LatencyMetrics metrics;
+
+    /**
+     * The bucket configurations applied last, compared against the next ones on reconfiguration.
+     */
+    private Map<String, BucketConfig> appliedConfigs = Collections.emptyMap();
+
+    /**
+     * The nodes of the applied configurations which could not be added with all their services.
+     */
+    private final Set<String> failedNodes = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * The provider to signal an outdated configuration to when a node loses a connection, may be null.
+     */
+    private final ConfigurationProvider configProvider;
+
     /**
      * Create a new {@link RequestHandler}.
      */
     public RequestHandler(Environment environment, Observable<ClusterConfig> configObservable,
         RingBuffer<ResponseEvent> responseBuffer) {
-        this(new HashSet<Node>(INITIAL_NODE_SIZE), environment, configObservable, responseBuffer);
+        this(new NodeRegistry(), environment, configObservable, null, responseBuffer);
+    }
+
+    /**
+     * Create a new {@link RequestHandler} which follows the configurations of the given provider.
+     *
+     * @param configProvider the provider of the configurations, signalled when a node loses a connection.
+     */
+    public RequestHandler(Environment environment, ConfigurationProvider configProvider,
+        RingBuffer<ResponseEvent> responseBuffer) {
+        this(new NodeRegistry(), environment, configProvider.configs(), configProvider, responseBuffer);
     }
 
     /**
      * Create a new {@link RequestHandler} with a custom node list.
      *
      * This constructor should only be used for testing purposes.
-     * @param nodes the node list to start with.
+     * @param nodes the node registry to start with.
      */
-    RequestHandler(Set<Node> nodes, Environment environment, Observable<ClusterConfig> configObservable,
+    RequestHandler(NodeRegistry nodes, Environment environment, Observable<ClusterConfig> configObservable,
         RingBuffer<ResponseEvent> responseBuffer) {
+        this(nodes, environment, configObservable, null, responseBuffer);
+    }
+
+    /**
+     * Create a new {@link RequestHandler} with a custom node list and an optional provider to signal.
+     *
+     * @param nodes the node registry to start with.
+     * @param configProvider the provider to signal when a node loses a connection, may be null.
+     */
+    RequestHandler(NodeRegistry nodes, Environment environment, Observable<ClusterConfig> configObservable,
+        ConfigurationProvider configProvider, RingBuffer<ResponseEvent> responseBuffer) {
         this.nodes = nodes;
+        this.configProvider = configProvider;
         this.environment = environment;
         this.responseBuffer = responseBuffer;
+        this.metrics = environment.latencyMetrics();
         configuration = new AtomicReference<ClusterConfig>();
 
+        if (environment.hedgingEnabled()) {
+            hedgePolicy = new HedgePolicy(environment.latencyMetrics(), environment.hedgingPercentile(),
+                TimeUnit.MILLISECONDS.toMicros(environment.hedgingMinDelay()), environment.hedgingBudget() / 100,
+                environment.hedgingInterval());
+            hedgePolicy.start(environment.timer());
+        } else {
+            hedgePolicy = null;
+        }
+
         configObservable.subscribe(new Action1<ClusterConfig>() {
             @Override
             public void call(final ClusterConfig config) {
@@ -135,21 +222,307 @@ public class RequestHandler implements EventHandler<RequestEvent> {
     @Override
     public void onEvent(final RequestEvent event, long sequence, final boolean endOfBatch) throws Exception {
         final CouchbaseRequest request = event.getRequest();
-        nodeLock.readLock().lock();
+        request.mark(RequestStage.DISPATCHED);
 
-        Node[] found = locator(request).locate(request, nodes, configuration.get());
-        for (int i = 0; i < found.length; i++) {
-            try {
+        try {
+            if (request instanceof BulkGetRequest) {
+                dispatchBulk((BulkGetRequest) request);
+                return;
+            }
+            if (request instanceof ReplicaReadRequest) {
+                dispatchReplicaRead((ReplicaReadRequest) request);
+                return;
+            }
+
+            Node[] found = locator(request).locate(request, nodes.nodes(), configuration.get());
+            if (hedgePolicy != null && found.length == 1 && hedgeable(request)) {
+                hedgePolicy.requested();
+                long delay = hedgePolicy.delayFor(request.getClass(), found[0].hostname());
+                if (delay > 0) {
+                    dispatchHedged(request, found[0], delay, endOfBatch);
+                    return;
+                }
+            }
+            for (int i = 0; i < found.length; i++) {
+                request.dispatchedTo(found[i].hostname());
                 found[i].send(request);
                 if (endOfBatch) {
                     found[i].send(SignalFlush.INSTANCE);
                 }
-            } catch(Exception ex) {
-                request.observable().onError(ex);
-            } finally {
-                nodeLock.readLock().unlock();
-                event.setRequest(null);
             }
+        } catch(Exception ex) {
+            fail(request, ex);
+        } finally {
+            event.setRequest(null);
+        }
+    }
+
+    /**
+     * Fails a request which could not be dispatched and records it in the latency metrics.
+     *
+     * Requests which already timed out have been recorded by their timeout.
+     *
+     * @param request the request to fail.
+     * @param cause the cause of the failure.
+     */
+    private void fail(final CouchbaseRequest request, final Throwable cause) {
+        if (request.cancelTimeout() && metrics != null) {
+            metrics.record(request, RequestOutcome.FAILED);
+        }
+        request.observable().onError(cause);
+    }
+
+    /**
+     * Fans out a {@link BulkGetRequest} into its individual requests and dispatches them grouped by node.
+     *
+     * All requests for the same node are written as one burst and flushed right after, independent of the batch
+     * boundaries of the {@link RingBuffer}. Individual requests which can not be located fail on their own.
+     *
+     * @param request the bulk request to dispatch.
+     */
+    private void dispatchBulk(final BulkGetRequest request) {
+        Node[] current = nodes.nodes();
+        ClusterConfig config = configuration.get();
+        Map<Node, List<GetRequest>> groups = new LinkedHashMap<Node, List<GetRequest>>(current.length);
+
+        GetRequest[] requests = request.requests();
+        for (int i = 0; i < requests.length; i++) {
+            GetRequest child = requests[i];
+            inherit(request, child);
+            try {
+                Node[] found = locator(child).locate(child, current, config);
+                for (int j = 0; j < found.length; j++) {
+                    List<GetRequest> group = groups.get(found[j]);
+                    if (group == null) {
+                        group = new ArrayList<GetRequest>();
+                        groups.put(found[j], group);
+                    }
+                    group.add(child);
+                }
+            } catch (Exception ex) {
+                fail(child, ex);
+            }
+        }
+
+        for (Map.Entry<Node, List<GetRequest>> group : groups.entrySet()) {
+            Node node = group.getKey();
+            for (GetRequest child : group.getValue()) {
+                child.dispatchedTo(node.hostname());
+                node.send(child);
+            }
+            node.send(SignalFlush.INSTANCE);
+        }
+    }
+
+    /**
+     * Dispatches a {@link ReplicaReadRequest} according to its {@link ReplicaMode}.
+     *
+     * When reading from the master first, the replicas are read once the fallback delay has passed without an
+     * answer from the master, or right away if the master can not be located.
+     *
+     * @param request the replica read request to dispatch.
+     */
+    private void dispatchReplicaRead(final ReplicaReadRequest request) {
+        ClusterConfig config = configuration.get();
+        BucketConfig bucket = config == null ? null : config.bucketConfig(request.bucket());
+        if (!(bucket instanceof CouchbaseBucketConfig)) {
+            throw new IllegalStateException("Replica reads are only supported on couchbase buckets: " + request);
+        }
+        int replicas = ((CouchbaseBucketConfig) bucket).numberOfReplicas();
+
+        if (request.mode() == ReplicaMode.ALL_REPLICAS) {
+            if (replicas == 0) {
+                throw new IllegalStateException("No replicas configured for request " + request);
+            }
+            dispatchReplicas(request, replicas);
+            return;
+        }
+
+        if (dispatchChild(request, request.master())) {
+            long delay = request.fallbackDelay() > 0 ? request.fallbackDelay() : environment.replicaFallbackDelay();
+            environment.timer().newTimeout(new ReplicaFallback(this, request, replicas), delay,
+                TimeUnit.MILLISECONDS);
+        } else {
+            dispatchReplicas(request, replicas);
+        }
+    }
+
+    /**
+     * Dispatches the reads of all replicas of a {@link ReplicaReadRequest}, unless they are not needed anymore.
+     *
+     * This is also called from the timer thread once the fallback delay has passed, which is safe since only the
+     * immutable snapshots of the nodes and routes are read.
+     *
+     * @param request the replica read request.
+     * @param count the number of replicas of the bucket.
+     */
+    void dispatchReplicas(final ReplicaReadRequest request, final int count) {
+        ReplicaGetRequest[] children = request.replicas(count);
+        if (children == null) {
+            return;
+        }
+        for (int i = 0; i < children.length; i++) {
+            dispatchChild(request, children[i]);
+        }
+    }
+
+    /**
+     * Locates and sends an individual request of a {@link ReplicaReadRequest}, flushing it right away.
+     *
+     * @param parent the replica read request.
+     * @param child the individual request.
+     * @return true if the request has been sent, false if it failed to locate.
+     */
+    private boolean dispatchChild(final ReplicaReadRequest parent, final BinaryRequest child) {
+        inherit(parent, child);
+        try {
+            Node[] found = BINARY_LOCATOR.locate(child, nodes.nodes(), configuration.get());
+            for (int i = 0; i < found.length; i++) {
+                child.dispatchedTo(found[i].hostname());
+                found[i].send(child);
+                found[i].send(SignalFlush.INSTANCE);
+            }
+            return true;
+        } catch (Exception ex) {
+            fail(child, ex);
+            return false;
+        }
+    }
+
+    /**
+     * Checks if a request is an idempotent read which has somewhere else to send a second copy to.
+     *
+     * Retried requests and the individual requests of fanned out requests are never hedged.
+     *
+     * @param request the request to check.
+     * @return true if the request can be hedged.
+     */
+    private boolean hedgeable(final CouchbaseRequest request) {
+        if (request.retryCount() != 0) {
+            return false;
+        }
+        if (request.getClass() == GetRequest.class) {
+            BucketConfig bucket = configuration.get().bucketConfig(request.bucket());
+            return bucket instanceof CouchbaseBucketConfig && ((CouchbaseBucketConfig) bucket).numberOfReplicas() > 0;
+        }
+        return request.getClass() == ViewQueryRequest.class && nodes.nodes().length > 1;
+    }
+
+    /**
+     * Sends the first copy of a hedged request and schedules its second copy.
+     *
+     * The original request itself is never sent, both copies complete into its observable through a
+     * {@link HedgeArbiter}.
+     *
+     * @param request the original request.
+     * @param node the node the request has been located at.
+     * @param delay the delay before the second copy in microseconds.
+     * @param endOfBatch if the request ends the current batch.
+     */
+    private void dispatchHedged(final CouchbaseRequest request, final Node node, final long delay,
+        final boolean endOfBatch) {
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+        Subject<CouchbaseResponse, CouchbaseResponse> lane = arbiter.primary();
+        CouchbaseRequest primary;
+        if (request instanceof GetRequest) {
+            GetRequest get = (GetRequest) request;
+            primary = new GetRequest(get.encodedKey(), get.bucket(), get.password(), lane).partition(get.partition());
+        } else {
+            primary = copyOf((ViewQueryRequest) request, lane);
+        }
+
+        inherit(request, primary);
+        primary.dispatchedTo(node.hostname());
+        node.send(primary);
+        if (endOfBatch) {
+            node.send(SignalFlush.INSTANCE);
+        }
+        environment.timer().newTimeout(new HedgeTask(this, hedgePolicy, request, arbiter, node.hostname()), delay,
+            TimeUnit.MICROSECONDS);
+    }
+
+    /**
+     * Sends the second copy of a hedged request, to the first replica for documents and to another node for views.
+     *
+     * This is called from the timer thread, which is safe since only the immutable snapshots of the nodes and
+     * routes are read.
+     *
+     * @param request the original request.
+     * @param arbiter the arbiter between the copies.
+     * @param primary the hostname the first copy has been sent to.
+     */
+    void dispatchHedge(final CouchbaseRequest request, final HedgeArbiter arbiter, final String primary) {
+        Subject<CouchbaseResponse, CouchbaseResponse> lane = arbiter.hedge();
+        if (lane == null) {
+            return;
+        }
+
+        try {
+            CouchbaseRequest hedge;
+            Node[] found;
+            if (request instanceof GetRequest) {
+                GetRequest get = (GetRequest) request;
+                hedge = new ReplicaGetRequest(get.encodedKey(), get.bucket(), get.password(), 0, lane);
+                found = BINARY_LOCATOR.locate(hedge, nodes.nodes(), configuration.get());
+            } else {
+                hedge = copyOf((ViewQueryRequest) request, lane);
+                found = new Node[] { otherNode(request, primary) };
+            }
+
+            inherit(request, hedge);
+            for (int i = 0; i < found.length; i++) {
+                hedge.dispatchedTo(found[i].hostname());
+                found[i].send(hedge);
+                found[i].send(SignalFlush.INSTANCE);
+            }
+        } catch (Exception ex) {
+            lane.onError(ex);
+        }
+    }
+
+    /**
+     * Picks a node other than the given one, starting at a position which differs from request to request.
+     *
+     * @param request the request to pick a node for.
+     * @param hostname the hostname of the node to avoid.
+     * @return the picked node.
+     */
+    private Node otherNode(final CouchbaseRequest request, final String hostname) {
+        Node[] current = nodes.nodes();
+        int start = System.identityHashCode(request) & Integer.MAX_VALUE;
+        for (int i = 0; i < current.length; i++) {
+            Node node = current[(start + i) % current.length];
+            if (!node.hostname().equals(hostname)) {
+                return node;
+            }
+        }
+        throw new IllegalStateException("No other node to hedge request " + request);
+    }
+
+    /**
+     * Creates a copy of a view query which streams into the given observable.
+     *
+     * @param request the view query to copy.
+     * @param observable the observable of the copy.
+     * @return the copy.
+     */
+    private static ViewQueryRequest copyOf(final ViewQueryRequest request,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        return new ViewQueryRequest(request.design(), request.view(), request.development(), request.query(),
+            request.bucket(), request.password(), observable);
+    }
+
+    /**
+     * Carries the send time and the stage marks of a request over to one of its individual requests.
+     *
+     * @param parent the request which is fanned out.
+     * @param child the individual request.
+     */
+    private static void inherit(final CouchbaseRequest parent, final CouchbaseRequest child) {
+        child.sendTime(parent.sendTime());
+        if (parent.markOf(RequestStage.DISPATCHED) != 0) {
+            child.enableStageMarks();
+            child.mark(RequestStage.DISPATCHED);
         }
     }
 
@@ -204,29 +577,50 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      * connected successfully.
      */
     Observable<LifecycleState> addNode(final Node node) {
-        try {
-            nodeLock.readLock().lock();
-            if (nodes.contains(node)) {
-                return Observable.from(node.state());
-            }
-        } finally {
-            nodeLock.readLock().unlock();
+        if (nodes.contains(node)) {
+            return Observable.from(node.state());
         }
 
         return node.connect().map(new Func1<LifecycleState, LifecycleState>() {
             @Override
             public LifecycleState call(LifecycleState lifecycleState) {
-                try {
-                    nodeLock.writeLock().lock();
-                    nodes.add(node);
-                } finally {
-                    nodeLock.writeLock().unlock();
+                if (nodes.add(node)) {
+                    watchConnections(node);
                 }
+                updateRoutingTable();
                 return lifecycleState;
             }
         });
     }
 
+    /**
+     * Signals the configuration as outdated whenever a managed node drops out of the connected state.
+     *
+     * A lost connection often means the node failed over or left the cluster, so the next configuration is
+     * fetched right away instead of waiting for the regular poll. Nodes which have been removed are ignored.
+     *
+     * @param node the node to watch.
+     */
+    private void watchConnections(final Node node) {
+        if (configProvider == null) {
+            return;
+        }
+        node.states().subscribe(new Action1<LifecycleState>() {
+            private volatile boolean connected;
+
+            @Override
+            public void call(final LifecycleState state) {
+                boolean wasConnected = connected;
+                connected = state == LifecycleState.CONNECTED;
+                if (wasConnected && !connected && nodes.contains(node)) {
+                    LOGGER.debug("Node {} is {} now, signalling the configuration as outdated.", node.hostname(),
+                        state);
+                    configProvider.signalOutdated();
+                }
+            }
+        });
+    }
+
     /**
      * Removes a {@link Node} from the cluster.
      *
@@ -234,9 +628,8 @@ public class RequestHandler implements EventHandler<RequestEvent> {
      * operations can be handled gracefully.
      */
     Observable<LifecycleState> removeNode(final Node node) {
-        nodeLock.writeLock().lock();
         nodes.remove(node);
-        nodeLock.writeLock().unlock();
+        updateRoutingTable();
         return node.disconnect();
     }
 
@@ -250,18 +643,7 @@ public class RequestHandler implements EventHandler<RequestEvent> {
         if (hostname == null) {
             return null;
         }
-
-        try {
-            nodeLock.readLock().lock();
-            for (Node node : nodes) {
-                if (node.hostname().equals(hostname)) {
-                    return node;
-                }
-            }
-            return null;
-        } finally {
-            nodeLock.readLock().unlock();
-        }
+        return nodes.nodeBy(hostname);
     }
 
     /**
@@ -274,59 +656,116 @@ public class RequestHandler implements EventHandler<RequestEvent> {
             return BINARY_LOCATOR;
         } else if (request instanceof ViewRequest) {
             return VIEW_LOCATOR;
+        } else if (request instanceof ConfigRequest) {
+            return CONFIG_LOCATOR;
         } else {
             throw new IllegalArgumentException("Unknown Request Type: " + request);
         }
     }
 
     /**
-     * Helper method which grabs the current configuration and checks if the node setup is out of sync.
+     * Helper method which grabs the current configuration and applies what changed since the last one.
      *
-     * This method is always called when a new configuration arrives and it will try to sync the actual node
-     * and service setup with the one proposed by the configuration.
+     * The bucket configurations are compared against the ones applied last, so only the nodes and services which
+     * have been added or removed are touched. Services of nodes which stay are removed before new ones are added,
+     * so that a service whose port changed is recreated. Configurations are applied one at a time.
+     *
+     * A node only counts as applied once it and all of its services have been added. Nodes whose add failed are
+     * added again with all their services on the next reconfiguration, as long as they are still configured.
      */
-    private void reconfigure() {
-        ClusterConfig config = configuration.get();
-        for (Map.Entry<String, BucketConfig> bucket : config.bucketConfigs().entrySet()) {
-            BucketConfig bucketConfig = bucket.getValue();
-            reconfigureBucket(bucketConfig);
+    private synchronized void reconfigure() {
+        Map<String, BucketConfig> next = new HashMap<String, BucketConfig>(configuration.get().bucketConfigs());
+        ConfigDiff diff = ConfigDiff.compute(appliedConfigs, next, environment.sslEnabled());
+        Set<String> retried = new HashSet<String>(failedNodes);
+        failedNodes.removeAll(retried);
+        appliedConfigs = next;
+        updateRoutingTable();
+        if (diff.isEmpty() && retried.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Applying configuration change {}, retrying nodes {}", diff, retried);
+
+        for (RemoveServiceRequest request : diff.removedServices()) {
+            Node node = nodeBy(request.hostname());
+            if (node != null) {
+                node.removeService(request).flatMap(new Func1<Service, Observable<LifecycleState>>() {
+                    @Override
+                    public Observable<LifecycleState> call(final Service service) {
+                        return service.disconnect();
+                    }
+                }).subscribe();
+            }
         }
-    }
 
-    /**
-     * For every bucket that is open, apply the reconfiguration.
-     *
-     * @param config the config for this bucket.
-     */
-    private void reconfigureBucket(final BucketConfig config) {
-        for (final NodeInfo nodeInfo : config.nodes()) {
-            addNode(nodeInfo.hostname()).flatMap(new Func1<LifecycleState, Observable<Map<ServiceType, Integer>>>() {
-                @Override
-                public Observable<Map<ServiceType, Integer>> call(final LifecycleState lifecycleState) {
-                    Map<ServiceType, Integer> services =
-                        environment.sslEnabled() ? nodeInfo.sslServices() : nodeInfo.services();
-                    return Observable.from(services);
+        for (String hostname : diff.removedNodes()) {
+            Node node = nodeBy(hostname);
+            if (node != null) {
+                removeNode(node).subscribe();
+            }
+        }
+
+        List<AddServiceRequest> services = diff.addedServices();
+        if (!retried.isEmpty()) {
+            services = new ArrayList<AddServiceRequest>();
+            for (AddServiceRequest request : diff.addedServices()) {
+                if (!retried.contains(request.hostname())) {
+                    services.add(request);
+                }
+            }
+            for (AddServiceRequest request : ConfigDiff.compute(NO_CONFIGS, next, environment.sslEnabled())
+                .addedServices()) {
+                if (retried.contains(request.hostname())) {
+                    services.add(request);
                 }
-            }).flatMap(new Func1<Map<ServiceType, Integer>, Observable<AddServiceRequest>>() {
+            }
+        }
+        Map<String, List<AddServiceRequest>> added = new LinkedHashMap<String, List<AddServiceRequest>>();
+        for (AddServiceRequest request : services) {
+            List<AddServiceRequest> nodeServices = added.get(request.hostname());
+            if (nodeServices == null) {
+                nodeServices = new ArrayList<AddServiceRequest>();
+                added.put(request.hostname(), nodeServices);
+            }
+            nodeServices.add(request);
+        }
+        for (final Map.Entry<String, List<AddServiceRequest>> node : added.entrySet()) {
+            addNode(node.getKey()).flatMap(new Func1<LifecycleState, Observable<AddServiceRequest>>() {
                 @Override
-                public Observable<AddServiceRequest> call(final Map<ServiceType, Integer> services) {
-                    List<AddServiceRequest> requests = new ArrayList<AddServiceRequest>(services.size());
-                    for (Map.Entry<ServiceType, Integer> service : services.entrySet()) {
-                        requests.add(new AddServiceRequest(service.getKey(), config.name(), config.password(),
-                            service.getValue(), nodeInfo.hostname()));
-                    }
-                    return Observable.from(requests);
+                public Observable<AddServiceRequest> call(final LifecycleState lifecycleState) {
+                    return Observable.from(node.getValue());
                 }
             }).flatMap(new Func1<AddServiceRequest, Observable<Service>>() {
                 @Override
-                public Observable<Service> call(AddServiceRequest request) {
+                public Observable<Service> call(final AddServiceRequest request) {
                     return addService(request);
                 }
-            }).subscribe();
-        }
+            }).subscribe(new Observer<Service>() {
+                @Override
+                public void onCompleted() {
+                }
 
+                @Override
+                public void onError(final Throwable e) {
+                    LOGGER.warn("Could not add node " + node.getKey() + ", retrying on next configuration.", e);
+                    failedNodes.add(node.getKey());
+                }
 
+                @Override
+                public void onNext(final Service service) {
+                }
+            });
+        }
+    }
 
+    /**
+     * Rebuilds the {@link RoutingTable} from the current configuration and node list.
+     *
+     * Rebuilds are serialized so that the last published table always reflects the latest state.
+     */
+    private void updateRoutingTable() {
+        synchronized (BINARY_LOCATOR) {
+            BINARY_LOCATOR.routingTable(RoutingTable.create(configuration.get(), nodes.nodes()));
+        }
     }
 
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+
+/**
+ * The {@link TimerTask} which expires a {@link CouchbaseRequest} once its timeout is reached.
+ *
+ * Since the expiration is decided by the {@link Timeout} handle itself, a request is either completed by its response
+ * or by the timeout, never by both.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+final class RequestTimeout implements TimerTask {
+
+    /**
+     * A preconstructed {@link RequestTimeoutException}.
+     */
+    static final RequestTimeoutException TIMEOUT_EXCEPTION = new RequestTimeoutException();
+
+    /**
+     * Populate the static exceptions with stack trace elements.
+     */
+    static {
+        TIMEOUT_EXCEPTION.setStackTrace(new StackTraceElement[0]);
+    }
+
+    /**
+     * The request to expire.
+     */
+    private final CouchbaseRequest request;
+
+    /**
+     * The metrics which record the expired request, may be null.
+     */
+    private final LatencyMetrics metrics;
+
+    /**
+     * Creates a new {@link RequestTimeout}.
+     *
+     * @param request the request to expire.
+     */
+    RequestTimeout(final CouchbaseRequest request) {
+        this(request, null);
+    }
+
+    /**
+     * Creates a new {@link RequestTimeout} which records the expired request.
+     *
+     * @param request the request to expire.
+     * @param metrics the metrics to record the expired request in.
+     */
+    RequestTimeout(final CouchbaseRequest request, final LatencyMetrics metrics) {
+        this.request = request;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        if (metrics != null) {
+            metrics.record(request, RequestOutcome.TIMED_OUT);
+        }
+        request.observable().onError(TIMEOUT_EXCEPTION);
+    }
+
+}
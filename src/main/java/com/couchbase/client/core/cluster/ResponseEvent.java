@@ -1,8 +1,8 @@
 package com.couchbase.client.core.cluster;
 
 import com.couchbase.client.core.message.CouchbaseMessage;
+import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
-import rx.subjects.Subject;
 
 /**
  * A pre allocated event which carries a {@link CouchbaseResponse} and associated information.
@@ -17,7 +17,10 @@ public class ResponseEvent {
      */
     private CouchbaseMessage message;
 
-    private Subject<CouchbaseResponse, CouchbaseResponse> observable;
+    /**
+     * The request the message belongs to.
+     */
+    private CouchbaseRequest request;
 
     /**
      * Set the new response as a payload for this event.
@@ -39,12 +42,23 @@ public class ResponseEvent {
         return message;
     }
 
-    public Subject<CouchbaseResponse, CouchbaseResponse> getObservable() {
-        return observable;
+    /**
+     * Get the request the message belongs to.
+     *
+     * @return the originating request.
+     */
+    public CouchbaseRequest getRequest() {
+        return request;
     }
 
-    public ResponseEvent setObservable(final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
-        this.observable = observable;
+    /**
+     * Set the request the message belongs to.
+     *
+     * @param request the originating request.
+     * @return the {@link ResponseEvent} for method chaining.
+     */
+    public ResponseEvent setRequest(final CouchbaseRequest request) {
+        this.request = request;
         return this;
     }
 }
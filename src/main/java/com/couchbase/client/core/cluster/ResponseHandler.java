@@ -4,54 +4,124 @@ import com.couchbase.client.core.message.CouchbaseMessage;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestStage;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventTranslatorTwoArg;
 import rx.subjects.Subject;
 
 public class ResponseHandler implements EventHandler<ResponseEvent> {
 
-    private final Cluster cluster;
+    private final RetryScheduler retryScheduler;
 
-    public ResponseHandler(Cluster cluster) {
-        this.cluster = cluster;
+    /**
+     * The index of this handler within the group of response handlers.
+     */
+    private final int index;
+
+    /**
+     * The mask to apply on the hash of an event to find its handler index.
+     */
+    private final int mask;
+
+    /**
+     * The metrics which record the latency of every completed request.
+     */
+    private final LatencyMetrics metrics;
+
+    public ResponseHandler(RetryScheduler retryScheduler, LatencyMetrics metrics) {
+        this(retryScheduler, metrics, 0, 1);
+    }
+
+    /**
+     * Creates a new {@link ResponseHandler} which is part of a group of handlers consuming the same
+     * {@link com.lmax.disruptor.RingBuffer}.
+     *
+     * Every handler only completes the events which belong to its index. Since all events of the same request
+     * always hash to the same handler, chunked responses are still completed in order.
+     *
+     * @param retryScheduler the scheduler which takes care of requests to retry.
+     * @param metrics the metrics which record the latency of completed requests.
+     * @param index the index of this handler.
+     * @param count the number of handlers in the group, must be a power of two.
+     */
+    public ResponseHandler(RetryScheduler retryScheduler, LatencyMetrics metrics, int index, int count) {
+        this.retryScheduler = retryScheduler;
+        this.metrics = metrics;
+        this.index = index;
+        this.mask = count - 1;
     }
 
     /**
-     * Translates {@link CouchbaseRequest}s into {@link RequestEvent}s.
+     * Translates a {@link CouchbaseMessage} and its originating {@link CouchbaseRequest} into {@link ResponseEvent}s.
      */
-    public static final EventTranslatorTwoArg<ResponseEvent, CouchbaseMessage, Subject<CouchbaseResponse, CouchbaseResponse>> RESPONSE_TRANSLATOR =
-        new EventTranslatorTwoArg<ResponseEvent, CouchbaseMessage, Subject<CouchbaseResponse, CouchbaseResponse>>() {
+    public static final EventTranslatorTwoArg<ResponseEvent, CouchbaseMessage, CouchbaseRequest> RESPONSE_TRANSLATOR =
+        new EventTranslatorTwoArg<ResponseEvent, CouchbaseMessage, CouchbaseRequest>() {
             @Override
-            public void translateTo(ResponseEvent event, long sequence, CouchbaseMessage message, Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+            public void translateTo(ResponseEvent event, long sequence, CouchbaseMessage message,
+                CouchbaseRequest request) {
                 event.setMessage(message);
-                event.setObservable(observable);
+                event.setRequest(request);
             }
         };
 
     @Override
     public void onEvent(final ResponseEvent event, long sequence, boolean endOfBatch) throws Exception {
+        if (mask != 0 && (System.identityHashCode(event.getRequest().observable()) & mask) != index) {
+            return;
+        }
+
         CouchbaseMessage message = event.getMessage();
         if (message instanceof CouchbaseResponse) {
-            CouchbaseResponse response = (CouchbaseResponse) message;
-            ResponseStatus status = response.status();
-            switch(status) {
-                case CHUNKED:
-                    event.getObservable().onNext(response);
-                    break;
-                case SUCCESS:
-                case EXISTS:
-                case NOT_EXISTS:
-                case FAILURE:
-                    event.getObservable().onNext(response);
-                    event.getObservable().onCompleted();
-                    break;
-                default:
-                    throw new UnsupportedOperationException("fixme");
-            }
+            completeResponse((CouchbaseResponse) message, event.getRequest(), metrics);
         } else if (message instanceof CouchbaseRequest) {
-            cluster.send((CouchbaseRequest) message);
+            retryScheduler.retry((CouchbaseRequest) message);
         } else {
             throw new IllegalStateException("Got message type I do not understand: " + message);
         }
     }
+
+    /**
+     * Feeds the response into the observable of its request and records the latency once the request is done.
+     *
+     * @param response the response to complete.
+     * @param request the originating request.
+     * @param metrics the metrics which record the latency.
+     */
+    public static void completeResponse(final CouchbaseResponse response, final CouchbaseRequest request,
+        final LatencyMetrics metrics) {
+        if (response.status() != ResponseStatus.CHUNKED) {
+            request.mark(RequestStage.COMPLETED);
+            metrics.record(request);
+        }
+        completeResponse(response, request.observable());
+    }
+
+    /**
+     * Feeds the response into the observable of its request, depending on the response status.
+     *
+     * This is used both from the response {@link com.lmax.disruptor.RingBuffer} consumers and directly from the IO
+     * threads when direct completion is enabled.
+     *
+     * @param response the response to complete.
+     * @param observable the observable of the originating request.
+     */
+    public static void completeResponse(final CouchbaseResponse response,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        ResponseStatus status = response.status();
+        switch(status) {
+            case CHUNKED:
+                observable.onNext(response);
+                break;
+            case SUCCESS:
+            case EXISTS:
+            case NOT_EXISTS:
+            case FAILURE:
+                observable.onNext(response);
+                observable.onCompleted();
+                break;
+            default:
+                throw new UnsupportedOperationException("fixme");
+        }
+    }
 }
@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.env.Environment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parks requests which need to be retried and dispatches them again after a backoff.
+ *
+ * A request is retried when the server responds with {@link com.couchbase.client.core.message.ResponseStatus#RETRY}
+ * (for example a NOT_MY_VBUCKET during rebalance) or when it is bounced because no endpoint could take it. Instead
+ * of redispatching it right away, the request is parked on the timer with an exponential backoff, bounded by the
+ * configured maximum delay. Every retry uses up one unit of the retry budget of the request, once it is exhausted
+ * the request is failed.
+ *
+ * Since most retries are caused by an outdated configuration, all parked requests are dispatched again as soon as a
+ * new configuration arrives. Requests are dispatched again from the timer or the thread applying the configuration,
+ * so they never wait for capacity but fail with backpressure if their request shard is full.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class RetryScheduler {
+
+    /**
+     * A preconstructed {@link RetryExhaustedException}.
+     */
+    private static final RetryExhaustedException RETRY_EXHAUSTED_EXCEPTION = new RetryExhaustedException();
+
+    /**
+     * Populate the static exceptions with stack trace elements.
+     */
+    static {
+        RETRY_EXHAUSTED_EXCEPTION.setStackTrace(new StackTraceElement[0]);
+    }
+
+    /**
+     * The cluster to dispatch the requests again.
+     */
+    private final Cluster cluster;
+
+    /**
+     * The provider which is told that the configuration is likely outdated, may be null.
+     */
+    private final ConfigurationProvider configProvider;
+
+    /**
+     * The timer which fires the delayed retries.
+     */
+    private final Timer timer;
+
+    /**
+     * The metrics which record requests failing with an exhausted retry budget.
+     */
+    private final LatencyMetrics metrics;
+
+    /**
+     * The delay of the first retry in milliseconds.
+     */
+    private final long minDelay;
+
+    /**
+     * The upper bound of the retry delay in milliseconds.
+     */
+    private final long maxDelay;
+
+    /**
+     * The maximum number of retries per request.
+     */
+    private final int budget;
+
+    /**
+     * All currently parked requests, mapped to the task which will dispatch them.
+     */
+    private final ConcurrentMap<CouchbaseRequest, RetryTask> parked;
+
+    /**
+     * Creates a new {@link RetryScheduler}.
+     *
+     * @param cluster the cluster to dispatch the requests again.
+     * @param environment the environment with the timer and retry settings.
+     */
+    public RetryScheduler(final Cluster cluster, final Environment environment) {
+        this(cluster, environment, null);
+    }
+
+    /**
+     * Creates a new {@link RetryScheduler} which signals every retry to the {@link ConfigurationProvider}.
+     *
+     * @param cluster the cluster to dispatch the requests again.
+     * @param environment the environment with the timer and retry settings.
+     * @param configProvider the provider to signal an outdated configuration to.
+     */
+    public RetryScheduler(final Cluster cluster, final Environment environment,
+        final ConfigurationProvider configProvider) {
+        this.cluster = cluster;
+        this.configProvider = configProvider;
+        this.timer = environment.timer();
+        this.metrics = environment.latencyMetrics();
+        this.minDelay = environment.retryMinDelay();
+        this.maxDelay = environment.retryMaxDelay();
+        this.budget = environment.retryBudget();
+        this.parked = new ConcurrentHashMap<CouchbaseRequest, RetryTask>();
+    }
+
+    /**
+     * Parks the request and schedules its next dispatch.
+     *
+     * Requests which already expired are dropped, requests which exceeded their retry budget are failed. Since a
+     * retry usually means that the configuration is outdated, it is signalled to the configuration provider.
+     *
+     * @param request the request to retry.
+     */
+    public void retry(final CouchbaseRequest request) {
+        Timeout timeout = request.timeoutHandle();
+        if (timeout != null && timeout.isExpired()) {
+            return;
+        }
+        if (configProvider != null) {
+            configProvider.signalOutdated();
+        }
+
+        int retries = request.incrementRetryCount();
+        if (retries > budget) {
+            if (request.cancelTimeout()) {
+                if (metrics != null) {
+                    metrics.record(request, RequestOutcome.FAILED);
+                }
+                request.observable().onError(RETRY_EXHAUSTED_EXCEPTION);
+            }
+            return;
+        }
+
+        RetryTask task = new RetryTask(request);
+        parked.put(request, task);
+        timer.newTimeout(task, delayFor(retries), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Dispatches all parked requests right away, without waiting for their backoff.
+     *
+     * This is called whenever a new configuration has been applied.
+     */
+    public void redispatch() {
+        for (Map.Entry<CouchbaseRequest, RetryTask> entry : parked.entrySet()) {
+            if (parked.remove(entry.getKey(), entry.getValue())) {
+                cluster.trySend(entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of currently parked requests.
+     *
+     * @return the number of parked requests.
+     */
+    public int parkedRequests() {
+        return parked.size();
+    }
+
+    /**
+     * Calculates the backoff for the given retry.
+     *
+     * @param retry the number of the retry, starting at 1.
+     * @return the delay in milliseconds.
+     */
+    long delayFor(final int retry) {
+        int shift = retry - 1;
+        if (shift >= Long.numberOfLeadingZeros(minDelay) - 1) {
+            return maxDelay;
+        }
+        return Math.min(minDelay << shift, maxDelay);
+    }
+
+    /**
+     * Dispatches a parked request once its backoff is over, unless it has been dispatched in the meantime.
+     */
+    private final class RetryTask implements TimerTask {
+
+        private final CouchbaseRequest request;
+
+        RetryTask(final CouchbaseRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public void run(final Timeout timeout) throws Exception {
+            if (parked.remove(request, this)) {
+                cluster.trySend(request);
+            }
+        }
+    }
+
+}
@@ -10,14 +10,16 @@ public abstract class AbstractBucketConfig implements BucketConfig {
     private final String uri;
     private final String streamingUri;
     private final List<NodeInfo> nodeInfo;
+    private final long rev;
 
     protected AbstractBucketConfig(String name, BucketNodeLocator locator, String uri, String streamingUri,
-        List<NodeInfo> nodeInfo) {
+        List<NodeInfo> nodeInfo, long rev) {
         this.name = name;
         this.locator = locator;
         this.uri = uri;
         this.streamingUri = streamingUri;
         this.nodeInfo = nodeInfo;
+        this.rev = rev;
     }
 
     @Override
@@ -45,6 +47,11 @@ public abstract class AbstractBucketConfig implements BucketConfig {
         return nodeInfo;
     }
 
+    @Override
+    public long rev() {
+        return rev;
+    }
+
     @Override
     public String password() {
         return password;
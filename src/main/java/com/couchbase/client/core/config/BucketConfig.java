@@ -90,4 +90,11 @@ public interface BucketConfig {
      */
     List<NodeInfo> nodes();
 
+    /**
+     * The revision of this configuration, as assigned by the server.
+     *
+     * @return the revision, 0 if the server did not send one.
+     */
+    long rev();
+
 }
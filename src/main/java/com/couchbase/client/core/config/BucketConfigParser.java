@@ -0,0 +1,206 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserDelegate;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+
+/**
+ * Reads {@link BucketConfig}s straight from the raw response {@link ByteBuf}.
+ *
+ * The content is never turned into a {@link String} as a whole: the Jackson streaming parser works on the buffer
+ * directly and the "$HOST" placeholder is only substituted in the string values which actually contain it. The
+ * revision can be read on its own, so that configurations which are not newer than the current one can be dropped
+ * before they are bound.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class BucketConfigParser {
+
+    /**
+     * The placeholder the server uses for the hostname it has been asked on.
+     */
+    private static final String HOST_PLACEHOLDER = "$HOST";
+
+    /**
+     * The shared object mapper, which is thread safe once configured.
+     */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * The factory for the streaming parsers.
+     */
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private BucketConfigParser() {
+    }
+
+    /**
+     * Parses the configuration from the buffer, replacing "$HOST" with the given hostname.
+     *
+     * The reader index of the buffer is not modified.
+     *
+     * @param content the raw configuration.
+     * @param hostname the hostname to substitute.
+     * @return the parsed configuration.
+     */
+    public static BucketConfig parse(final ByteBuf content, final String hostname) {
+        JsonParser parser = null;
+        try {
+            parser = new HostSubstitutingParser(createParser(content), hostname);
+            return MAPPER.readValue(parser, BucketConfig.class);
+        } catch (IOException ex) {
+            throw new ConfigurationException("Could not parse bucket configuration.", ex);
+        } finally {
+            close(parser);
+        }
+    }
+
+    /**
+     * Reads the top-level "rev" field of the configuration, skipping over all other fields.
+     *
+     * The reader index of the buffer is not modified.
+     *
+     * @param content the raw configuration.
+     * @return the revision, 0 if not present.
+     */
+    public static long revision(final ByteBuf content) {
+        JsonParser parser = null;
+        try {
+            parser = createParser(content);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return 0;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if ("rev".equals(field) && value == JsonToken.VALUE_NUMBER_INT) {
+                    return parser.getLongValue();
+                }
+                parser.skipChildren();
+            }
+            return 0;
+        } catch (IOException ex) {
+            throw new ConfigurationException("Could not read bucket configuration revision.", ex);
+        } finally {
+            close(parser);
+        }
+    }
+
+    /**
+     * Creates a parser over the readable bytes, using the backing array directly if there is one.
+     */
+    private static JsonParser createParser(final ByteBuf content) throws IOException {
+        if (content.hasArray()) {
+            return FACTORY.createParser(content.array(), content.arrayOffset() + content.readerIndex(),
+                content.readableBytes());
+        }
+        return FACTORY.createParser(new ByteBufInputStream(content.duplicate()));
+    }
+
+    private static void close(final JsonParser parser) {
+        if (parser == null) {
+            return;
+        }
+        try {
+            parser.close();
+        } catch (IOException ex) {
+            // nothing left to read, safe to ignore.
+        }
+    }
+
+    /**
+     * A {@link JsonParser} which replaces the "$HOST" placeholder in string values with the hostname.
+     */
+    static class HostSubstitutingParser extends JsonParserDelegate {
+
+        private final String hostname;
+
+        HostSubstitutingParser(final JsonParser parser, final String hostname) {
+            super(parser);
+            this.hostname = hostname;
+        }
+
+        @Override
+        public String getText() throws IOException {
+            return substitute(super.getText());
+        }
+
+        @Override
+        public String getValueAsString() throws IOException {
+            return substitute(super.getValueAsString());
+        }
+
+        @Override
+        public String getValueAsString(final String defaultValue) throws IOException {
+            return substitute(super.getValueAsString(defaultValue));
+        }
+
+        @Override
+        public char[] getTextCharacters() throws IOException {
+            return hasPlaceholder() ? getText().toCharArray() : super.getTextCharacters();
+        }
+
+        @Override
+        public int getTextLength() throws IOException {
+            return hasPlaceholder() ? getText().length() : super.getTextLength();
+        }
+
+        @Override
+        public int getTextOffset() throws IOException {
+            return hasPlaceholder() ? 0 : super.getTextOffset();
+        }
+
+        /**
+         * Checks the raw characters of the current string value for the placeholder, without allocating.
+         */
+        private boolean hasPlaceholder() throws IOException {
+            if (getCurrentToken() != JsonToken.VALUE_STRING) {
+                return false;
+            }
+            char[] chars = super.getTextCharacters();
+            int end = super.getTextOffset() + super.getTextLength();
+            for (int i = super.getTextOffset(); i < end; i++) {
+                if (chars[i] == '$') {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private String substitute(final String text) {
+            if (text == null || getCurrentToken() != JsonToken.VALUE_STRING || text.indexOf('$') < 0) {
+                return text;
+            }
+            return text.replace(HOST_PLACEHOLDER, hostname);
+        }
+    }
+
+}
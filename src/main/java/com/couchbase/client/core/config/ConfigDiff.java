@@ -0,0 +1,280 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.message.internal.AddServiceRequest;
+import com.couchbase.client.core.message.internal.RemoveServiceRequest;
+import com.couchbase.client.core.service.BucketServiceMapping;
+import com.couchbase.client.core.service.ServiceType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The difference between two successive sets of {@link BucketConfig}s, so that only the delta has to be applied.
+ *
+ * The diff contains the nodes which joined or left, the services which have been added or removed on the nodes
+ * which stay, and the number of partitions per couchbase bucket whose master or replica nodes changed. Services
+ * which are shared across buckets on a node are only removed once no bucket refers to them anymore.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class ConfigDiff {
+
+    private final Set<String> addedNodes;
+    private final Set<String> removedNodes;
+    private final List<AddServiceRequest> addedServices;
+    private final List<RemoveServiceRequest> removedServices;
+    private final Map<String, Integer> changedPartitions;
+
+    private ConfigDiff(final Set<String> addedNodes, final Set<String> removedNodes,
+        final List<AddServiceRequest> addedServices, final List<RemoveServiceRequest> removedServices,
+        final Map<String, Integer> changedPartitions) {
+        this.addedNodes = addedNodes;
+        this.removedNodes = removedNodes;
+        this.addedServices = addedServices;
+        this.removedServices = removedServices;
+        this.changedPartitions = changedPartitions;
+    }
+
+    /**
+     * Computes the difference between the previously applied and the next bucket configurations.
+     *
+     * @param previous the previously applied configurations by bucket name.
+     * @param next the next configurations by bucket name.
+     * @param ssl if the ssl ports of the services should be used.
+     * @return the computed diff.
+     */
+    public static ConfigDiff compute(final Map<String, BucketConfig> previous, final Map<String, BucketConfig> next,
+        final boolean ssl) {
+        Map<ServiceKey, AddServiceRequest> before = services(previous, ssl);
+        Map<ServiceKey, AddServiceRequest> after = services(next, ssl);
+
+        Set<String> beforeNodes = new LinkedHashSet<String>();
+        for (ServiceKey key : before.keySet()) {
+            beforeNodes.add(key.hostname);
+        }
+        Set<String> afterNodes = new LinkedHashSet<String>();
+        for (ServiceKey key : after.keySet()) {
+            afterNodes.add(key.hostname);
+        }
+        Set<String> addedNodes = new LinkedHashSet<String>(afterNodes);
+        addedNodes.removeAll(beforeNodes);
+        Set<String> removedNodes = new LinkedHashSet<String>(beforeNodes);
+        removedNodes.removeAll(afterNodes);
+
+        List<AddServiceRequest> addedServices = new ArrayList<AddServiceRequest>();
+        List<RemoveServiceRequest> removedServices = new ArrayList<RemoveServiceRequest>();
+        for (Map.Entry<ServiceKey, AddServiceRequest> service : before.entrySet()) {
+            AddServiceRequest current = after.get(service.getKey());
+            boolean moved = current != null && current.port() != service.getValue().port();
+            if ((current == null || moved) && !removedNodes.contains(service.getKey().hostname)) {
+                AddServiceRequest old = service.getValue();
+                removedServices.add(new RemoveServiceRequest(old.type(), old.bucket(), old.hostname()));
+            }
+        }
+        for (Map.Entry<ServiceKey, AddServiceRequest> service : after.entrySet()) {
+            AddServiceRequest old = before.get(service.getKey());
+            if (old == null || old.port() != service.getValue().port()) {
+                addedServices.add(service.getValue());
+            }
+        }
+
+        Map<String, Integer> changedPartitions = new HashMap<String, Integer>();
+        for (Map.Entry<String, BucketConfig> bucket : next.entrySet()) {
+            BucketConfig old = previous.get(bucket.getKey());
+            if (old instanceof CouchbaseBucketConfig && bucket.getValue() instanceof CouchbaseBucketConfig) {
+                int changed = changedPartitions((CouchbaseBucketConfig) old,
+                    (CouchbaseBucketConfig) bucket.getValue());
+                if (changed > 0) {
+                    changedPartitions.put(bucket.getKey(), changed);
+                }
+            }
+        }
+
+        return new ConfigDiff(addedNodes, removedNodes, addedServices, removedServices, changedPartitions);
+    }
+
+    /**
+     * Collects the services of all nodes, identified by node, type and for services which are not shared also by
+     * bucket.
+     */
+    private static Map<ServiceKey, AddServiceRequest> services(final Map<String, BucketConfig> configs,
+        final boolean ssl) {
+        Map<ServiceKey, AddServiceRequest> services = new LinkedHashMap<ServiceKey, AddServiceRequest>();
+        for (BucketConfig config : configs.values()) {
+            for (NodeInfo node : config.nodes()) {
+                Map<ServiceType, Integer> ports = ssl ? node.sslServices() : node.services();
+                for (Map.Entry<ServiceType, Integer> port : ports.entrySet()) {
+                    ServiceType type = port.getKey();
+                    String bucket = type.mapping() == BucketServiceMapping.ONE_BY_ONE ? config.name() : null;
+                    ServiceKey key = new ServiceKey(node.hostname(), type, bucket);
+                    if (!services.containsKey(key)) {
+                        services.put(key, new AddServiceRequest(type, config.name(), config.password(),
+                            port.getValue(), node.hostname()));
+                    }
+                }
+            }
+        }
+        return services;
+    }
+
+    /**
+     * Counts the partitions whose master or replica nodes differ between the two configurations.
+     */
+    private static int changedPartitions(final CouchbaseBucketConfig previous, final CouchbaseBucketConfig next) {
+        int partitions = next.numberOfPartitions();
+        int replicas = next.numberOfReplicas();
+        if (previous.numberOfPartitions() != partitions || previous.numberOfReplicas() != replicas) {
+            return partitions;
+        }
+
+        int changed = 0;
+        for (int i = 0; i < partitions; i++) {
+            boolean same = sameHost(previous, previous.nodeIndexForMaster(i), next, next.nodeIndexForMaster(i));
+            for (int r = 0; same && r < replicas; r++) {
+                same = sameHost(previous, previous.nodeIndexForReplica(i, r), next, next.nodeIndexForReplica(i, r));
+            }
+            if (!same) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private static boolean sameHost(final CouchbaseBucketConfig previous, final int before,
+        final CouchbaseBucketConfig next, final int after) {
+        if (before < 0 || after < 0) {
+            return before == after;
+        }
+        return previous.partitionHosts().get(before).equals(next.partitionHosts().get(after));
+    }
+
+    /**
+     * The nodes which are not part of the previous configurations.
+     *
+     * @return the hostnames of the added nodes.
+     */
+    public Set<String> addedNodes() {
+        return Collections.unmodifiableSet(addedNodes);
+    }
+
+    /**
+     * The nodes which are not part of the next configurations anymore.
+     *
+     * @return the hostnames of the removed nodes.
+     */
+    public Set<String> removedNodes() {
+        return Collections.unmodifiableSet(removedNodes);
+    }
+
+    /**
+     * The services to add, including all services of the added nodes and services whose port changed.
+     *
+     * @return the requests to add the services.
+     */
+    public List<AddServiceRequest> addedServices() {
+        return Collections.unmodifiableList(addedServices);
+    }
+
+    /**
+     * The services to remove from nodes which stay, including services whose port changed.
+     *
+     * @return the requests to remove the services.
+     */
+    public List<RemoveServiceRequest> removedServices() {
+        return Collections.unmodifiableList(removedServices);
+    }
+
+    /**
+     * The number of partitions whose master or replica nodes changed, by bucket name.
+     *
+     * Buckets without changes are not contained.
+     *
+     * @return the number of changed partitions.
+     */
+    public Map<String, Integer> changedPartitions() {
+        return Collections.unmodifiableMap(changedPartitions);
+    }
+
+    /**
+     * Checks if neither the nodes, nor the services nor the partitions changed.
+     *
+     * @return true if there is nothing to apply.
+     */
+    public boolean isEmpty() {
+        return addedNodes.isEmpty() && removedNodes.isEmpty() && addedServices.isEmpty()
+            && removedServices.isEmpty() && changedPartitions.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigDiff{addedNodes=" + addedNodes + ", removedNodes=" + removedNodes + ", addedServices="
+            + addedServices.size() + ", removedServices=" + removedServices.size() + ", changedPartitions="
+            + changedPartitions + '}';
+    }
+
+    /**
+     * Identifies a service on a node, the bucket is null for services shared across buckets.
+     */
+    private static final class ServiceKey {
+
+        private final String hostname;
+        private final ServiceType type;
+        private final String bucket;
+
+        ServiceKey(final String hostname, final ServiceType type, final String bucket) {
+            this.hostname = hostname;
+            this.type = type;
+            this.bucket = bucket;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ServiceKey other = (ServiceKey) o;
+            return hostname.equals(other.hostname) && type == other.type
+                && (bucket == null ? other.bucket == null : bucket.equals(other.bucket));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = hostname.hashCode();
+            result = 31 * result + type.hashCode();
+            result = 31 * result + (bucket == null ? 0 : bucket.hashCode());
+            return result;
+        }
+    }
+
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Refreshes the configuration of every open bucket in the background, asking one node per bucket and poll.
+ *
+ * The nodes are asked in round-robin order, so the whole cluster is covered over time with a single request per
+ * bucket and interval. The interval adapts: it drops to the minimum once the configuration is signalled as
+ * outdated and doubles with every poll until it reaches the maximum again.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+class ConfigPoller implements TimerTask {
+
+    /**
+     * The provider to fetch the configurations through.
+     */
+    private final DefaultConfigurationProvider provider;
+
+    /**
+     * The interval right after the configuration has been signalled as outdated, in milliseconds.
+     */
+    private final long minInterval;
+
+    /**
+     * The interval once things are stable, in milliseconds.
+     */
+    private final long maxInterval;
+
+    /**
+     * The interval until the next poll, in milliseconds.
+     */
+    private final AtomicLong interval;
+
+    /**
+     * The handle of the next poll.
+     */
+    private final AtomicReference<Timeout> next = new AtomicReference<Timeout>();
+
+    /**
+     * Makes sure polling is only started once.
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
+    /**
+     * The number of polls so far, which picks the node to ask. Only used from the timer thread.
+     */
+    private int polls;
+
+    /**
+     * Creates a new {@link ConfigPoller}.
+     *
+     * @param provider the provider to fetch the configurations through.
+     * @param minInterval the interval right after an outdated configuration, in milliseconds.
+     * @param maxInterval the interval once things are stable, in milliseconds.
+     */
+    ConfigPoller(final DefaultConfigurationProvider provider, final long minInterval, final long maxInterval) {
+        this.provider = provider;
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.interval = new AtomicLong(maxInterval);
+    }
+
+    /**
+     * Schedules the first poll on the given timer, unless polling already started.
+     *
+     * @param timer the timer to poll on.
+     */
+    void start(final Timer timer) {
+        if (started.compareAndSet(false, true)) {
+            schedule(timer, interval.get());
+        }
+    }
+
+    /**
+     * Brings the next poll forward to the minimum interval.
+     *
+     * A signal which races with a running poll only takes effect after the poll scheduled next, which is fine since
+     * an outdated configuration keeps causing retries.
+     */
+    void signalOutdated() {
+        if (interval.getAndSet(minInterval) == minInterval) {
+            return;
+        }
+        Timeout timeout = next.get();
+        if (timeout != null && timeout.cancel()) {
+            schedule(timeout.timer(), minInterval);
+        }
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        long delay;
+        do {
+            delay = interval.get();
+        } while (!interval.compareAndSet(delay, Math.min(delay << 1, maxInterval)));
+        try {
+            poll();
+        } finally {
+            schedule(timeout.timer(), delay);
+        }
+    }
+
+    /**
+     * Asks the next node of every open bucket for its configuration.
+     */
+    void poll() {
+        int poll = polls++;
+        List<BucketConfig> configs = new ArrayList<BucketConfig>(provider.config().bucketConfigs().values());
+        for (BucketConfig config : configs) {
+            List<NodeInfo> nodes = config.nodes();
+            if (nodes == null || nodes.isEmpty()) {
+                continue;
+            }
+            provider.refresh(config, nodes.get((poll & Integer.MAX_VALUE) % nodes.size()).hostname());
+        }
+    }
+
+    /**
+     * The interval until the next poll.
+     *
+     * @return the interval in milliseconds.
+     */
+    long interval() {
+        return interval.get();
+    }
+
+    /**
+     * Schedules the next poll, unless the timer has been stopped in the meantime.
+     *
+     * @param timer the timer to schedule on.
+     * @param delay the delay in milliseconds.
+     */
+    private void schedule(final Timer timer, final long delay) {
+        try {
+            next.set(timer.newTimeout(this, delay, TimeUnit.MILLISECONDS));
+        } catch (IllegalStateException ex) {
+            // The timer has been stopped, polling ends with it.
+        }
+    }
+
+}
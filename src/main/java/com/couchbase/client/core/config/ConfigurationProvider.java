@@ -54,4 +54,11 @@ public interface ConfigurationProvider {
      * @return an observable with the configuration if success, and failures otherwise.
      */
     Observable<ClusterConfig> openBucket(String name, String password);
+
+    /**
+     * Signals that the current configuration is likely outdated, for example because a request had to be retried.
+     *
+     * The provider should then refresh the configurations sooner than it usually would.
+     */
+    void signalOutdated();
 }
@@ -18,11 +18,28 @@ public interface CouchbaseBucketConfig extends BucketConfig {
     List<String> partitionHosts();
 
     /**
-     * All partitions, sorted by their partition index.
+     * The number of partitions in the partition map.
      *
-     * @return all partitions.
+     * @return number of partitions.
      */
-    List<Partition> partitions();
+    int numberOfPartitions();
+
+    /**
+     * Returns the {@link #partitionHosts()} index of the master for the given partition.
+     *
+     * @param partition the partition index.
+     * @return the master node index, -1 if not set.
+     */
+    short nodeIndexForMaster(int partition);
+
+    /**
+     * Returns the {@link #partitionHosts()} index of a replica for the given partition.
+     *
+     * @param partition the partition index.
+     * @param replica the replica number, starting at 0.
+     * @return the replica node index, -1 if not set.
+     */
+    short nodeIndexForReplica(int partition, int replica);
 
     /**
      * The number of configured replicas for this bucket.
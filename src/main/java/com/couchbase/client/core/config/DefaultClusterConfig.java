@@ -44,6 +44,15 @@ public class DefaultClusterConfig implements ClusterConfig {
         bucketConfigs = new HashMap<String, BucketConfig>();
     }
 
+    /**
+     * Creates a new {@link DefaultClusterConfig} which starts with a copy of the given bucket configurations.
+     *
+     * @param bucketConfigs the bucket configurations to copy.
+     */
+    public DefaultClusterConfig(final Map<String, BucketConfig> bucketConfigs) {
+        this.bucketConfigs = new HashMap<String, BucketConfig>(bucketConfigs);
+    }
+
     @Override
     public BucketConfig bucketConfig(final String bucketName) {
         return bucketConfigs.get(bucketName);
@@ -23,22 +23,35 @@ package com.couchbase.client.core.config;
 
 import com.couchbase.client.core.cluster.Cluster;
 import com.couchbase.client.core.env.Environment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.binary.GetBucketConfigRequest;
 import com.couchbase.client.core.message.binary.GetBucketConfigResponse;
+import com.couchbase.client.core.message.config.BucketStreamingRequest;
+import com.couchbase.client.core.message.config.BucketStreamingResponse;
 import com.couchbase.client.core.message.internal.AddNodeRequest;
 import com.couchbase.client.core.message.internal.AddNodeResponse;
 import com.couchbase.client.core.message.internal.AddServiceRequest;
 import com.couchbase.client.core.message.internal.AddServiceResponse;
+import com.couchbase.client.core.message.internal.RemoveNodeRequest;
 import com.couchbase.client.core.service.ServiceType;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
+import rx.Subscriber;
 import rx.functions.Func1;
-import rx.schedulers.Schedulers;
+import rx.subjects.AsyncSubject;
 import rx.subjects.PublishSubject;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -54,6 +67,11 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(ConfigurationProvider.class);
 
+    /**
+     * The streaming path of a bucket, used as long as no configuration advertised it.
+     */
+    private static final String STREAMING_PATH = "/pools/default/bucketsStreaming/";
+
     /**
      * Reference to the cluster to issue config fetching commands.
      */
@@ -74,14 +92,17 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      */
     private final AtomicReference<List<String>> seedHosts;
 
+    private final Environment environment;
+
     /**
-     * Jackson object mapper.
-     *
-     * TODO: maybe refactor me out.
+     * The buckets which have an open configuration stream.
      */
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Set<String> streaming = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
 
-    private final Environment environment;
+    /**
+     * Polls the configurations of the open buckets in the background, null if disabled.
+     */
+    private final ConfigPoller poller;
 
     /**
      * Signals if the provider is bootstrapped and serving configs.
@@ -100,6 +121,9 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
         bootstrapped = false;
         this.environment = environment;
         currentConfig = new AtomicReference<ClusterConfig>(new DefaultClusterConfig());
+        long pollInterval = environment.configPollMaxInterval();
+        poller = pollInterval > 0
+            ? new ConfigPoller(this, environment.configPollMinInterval(), pollInterval) : null;
     }
 
     @Override
@@ -124,78 +148,264 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
             return Observable.from(currentConfig.get());
         }
 
-       /* Observable<ClusterConfig> httpFallback = bootstrapThroughHttp(bucket, password).map(
-            new Func1<BucketConfig, ClusterConfig>() {
+        return bootstrapThroughCarrierPublication(bucket, password)
+            .onErrorResumeNext(new Func1<Throwable, Observable<BucketConfig>>() {
+                @Override
+                public Observable<BucketConfig> call(final Throwable throwable) {
+                    LOGGER.debug("Carrier publication bootstrap for bucket {} failed, falling back to HTTP.",
+                        bucket, throwable);
+                    return bootstrapThroughHttp(bucket, password);
+                }
+            })
+            .map(new Func1<BucketConfig, ClusterConfig>() {
                 @Override
-                public ClusterConfig call(BucketConfig bucketConfig) {
+                public ClusterConfig call(final BucketConfig bucketConfig) {
                     applyBucketConfig(bucket, bucketConfig);
+                    keepStreaming(bucket, password, bucketConfig);
+                    if (poller != null) {
+                        poller.start(environment.timer());
+                    }
                     return currentConfig.get();
                 }
-            }
-        );*/
+            });
+    }
+
+    /**
+     * Try to bootstrap from the seed nodes through the carrier publication binary mechanism.
+     *
+     * All seed nodes are raced against each other, each one started a short stagger after the previous one so that
+     * a healthy first node usually answers before the others are contacted at all. The first valid configuration
+     * wins, the other attempts are cancelled and contacted seeds which are not part of the winning configuration
+     * are removed again. The observable only fails once every seed failed.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @return an observable with the first configuration received.
+     */
+    private Observable<BucketConfig> bootstrapThroughCarrierPublication(final String bucket, final String password) {
+        List<String> hosts = seedHosts.get();
+        if (hosts == null || hosts.isEmpty()) {
+            return Observable.error(new ConfigurationException("No seed host to bootstrap bucket " + bucket
+                + " through carrier publication."));
+        }
 
-        return bootstrapThroughCarrierPublication(bucket, password).map(new Func1<BucketConfig, ClusterConfig>() {
+        final int port = environment.sslEnabled()
+            ? environment.bootstrapCarrierSslPort() : environment.bootstrapCarrierDirectPort();
+        long stagger = environment.bootstrapCarrierStagger();
+        final SeedRace race = new SeedRace(bucket, hosts);
+        for (int i = 0; i < hosts.size(); i++) {
+            final String hostname = hosts.get(i);
+            final SeedRace.Attempt attempt = race.attempt(i);
+            Observable
+                .timer(i * stagger, TimeUnit.MILLISECONDS)
+                .flatMap(new Func1<Long, Observable<AddNodeResponse>>() {
+                    @Override
+                    public Observable<AddNodeResponse> call(final Long ignored) {
+                        return attempt.send(new AddNodeRequest(hostname));
+                    }
+                }).flatMap(new Func1<AddNodeResponse, Observable<AddServiceResponse>>() {
+                    @Override
+                    public Observable<AddServiceResponse> call(final AddNodeResponse response) {
+                        return attempt.send(new AddServiceRequest(ServiceType.BINARY, bucket, password, port,
+                            hostname));
+                    }
+                }).flatMap(new Func1<AddServiceResponse, Observable<GetBucketConfigResponse>>() {
+                    @Override
+                    public Observable<GetBucketConfigResponse> call(final AddServiceResponse response) {
+                        return attempt.send(new GetBucketConfigRequest(bucket, hostname));
+                    }
+                })
+                .map(carrierConfig(bucket, password))
+                .subscribe(attempt);
+        }
+        return race.winner();
+    }
+
+    /**
+     * Creates the function which turns a carrier publication response into a configuration.
+     *
+     * If the configuration is not newer than the current one, it is not parsed and the current one is returned
+     * instead.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @return the function to map the responses with.
+     */
+    private Func1<GetBucketConfigResponse, BucketConfig> carrierConfig(final String bucket, final String password) {
+        return new Func1<GetBucketConfigResponse, BucketConfig>() {
             @Override
-            public ClusterConfig call(final BucketConfig bucketConfig) {
-                applyBucketConfig(bucket, bucketConfig);
-                return currentConfig.get();
+            public BucketConfig call(GetBucketConfigResponse response) {
+                try {
+                    if (response.status() != ResponseStatus.SUCCESS) {
+                        throw new ConfigurationException("Could not fetch config for bucket " + bucket + " from "
+                            + response.hostname() + ": " + response.status());
+                    }
+                    if (!isNewer(bucket, BucketConfigParser.revision(response.content()))) {
+                        return currentConfig.get().bucketConfig(bucket);
+                    }
+                    BucketConfig config = BucketConfigParser.parse(response.content(), response.hostname());
+                    config.password(password);
+                    return config;
+                } finally {
+                    response.content().release();
+                }
             }
-        });
-        ///*.onExceptionResumeNext(httpFallback)/*
+        };
     }
 
     /**
-     * Try to bootstrap from one of the given seed nodes through the carrier publication binary mechanism.
+     * Refreshes the configuration of an open bucket from the given node.
      *
-     * @param bucket
-     * @param password
-     * @return
+     * Couchbase buckets fetch their configuration through carrier publication, which goes through the same revision
+     * check as all other configurations. A configuration stream which closed in the meantime is opened again.
+     *
+     * @param config the current configuration of the bucket.
+     * @param hostname the hostname of the node to ask.
      */
-    private Observable<BucketConfig> bootstrapThroughCarrierPublication(final String bucket, final String password) {
-        return Observable
-            .from(seedHosts.get(), Schedulers.computation())
-            .flatMap(new Func1<String, Observable<AddNodeResponse>>() {
-                @Override
-                public Observable<AddNodeResponse> call(String hostname) {
-                    return cluster.send(new AddNodeRequest(hostname));
-                }
-            }).flatMap(new Func1<AddNodeResponse, Observable<AddServiceResponse>>() {
+    void refresh(final BucketConfig config, final String hostname) {
+        final String bucket = config.name();
+        keepStreaming(bucket, config.password(), config);
+        if (!(config instanceof CouchbaseBucketConfig)) {
+            return;
+        }
+
+        cluster
+            .<GetBucketConfigResponse>trySend(new GetBucketConfigRequest(bucket, hostname))
+            .map(carrierConfig(bucket, config.password()))
+            .subscribe(new Subscriber<BucketConfig>() {
                 @Override
-                public Observable<AddServiceResponse> call(AddNodeResponse response) {
-                    int port = environment.sslEnabled()
-                        ? environment.bootstrapCarrierSslPort() : environment.bootstrapCarrierDirectPort();
-                    return cluster.send(new AddServiceRequest(ServiceType.BINARY, bucket, password, port, response.hostname()));
+                public void onCompleted() {
                 }
-            }).flatMap(new Func1<AddServiceResponse, Observable<GetBucketConfigResponse>>() {
+
                 @Override
-                public Observable<GetBucketConfigResponse> call(AddServiceResponse response) {
-                    GetBucketConfigRequest request = new GetBucketConfigRequest(bucket, response.hostname());
-                    return cluster.send(request);
+                public void onError(final Throwable e) {
+                    LOGGER.debug("Polling the config for bucket {} from {} failed.", bucket, hostname, e);
                 }
-            }).map(new Func1<GetBucketConfigResponse, BucketConfig>() {
+
                 @Override
-                public BucketConfig call(GetBucketConfigResponse response) {
-                    try {
-                        String rawConfig = response.content().replace("$HOST", response.hostname());
-                        BucketConfig config =  objectMapper.readValue(rawConfig, BucketConfig.class);
-                        config.password(password);
-                        return config;
-                    } catch (Exception e) {
-                        throw new RuntimeException(e);
-                    }
+                public void onNext(final BucketConfig bucketConfig) {
+                    applyBucketConfig(bucket, bucketConfig);
                 }
             });
     }
 
+    @Override
+    public void signalOutdated() {
+        if (poller != null) {
+            poller.signalOutdated();
+        }
+    }
+
     /**
-     * Try to bootstrap from the given seed nodes through HTTP.
+     * Returns the current cluster-wide configuration.
      *
-     * @param bucket
-     * @param password
-     * @return
+     * @return the current configuration.
+     */
+    ClusterConfig config() {
+        return currentConfig.get();
+    }
+
+    /**
+     * Try to bootstrap from the first seed node through the HTTP streaming config.
+     *
+     * The stream stays open after bootstrap, every later configuration it receives is applied right away.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @return an observable with the first configuration received.
      */
     private Observable<BucketConfig> bootstrapThroughHttp(final String bucket, final String password) {
-        return null;
+        List<String> hosts = seedHosts.get();
+        if (hosts == null || hosts.isEmpty()) {
+            return Observable.error(new ConfigurationException("No seed host to bootstrap bucket " + bucket
+                + " through HTTP."));
+        }
+        if (!streaming.add(bucket)) {
+            return Observable.error(new ConfigurationException("Bucket " + bucket + " is already streaming."));
+        }
+
+        int port = environment.sslEnabled() ? environment.bootstrapHttpSslPort()
+            : environment.bootstrapHttpDirectPort();
+        AsyncSubject<BucketConfig> first = AsyncSubject.create();
+        streamConfigs(bucket, password, STREAMING_PATH + bucket, hosts.get(0), port)
+            .subscribe(new StreamSubscriber(bucket, first));
+        return first;
+    }
+
+    /**
+     * Opens the configuration stream for the bucket if it is not streaming already.
+     *
+     * The stream is opened against the first node of the configuration. Once it closes, the bucket is marked as not
+     * streaming anymore, so the next opening of the bucket tries again.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @param config the current configuration of the bucket.
+     */
+    private void keepStreaming(final String bucket, final String password, final BucketConfig config) {
+        if (config.nodes() == null || config.nodes().isEmpty() || !streaming.add(bucket)) {
+            return;
+        }
+
+        NodeInfo node = config.nodes().get(0);
+        Integer port = environment.sslEnabled() ? node.sslServices().get(ServiceType.CONFIG)
+            : node.services().get(ServiceType.CONFIG);
+        if (port == null) {
+            port = environment.sslEnabled() ? environment.bootstrapHttpSslPort()
+                : environment.bootstrapHttpDirectPort();
+        }
+        String path = config.streamingUri() == null ? STREAMING_PATH + bucket : config.streamingUri();
+        streamConfigs(bucket, password, path, node.hostname(), port).subscribe(new StreamSubscriber(bucket, null));
+    }
+
+    /**
+     * Opens the long-lived configuration stream of a bucket on the given node.
+     *
+     * Every configuration in the stream is parsed as it arrives, but configurations which are not newer than the
+     * current one are dropped before they are bound. The observable fails once the stream is closed by the server
+     * or the connection goes away.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @param path the streaming path of the bucket.
+     * @param hostname the hostname of the node to stream from.
+     * @param port the port of the config service on the node.
+     * @return an observable with all configurations received through the stream.
+     */
+    private Observable<BucketConfig> streamConfigs(final String bucket, final String password, final String path,
+        final String hostname, final int port) {
+        return cluster
+            .<AddNodeResponse>send(new AddNodeRequest(hostname))
+            .flatMap(new Func1<AddNodeResponse, Observable<AddServiceResponse>>() {
+                @Override
+                public Observable<AddServiceResponse> call(final AddNodeResponse response) {
+                    return cluster.send(new AddServiceRequest(ServiceType.CONFIG, bucket, password, port, hostname));
+                }
+            }).flatMap(new Func1<AddServiceResponse, Observable<BucketStreamingResponse>>() {
+                @Override
+                public Observable<BucketStreamingResponse> call(final AddServiceResponse response) {
+                    return cluster.trySend(new BucketStreamingRequest(path, bucket, password, hostname));
+                }
+            }).flatMap(new Func1<BucketStreamingResponse, Observable<BucketConfig>>() {
+                @Override
+                public Observable<BucketConfig> call(final BucketStreamingResponse response) {
+                    ByteBuf content = response.content();
+                    try {
+                        if (response.status() != ResponseStatus.CHUNKED) {
+                            return Observable.error(new ConfigurationException("Config stream for bucket "
+                                + bucket + " on " + hostname + " closed with " + response.status() + "."));
+                        }
+                        if (!isNewer(bucket, BucketConfigParser.revision(content))) {
+                            return Observable.empty();
+                        }
+                        BucketConfig config = BucketConfigParser.parse(content, hostname);
+                        config.password(password);
+                        return Observable.from(config);
+                    } finally {
+                        content.release();
+                    }
+                }
+            });
     }
 
     /**
@@ -203,13 +413,268 @@ public class DefaultConfigurationProvider implements ConfigurationProvider {
      *
      * This method also sends out an update to the subject afterwards, so that observers are notified.
      *
+     * Configurations arrive from the streams, the poller and the bootstrap concurrently, so the revision check,
+     * the update and the notification happen atomically. The applied cluster config is a fresh copy, so that
+     * observers never see it being modified.
+     *
      * @param name the name of the bucket.
      * @param config the configuration of the bucket.
      */
-    private void applyBucketConfig(final String name, final BucketConfig config) {
-        ClusterConfig cluster = currentConfig.get();
+    private synchronized void applyBucketConfig(final String name, final BucketConfig config) {
+        if (!isNewer(name, config.rev())) {
+            LOGGER.debug("Ignoring configuration revision {} for bucket {}, it is not newer than the current one.",
+                config.rev(), name);
+            return;
+        }
+        ClusterConfig cluster = new DefaultClusterConfig(currentConfig.get().bucketConfigs());
         cluster.setBucketConfig(name, config);
         currentConfig.set(cluster);
-        configObservable.onNext(currentConfig.get());
+        configObservable.onNext(cluster);
+    }
+
+    /**
+     * Checks if a configuration with the given revision is newer than the one currently applied for the bucket.
+     *
+     * Configurations without a revision are always considered newer, since they cannot be compared. Outside of
+     * {@link #applyBucketConfig(String, BucketConfig)} the result is only a hint to skip parsing early.
+     *
+     * @param name the name of the bucket.
+     * @param rev the revision of the received configuration.
+     * @return true if it should be applied, false if it can be dropped.
+     */
+    private boolean isNewer(final String name, final long rev) {
+        BucketConfig current = currentConfig.get().bucketConfig(name);
+        return current == null || rev <= 0 || rev > current.rev();
+    }
+
+    /**
+     * Keeps track of the seed nodes raced during carrier bootstrap and decides on the winning configuration.
+     *
+     * Every attempt either wins, loses or is cancelled once the race is decided. Attempts which have not contacted
+     * their seed yet are unsubscribed right away, attempts with a request in flight stop before their next request.
+     * A contacted seed which is neither the winner nor part of the winning configuration is only removed once its
+     * attempt terminated, so that a late add cannot bring it back.
+     */
+    private class SeedRace {
+
+        private final String bucket;
+        private final AsyncSubject<BucketConfig> winner = AsyncSubject.create();
+        private final List<Attempt> attempts;
+        private int remaining;
+        private boolean decided;
+
+        SeedRace(final String bucket, final List<String> hostnames) {
+            this.bucket = bucket;
+            this.remaining = hostnames.size();
+            attempts = new ArrayList<Attempt>(hostnames.size());
+            for (String hostname : hostnames) {
+                attempts.add(new Attempt(hostname));
+            }
+        }
+
+        /**
+         * Returns the attempt for the seed node at the given position.
+         *
+         * @param index the position of the seed node.
+         * @return the attempt which subscribes to the bootstrap of that seed.
+         */
+        Attempt attempt(final int index) {
+            return attempts.get(index);
+        }
+
+        /**
+         * Completes the race with the configuration of the given attempt, if it is the first one.
+         *
+         * @param attempt the winning attempt.
+         * @param config the configuration received.
+         */
+        void win(final Attempt attempt, final BucketConfig config) {
+            List<String> removable = new ArrayList<String>();
+            synchronized (this) {
+                remaining--;
+                if (decided) {
+                    return;
+                }
+                decided = true;
+
+                Set<String> keep = new HashSet<String>();
+                keep.add(attempt.hostname);
+                if (config.nodes() != null) {
+                    for (NodeInfo node : config.nodes()) {
+                        keep.add(node.hostname());
+                    }
+                }
+                for (Attempt loser : attempts) {
+                    if (loser != attempt && loser.cancel(!keep.contains(loser.hostname))) {
+                        removable.add(loser.hostname);
+                    }
+                }
+            }
+
+            for (String hostname : removable) {
+                remove(hostname);
+            }
+            winner.onNext(config);
+            winner.onCompleted();
+        }
+
+        /**
+         * Records a failed attempt and fails the race once no attempt is left.
+         *
+         * @param cause the cause of the failed attempt.
+         */
+        void lose(final Throwable cause) {
+            synchronized (this) {
+                remaining--;
+                if (decided || remaining > 0) {
+                    return;
+                }
+                decided = true;
+            }
+            winner.onError(new ConfigurationException("Could not bootstrap bucket " + bucket
+                + " through carrier publication from any seed host.", cause));
+        }
+
+        /**
+         * Removes a seed node which lost the race and is not part of the winning configuration.
+         *
+         * @param hostname the hostname of the seed node.
+         */
+        private void remove(final String hostname) {
+            LOGGER.debug("Removing seed node {}, it is not part of the config of bucket {}.", hostname, bucket);
+            cluster.send(new RemoveNodeRequest(hostname));
+        }
+
+        /**
+         * Returns the observable which receives the winning configuration.
+         *
+         * @return the winning configuration, or an error if all seed nodes failed.
+         */
+        Observable<BucketConfig> winner() {
+            return winner;
+        }
+
+        /**
+         * The bootstrap of a single seed node, guarded by the lock of its race.
+         */
+        class Attempt extends Subscriber<BucketConfig> {
+
+            private final String hostname;
+            private boolean contacted;
+            private boolean cancelled;
+            private boolean terminated;
+            private boolean removeOnTermination;
+
+            Attempt(final String hostname) {
+                this.hostname = hostname;
+            }
+
+            /**
+             * Sends the next request of this attempt, unless it has been cancelled in the meantime.
+             *
+             * @param request the request to send.
+             * @return the response, or an empty observable if the attempt is cancelled.
+             */
+            <R extends CouchbaseResponse> Observable<R> send(final CouchbaseRequest request) {
+                synchronized (SeedRace.this) {
+                    if (cancelled) {
+                        return Observable.empty();
+                    }
+                    contacted = true;
+                }
+                return cluster.send(request);
+            }
+
+            /**
+             * Cancels this attempt because another one won the race.
+             *
+             * Must be called with the lock of the race held.
+             *
+             * @param remove if the seed node should be removed once this attempt terminated.
+             * @return true if the seed node can be removed right away.
+             */
+            private boolean cancel(final boolean remove) {
+                cancelled = true;
+                if (!contacted) {
+                    unsubscribe();
+                    return false;
+                }
+                removeOnTermination = remove && !terminated;
+                return remove && terminated;
+            }
+
+            /**
+             * Marks this attempt as terminated and removes its seed node if it lost in the meantime.
+             */
+            private void terminate() {
+                synchronized (SeedRace.this) {
+                    terminated = true;
+                    if (!removeOnTermination) {
+                        return;
+                    }
+                    removeOnTermination = false;
+                }
+                remove(hostname);
+            }
+
+            @Override
+            public void onCompleted() {
+                terminate();
+            }
+
+            @Override
+            public void onError(final Throwable e) {
+                LOGGER.debug("Carrier publication bootstrap for bucket {} from {} failed.", bucket, hostname, e);
+                lose(e);
+                terminate();
+            }
+
+            @Override
+            public void onNext(final BucketConfig config) {
+                win(this, config);
+            }
+        }
+    }
+
+    /**
+     * Applies every configuration of a stream and keeps track of the streaming buckets.
+     *
+     * If bootstrap waits for the stream, the first configuration is handed to it instead of being applied, since
+     * the bootstrap process applies it on its own.
+     */
+    private class StreamSubscriber extends Subscriber<BucketConfig> {
+
+        private final String bucket;
+        private AsyncSubject<BucketConfig> bootstrap;
+
+        StreamSubscriber(final String bucket, final AsyncSubject<BucketConfig> bootstrap) {
+            this.bucket = bucket;
+            this.bootstrap = bootstrap;
+        }
+
+        @Override
+        public void onNext(final BucketConfig config) {
+            if (bootstrap != null) {
+                bootstrap.onNext(config);
+                bootstrap.onCompleted();
+                bootstrap = null;
+            } else {
+                applyBucketConfig(bucket, config);
+            }
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            LOGGER.debug("Config stream for bucket {} closed.", bucket, e);
+            streaming.remove(bucket);
+            if (bootstrap != null) {
+                bootstrap.onError(e);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            onError(new ConfigurationException("Config stream for bucket " + bucket + " completed."));
+        }
     }
 }
@@ -4,8 +4,14 @@ import com.couchbase.client.core.service.ServiceType;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
-
-import java.util.ArrayList;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
@@ -24,8 +30,9 @@ public class DefaultCouchbaseBucketConfig extends AbstractBucketConfig implement
         @JsonProperty("uri") String uri,
         @JsonProperty("streamingUri") String streamingUri,
         @JsonProperty("vBucketServerMap") PartitionInfo partitionInfo,
-        @JsonProperty("nodes") List<NodeInfo> nodeInfo) {
-        super(name, locator, uri, streamingUri, nodeInfo);
+        @JsonProperty("nodes") List<NodeInfo> nodeInfo,
+        @JsonProperty("rev") long rev) {
+        super(name, locator, uri, streamingUri, nodeInfo, rev);
         this.partitionInfo = partitionInfo;
     }
 
@@ -35,8 +42,18 @@ public class DefaultCouchbaseBucketConfig extends AbstractBucketConfig implement
     }
 
     @Override
-    public List<Partition> partitions() {
-        return partitionInfo.partitions();
+    public int numberOfPartitions() {
+        return partitionInfo.numberOfPartitions();
+    }
+
+    @Override
+    public short nodeIndexForMaster(int partition) {
+        return partitionInfo.master(partition);
+    }
+
+    @Override
+    public short nodeIndexForReplica(int partition, int replica) {
+        return partitionInfo.replica(partition, replica);
     }
 
     @Override
@@ -49,16 +66,17 @@ public class DefaultCouchbaseBucketConfig extends AbstractBucketConfig implement
 
         private final int numberOfReplicas;
         private final List<String> partitionHosts;
-        private final List<Partition> partitions;
+        private final PartitionMap partitionMap;
 
+        @JsonCreator
         PartitionInfo(
             @JsonProperty("numReplicas") int numberOfReplicas,
             @JsonProperty("serverList") List<String> partitionHosts,
-            @JsonProperty("vBucketMap") List<List<Short>> partitions) {
+            @JsonProperty("vBucketMap") PartitionMap partitionMap) {
             this.numberOfReplicas = numberOfReplicas;
             trimPort(partitionHosts);
             this.partitionHosts = partitionHosts;
-            this.partitions = fromPartitionList(partitions);
+            this.partitionMap = partitionMap == null ? PartitionMap.EMPTY : partitionMap;
         }
 
         public int numberOfReplicas() {
@@ -69,8 +87,20 @@ public class DefaultCouchbaseBucketConfig extends AbstractBucketConfig implement
             return partitionHosts;
         }
 
-        public List<Partition> partitions() {
-            return partitions;
+        public int numberOfPartitions() {
+            return partitionMap.masters.length;
+        }
+
+        public short master(int partition) {
+            return partitionMap.masters[partition];
+        }
+
+        public short replica(int partition, int replica) {
+            int stride = partitionMap.stride;
+            if (replica < 0 || replica >= stride) {
+                return -1;
+            }
+            return partitionMap.replicas[partition * stride + replica];
         }
 
         private static void trimPort(List<String> input) {
@@ -80,18 +110,75 @@ public class DefaultCouchbaseBucketConfig extends AbstractBucketConfig implement
             }
         }
 
-        private static List<Partition> fromPartitionList(List<List<Short>> input) {
-            List<Partition> partitions = new ArrayList<Partition>();
-            for (List<Short> partition : input) {
-                short master = partition.remove(0);
-                short[] replicas = new short[partition.size()];
-                int i = 0;
-                for (short replica : partition) {
-                    replicas[i++] = replica;
+    }
+
+    /**
+     * The partition map, flattened into a master array and a replica array strided by the replicas per partition.
+     */
+    @JsonDeserialize(using = PartitionMapDeserializer.class)
+    static class PartitionMap {
+
+        static final PartitionMap EMPTY = new PartitionMap(new short[0], new short[0], 0);
+
+        private final short[] masters;
+        private final short[] replicas;
+        private final int stride;
+
+        PartitionMap(short[] masters, short[] replicas, int stride) {
+            this.masters = masters;
+            this.replicas = replicas;
+            this.stride = stride;
+        }
+
+    }
+
+    /**
+     * Reads the "vBucketMap" array of arrays straight from the token stream, without boxing every index.
+     */
+    static class PartitionMapDeserializer extends JsonDeserializer<PartitionMap> {
+
+        private static final int INITIAL_CAPACITY = 2048;
+
+        @Override
+        public PartitionMap deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+                throw context.mappingException(PartitionMap.class);
+            }
+
+            short[] entries = new short[INITIAL_CAPACITY];
+            int size = 0;
+            int partitions = 0;
+            int width = -1;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+                    throw context.mappingException(PartitionMap.class);
+                }
+                int count = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    if (size == entries.length) {
+                        entries = Arrays.copyOf(entries, size << 1);
+                    }
+                    entries[size++] = parser.getShortValue();
+                    count++;
+                }
+                if (width < 0) {
+                    width = count;
                 }
-                partitions.add(new DefaultPartition(master, replicas));
+                if (count == 0 || count != width) {
+                    throw context.mappingException("Partition " + partitions + " has " + count
+                        + " entries, expected " + width);
+                }
+                partitions++;
+            }
+
+            int stride = Math.max(width - 1, 0);
+            short[] masters = new short[partitions];
+            short[] replicas = new short[partitions * stride];
+            for (int i = 0; i < partitions; i++) {
+                masters[i] = entries[i * width];
+                System.arraycopy(entries, i * width + 1, replicas, i * stride, stride);
             }
-            return partitions;
+            return new PartitionMap(masters, replicas, stride);
         }
 
     }
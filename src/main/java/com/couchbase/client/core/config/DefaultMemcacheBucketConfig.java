@@ -0,0 +1,52 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Default implementation of a {@link MemcacheBucketConfig}.
+ *
+ * Memcache buckets have no partition map, the documents are spread across the nodes through ketama hashing.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class DefaultMemcacheBucketConfig extends AbstractBucketConfig implements MemcacheBucketConfig {
+
+    @JsonCreator
+    public DefaultMemcacheBucketConfig(
+        @JsonProperty("name") String name,
+        @JsonProperty("nodeLocator") BucketNodeLocator locator,
+        @JsonProperty("uri") String uri,
+        @JsonProperty("streamingUri") String streamingUri,
+        @JsonProperty("nodes") List<NodeInfo> nodeInfo,
+        @JsonProperty("rev") long rev) {
+        super(name, locator, uri, streamingUri, nodeInfo, rev);
+    }
+
+}
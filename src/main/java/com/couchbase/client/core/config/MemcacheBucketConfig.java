@@ -1,7 +1,10 @@
 package com.couchbase.client.core.config;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+
 /**
  * A configuration representing a memcache bucket.
  */
+@JsonDeserialize(as = DefaultMemcacheBucketConfig.class)
 public interface MemcacheBucketConfig extends BucketConfig {
 }
@@ -26,6 +26,11 @@ import com.couchbase.client.core.cluster.ResponseHandler;
 import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.internal.SignalFlush;
+import com.couchbase.client.core.metrics.Gauge;
+import com.couchbase.client.core.metrics.GaugeMetrics;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import com.couchbase.client.core.metrics.RequestStage;
 import com.couchbase.client.core.state.AbstractStateMachine;
 import com.couchbase.client.core.state.LifecycleState;
 import com.couchbase.client.core.state.NotConnectedException;
@@ -39,10 +44,12 @@ import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.ssl.SslHandler;
+import io.netty.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import rx.Observable;
@@ -50,6 +57,8 @@ import rx.subjects.AsyncSubject;
 
 import javax.net.ssl.SSLEngine;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * The default implementation of a {@link Endpoint}.
@@ -72,6 +81,11 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
      */
     private static final ChannelHandler LOGGING_HANDLER_INSTANCE = new LoggingHandler(LogLevel.TRACE);
 
+    /**
+     * Distinguishes the gauges of endpoints to the same node and bucket.
+     */
+    private static final AtomicInteger ENDPOINT_IDS = new AtomicInteger();
+
     /**
      * Pre-created not connected exception for performance reasons.
      */
@@ -105,9 +119,88 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
     private volatile Channel channel;
 
     /**
-     * True if there have been operations written, pending flush.
+     * Decides when pending writes are flushed.
+     */
+    private final FlushPolicy flushPolicy;
+
+    /**
+     * The number of requests written, pending flush. Only accessed from the event loop of the channel.
+     */
+    private int pendingRequests;
+
+    /**
+     * The estimated number of bytes written, pending flush. Only accessed from the event loop of the channel.
+     */
+    private long pendingBytes;
+
+    /**
+     * Flushes the pending writes once the linger time is over.
+     */
+    private final Runnable lingerFlush = new Runnable() {
+        @Override
+        public void run() {
+            if (flushPending()) {
+                lingerFlushes.incrementAndGet();
+            }
+        }
+    };
+
+    /**
+     * Flushes the pending writes at the end of a batch.
+     */
+    private final Runnable batchFlush = new Runnable() {
+        @Override
+        public void run() {
+            if (flushPending()) {
+                batchFlushes.incrementAndGet();
+            }
+        }
+    };
+
+    /**
+     * The number of requests written to the channel.
+     */
+    private final AtomicLong writtenRequests = new AtomicLong();
+
+    /**
+     * The metrics which record requests failing because the endpoint is not connected, may be null.
+     */
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * The number of flushes triggered by the end of a batch.
+     */
+    private final AtomicLong batchFlushes = new AtomicLong();
+
+    /**
+     * The number of flushes triggered by the request or byte threshold.
+     */
+    private final AtomicLong thresholdFlushes = new AtomicLong();
+
+    /**
+     * The number of flushes triggered by the linger time.
+     */
+    private final AtomicLong lingerFlushes = new AtomicLong();
+
+    /**
+     * The number of times the writability of the channel changed.
      */
-    private volatile boolean hasWritten;
+    private final AtomicLong writabilityChanges = new AtomicLong();
+
+    /**
+     * The gauges this endpoint registers with, null if not tracked.
+     */
+    private final GaugeMetrics gauges;
+
+    /**
+     * The common name prefix of the gauges of this endpoint.
+     */
+    private final String gaugePrefix;
+
+    /**
+     * The generic handler of the current channel.
+     */
+    private volatile GenericEndpointHandler handler;
 
     /**
      * Number of reconnects already done.
@@ -132,11 +225,30 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
      * @param adapter the bootstrap adapter.
      */
     protected AbstractEndpoint(final String bucket, final String password, final BootstrapAdapter adapter) {
+        this(bucket, password, adapter, FlushPolicy.END_OF_BATCH);
+    }
+
+    /**
+     * Constructor to which allows to pass in an artificial bootstrap adapter and a custom {@link FlushPolicy}.
+     *
+     * This method should not be used outside of tests.
+     *
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @param adapter the bootstrap adapter.
+     * @param flushPolicy the flush policy.
+     */
+    protected AbstractEndpoint(final String bucket, final String password, final BootstrapAdapter adapter,
+        final FlushPolicy flushPolicy) {
         super(LifecycleState.DISCONNECTED);
         bootstrap = adapter;
         this.bucket = bucket;
         this.password = password;
         this.responseBuffer = null;
+        this.flushPolicy = flushPolicy;
+        this.gauges = null;
+        this.gaugePrefix = null;
+        this.latencyMetrics = null;
     }
 
     /**
@@ -155,6 +267,11 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         this.bucket = bucket;
         this.password = password;
         this.responseBuffer = responseBuffer;
+        this.flushPolicy = FlushPolicy.from(environment);
+        this.gauges = environment.gaugeMetrics();
+        this.latencyMetrics = environment.latencyMetrics();
+        this.gaugePrefix = "endpoint." + getClass().getSimpleName() + "." + hostname + ":" + port + "/" + bucket
+            + "#" + ENDPOINT_IDS.incrementAndGet();
         if (environment.sslEnabled()) {
             this.sslEngineFactory = new SSLEngineFactory(environment);
         }
@@ -176,9 +293,43 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
                         pipeline.addLast(LOGGING_HANDLER_INSTANCE);
                     }
                     customEndpointHandlers(pipeline);
-                    pipeline.addLast(new GenericEndpointHandler(AbstractEndpoint.this, responseBuffer));
+                    handler = new GenericEndpointHandler(AbstractEndpoint.this, responseBuffer,
+                        environment.directResponseCompletion(), latencyMetrics);
+                    pipeline.addLast(handler);
                 }
             }));
+
+        registerGauge("inFlight", new Gauge() {
+            @Override
+            public long value() {
+                return inFlightRequests();
+            }
+        });
+        registerGauge("writable", new Gauge() {
+            @Override
+            public long value() {
+                Channel current = channel;
+                return current != null && current.isWritable() ? 1 : 0;
+            }
+        });
+        registerGauge("writabilityChanges", new Gauge() {
+            @Override
+            public long value() {
+                return writabilityChanges();
+            }
+        });
+    }
+
+    /**
+     * Registers a gauge of this endpoint, which is removed again once the endpoint is disconnected.
+     *
+     * @param name the name of the gauge, relative to the endpoint.
+     * @param gauge the gauge.
+     */
+    protected void registerGauge(final String name, final Gauge gauge) {
+        if (gauges != null) {
+            gauges.register(gaugePrefix + "." + name, gauge);
+        }
     }
 
     /**
@@ -234,6 +385,9 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
 
     @Override
     public Observable<LifecycleState> disconnect() {
+        if (gauges != null) {
+            gauges.unregisterAll(gaugePrefix + ".");
+        }
         if (state() == LifecycleState.DISCONNECTED || state() == LifecycleState.DISCONNECTING) {
             return Observable.from(state());
         }
@@ -266,11 +420,16 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
     public void send(final CouchbaseRequest request) {
         if (state() == LifecycleState.CONNECTED) {
             if (request instanceof SignalFlush) {
-                if (hasWritten) {
-                    channel.flush();
-                    hasWritten = false;
+                if (!flushPolicy.lingers()) {
+                    runOnEventLoop(channel, batchFlush);
                 }
             } else {
+                Timeout timeout = request.timeoutHandle();
+                if (timeout != null && timeout.isExpired()) {
+                    // Already completed or failed with a timeout, no need to put it on the wire.
+                    return;
+                }
+                request.mark(RequestStage.ENDPOINT);
                 if (channel.isWritable()) {
                    /*channel.write(request).addListener(new GenericFutureListener<Future<Void>>() {
                     @Override
@@ -280,20 +439,141 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
                         }
                     }
                 });*/
-                    channel.write(request, channel.voidPromise());
-                    hasWritten = true;
+                    write(request);
                 } else {
-                    responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request.observable());
+                    responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request);
                 }
             }
         } else {
             if (request instanceof SignalFlush) {
                 return;
             }
+            if (request.cancelTimeout() && latencyMetrics != null) {
+                latencyMetrics.record(request, RequestOutcome.FAILED);
+            }
             request.observable().onError(NOT_CONNECTED_EXCEPTION);
         }
     }
 
+    /**
+     * Writes the request to the channel on its event loop.
+     *
+     * The write, the pending counts and the flush decision all happen on the event loop, so a flush always covers
+     * exactly the writes which happened before it and no write is left behind by a concurrent linger flush.
+     *
+     * @param request the request to write.
+     */
+    private void write(final CouchbaseRequest request) {
+        final Channel current = channel;
+        runOnEventLoop(current, new Runnable() {
+            @Override
+            public void run() {
+                writeAndCount(current, request);
+            }
+        });
+    }
+
+    /**
+     * Writes the request and flushes it if the {@link FlushPolicy} demands it, called from the event loop.
+     *
+     * @param current the channel to write to.
+     * @param request the request to write.
+     */
+    private void writeAndCount(final Channel current, final CouchbaseRequest request) {
+        current.write(request, current.voidPromise());
+        writtenRequests.incrementAndGet();
+
+        int requests = ++pendingRequests;
+        long bytes = pendingBytes += encodedSize(request);
+        if (flushPolicy.thresholdReached(requests, bytes)) {
+            if (flushPending()) {
+                thresholdFlushes.incrementAndGet();
+            }
+        } else if (requests == 1 && flushPolicy.lingers()) {
+            current.eventLoop().schedule(lingerFlush, flushPolicy.lingerMicros(), TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Flushes the channel if there are pending writes, called from the event loop.
+     *
+     * @return true if a flush has been issued.
+     */
+    private boolean flushPending() {
+        Channel current = channel;
+        if (pendingRequests == 0 || current == null) {
+            return false;
+        }
+        pendingRequests = 0;
+        pendingBytes = 0;
+        current.flush();
+        return true;
+    }
+
+    /**
+     * Runs the task on the event loop of the channel, right away if already called from it.
+     *
+     * @param current the channel whose event loop runs the task.
+     * @param task the task to run.
+     */
+    private static void runOnEventLoop(final Channel current, final Runnable task) {
+        EventLoop eventLoop = current.eventLoop();
+        if (eventLoop.inEventLoop()) {
+            task.run();
+        } else {
+            eventLoop.execute(task);
+        }
+    }
+
+    /**
+     * Estimates the number of bytes the request occupies on the wire, used for the byte threshold of the
+     * {@link FlushPolicy}.
+     *
+     * Endpoints which can not estimate the size of their requests only flush based on the request count and time.
+     *
+     * @param request the request to estimate.
+     * @return the estimated size in bytes.
+     */
+    protected int encodedSize(final CouchbaseRequest request) {
+        return 0;
+    }
+
+    /**
+     * The number of requests written to the channel so far.
+     *
+     * @return the number of written requests.
+     */
+    public long writtenRequests() {
+        return writtenRequests.get();
+    }
+
+    /**
+     * The number of flushes triggered by the end of a dispatched batch.
+     *
+     * @return the number of batch flushes.
+     */
+    public long batchFlushes() {
+        return batchFlushes.get();
+    }
+
+    /**
+     * The number of flushes triggered by the request or byte threshold of the {@link FlushPolicy}.
+     *
+     * @return the number of threshold flushes.
+     */
+    public long thresholdFlushes() {
+        return thresholdFlushes.get();
+    }
+
+    /**
+     * The number of flushes triggered by the linger time of the {@link FlushPolicy}.
+     *
+     * @return the number of linger flushes.
+     */
+    public long lingerFlushes() {
+        return lingerFlushes.get();
+    }
+
     /**
      * Helper method that is called from inside the event loop to notify the upper {@link Endpoint} of a disconnect.
      *
@@ -304,6 +584,35 @@ public abstract class AbstractEndpoint extends AbstractStateMachine<LifecycleSta
         connect();
     }
 
+    /**
+     * Helper method that is called from inside the event loop when the writability of the channel changed.
+     *
+     * @param writable if the channel is writable now.
+     */
+    public void notifyWritabilityChanged(final boolean writable) {
+        writabilityChanges.incrementAndGet();
+        LOGGER.trace("Channel of endpoint {} is {} now.", gaugePrefix, writable ? "writable" : "not writable");
+    }
+
+    /**
+     * The number of requests written to the current channel which wait for their response.
+     *
+     * @return the number of in-flight requests.
+     */
+    public int inFlightRequests() {
+        GenericEndpointHandler current = handler;
+        return current == null ? 0 : current.inFlight();
+    }
+
+    /**
+     * The number of times the writability of the channel changed.
+     *
+     * @return the number of writability changes.
+     */
+    public long writabilityChanges() {
+        return writabilityChanges.get();
+    }
+
     /**
      * Returns the reconnect retry delay in Miliseconds.
      *
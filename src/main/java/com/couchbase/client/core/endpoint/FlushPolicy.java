@@ -0,0 +1,132 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.endpoint;
+
+import com.couchbase.client.core.env.Environment;
+
+/**
+ * Decides when the writes pending on an {@link Endpoint} are flushed to the network.
+ *
+ * Writes are flushed as soon as either the number of pending requests or their estimated size reaches its threshold.
+ * Without a linger time, whatever is pending is flushed at the end of every dispatched batch. With a linger time,
+ * the end of a batch is ignored and pending writes are flushed at the latest once the linger time has passed since
+ * the first of them was written, trading a bounded amount of latency for fewer write syscalls.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class FlushPolicy {
+
+    /**
+     * The policy which only flushes at the end of every batch.
+     */
+    public static final FlushPolicy END_OF_BATCH = new FlushPolicy(Integer.MAX_VALUE, Long.MAX_VALUE, 0);
+
+    /**
+     * The number of pending requests which triggers a flush.
+     */
+    private final int maxRequests;
+
+    /**
+     * The estimated number of pending bytes which triggers a flush.
+     */
+    private final long maxBytes;
+
+    /**
+     * The maximum time in microseconds a write is held back, 0 to flush at the end of every batch.
+     */
+    private final long lingerMicros;
+
+    /**
+     * Creates a new {@link FlushPolicy}.
+     *
+     * @param maxRequests the number of pending requests which triggers a flush.
+     * @param maxBytes the estimated number of pending bytes which triggers a flush.
+     * @param lingerMicros the maximum time in microseconds a write is held back, 0 to flush at the end of every batch.
+     */
+    public FlushPolicy(final int maxRequests, final long maxBytes, final long lingerMicros) {
+        if (maxRequests <= 0 || maxBytes <= 0 || lingerMicros < 0) {
+            throw new IllegalArgumentException("Flush thresholds must be > 0 and the linger time >= 0");
+        }
+        this.maxRequests = maxRequests;
+        this.maxBytes = maxBytes;
+        this.lingerMicros = lingerMicros;
+    }
+
+    /**
+     * Creates the {@link FlushPolicy} configured in the {@link Environment}.
+     *
+     * @param environment the environment.
+     * @return the configured flush policy.
+     */
+    public static FlushPolicy from(final Environment environment) {
+        return new FlushPolicy(environment.flushMaxRequests(), environment.flushMaxBytes(),
+            environment.flushLinger());
+    }
+
+    /**
+     * The number of pending requests which triggers a flush.
+     *
+     * @return the request threshold.
+     */
+    public int maxRequests() {
+        return maxRequests;
+    }
+
+    /**
+     * The estimated number of pending bytes which triggers a flush.
+     *
+     * @return the byte threshold.
+     */
+    public long maxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * The maximum time a write is held back before it is flushed.
+     *
+     * @return the linger time in microseconds, 0 if writes are flushed at the end of every batch.
+     */
+    public long lingerMicros() {
+        return lingerMicros;
+    }
+
+    /**
+     * If pending writes are held back for the linger time instead of being flushed at the end of a batch.
+     *
+     * @return true if lingering is enabled.
+     */
+    public boolean lingers() {
+        return lingerMicros > 0;
+    }
+
+    /**
+     * Checks if the pending writes need to be flushed right away.
+     *
+     * @param requests the number of pending requests.
+     * @param bytes the estimated number of pending bytes.
+     * @return true if one of the thresholds is reached.
+     */
+    public boolean thresholdReached(final int requests, final long bytes) {
+        return requests >= maxRequests || bytes >= maxBytes;
+    }
+}
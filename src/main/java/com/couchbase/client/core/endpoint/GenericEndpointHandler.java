@@ -26,15 +26,23 @@ import com.couchbase.client.core.cluster.ResponseHandler;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.GetBucketConfigResponse;
+import com.couchbase.client.core.message.binary.GetResponse;
+import com.couchbase.client.core.message.config.BucketStreamingResponse;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestStage;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.CombinedChannelDuplexHandler;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
+import io.netty.util.ReferenceCountUtil;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Generic handler which is responsible for general request/response management of the pipeline.
@@ -55,16 +63,47 @@ public class GenericEndpointHandler extends CombinedChannelDuplexHandler<Generic
      */
     private final Queue<CouchbaseRequest> queue = new ArrayDeque<CouchbaseRequest>();
 
+    /**
+     * Updates the published size of the queue.
+     */
+    private static final AtomicIntegerFieldUpdater<GenericEndpointHandler> IN_FLIGHT_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(GenericEndpointHandler.class, "inFlight");
+
+    /**
+     * The size of the queue, published for gauges which read it outside of the IO thread.
+     */
+    private volatile int inFlight;
+
+    /**
+     * Requests with stage marks which have been encoded but not flushed yet.
+     */
+    private final List<CouchbaseRequest> unflushed = new ArrayList<CouchbaseRequest>();
+
     /**
      * The {@link ResponseEvent} {@link RingBuffer}.
      */
     private final RingBuffer<ResponseEvent> responseBuffer;
 
+    /**
+     * If responses should be completed directly on the IO thread instead of the response {@link RingBuffer}.
+     */
+    private final boolean directCompletion;
+
+    /**
+     * The metrics which record the latency of requests completed directly on the IO thread.
+     */
+    private final LatencyMetrics metrics;
+
     /**
      * Holds the current request.
      */
     private CouchbaseRequest currentRequest;
 
+    /**
+     * If the current request has already been failed by its timeout.
+     */
+    private boolean currentExpired;
+
     /**
      * Creates a new {@link GenericEndpointHandler}.
      *
@@ -72,9 +111,24 @@ public class GenericEndpointHandler extends CombinedChannelDuplexHandler<Generic
      * @param responseBuffer the response buffer where to write response into.
      */
     public GenericEndpointHandler(final AbstractEndpoint endpoint, final RingBuffer<ResponseEvent> responseBuffer) {
+        this(endpoint, responseBuffer, false, null);
+    }
+
+    /**
+     * Creates a new {@link GenericEndpointHandler}.
+     *
+     * @param endpoint the endpoint reference.
+     * @param responseBuffer the response buffer where to write response into.
+     * @param directCompletion if responses should be completed on the IO thread, skipping the response buffer.
+     * @param metrics the latency metrics, only needed for direct completion.
+     */
+    public GenericEndpointHandler(final AbstractEndpoint endpoint, final RingBuffer<ResponseEvent> responseBuffer,
+        final boolean directCompletion, final LatencyMetrics metrics) {
         init(new EventResponseDecoder(), new EventRequestEncoder());
         this.endpoint = endpoint;
         this.responseBuffer = responseBuffer;
+        this.directCompletion = directCompletion;
+        this.metrics = metrics;
     }
 
     /**
@@ -87,27 +141,73 @@ public class GenericEndpointHandler extends CombinedChannelDuplexHandler<Generic
      */
     @Override
     public void channelInactive(final ChannelHandlerContext ctx) throws Exception {
+        unflushed.clear();
         endpoint.notifyChannelInactive();
         ctx.fireChannelInactive();
     }
 
+    /**
+     * Notify the endpoint if the writability of the channel changed.
+     *
+     * @param ctx the channel handler context.
+     * @throws Exception if something goes wrong while passing on the event.
+     */
+    @Override
+    public void channelWritabilityChanged(final ChannelHandlerContext ctx) throws Exception {
+        endpoint.notifyWritabilityChanged(ctx.channel().isWritable());
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    /**
+     * The number of requests written to the channel which wait for their response.
+     *
+     * @return the number of in-flight requests.
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
 
     /**
      * The {@link EventRequestEncoder} stores the {@link CouchbaseRequest} and puts the payload into the pipeline.
+     *
+     * Requests with stage marks are remembered until the next flush, so the flush can be marked as well.
      */
     final class EventRequestEncoder extends MessageToMessageEncoder<CouchbaseRequest> {
 
         @Override
         protected void encode(final ChannelHandlerContext ctx, final CouchbaseRequest msg,
             final List<Object> out) throws Exception {
+            msg.mark(RequestStage.ENCODED);
+            if (msg.markOf(RequestStage.ENCODED) != 0) {
+                unflushed.add(msg);
+            }
             queue.offer(msg);
+            IN_FLIGHT_UPDATER.lazySet(GenericEndpointHandler.this, queue.size());
             out.add(msg);
         }
 
+        @Override
+        public void flush(final ChannelHandlerContext ctx) throws Exception {
+            if (!unflushed.isEmpty()) {
+                for (int i = 0; i < unflushed.size(); i++) {
+                    unflushed.get(i).mark(RequestStage.FLUSHED);
+                }
+                unflushed.clear();
+            }
+            ctx.flush();
+        }
+
     }
 
     /**
      * The {@link EventResponseDecoder} takes the {@link CouchbaseRequest} off the queue and completes the promise.
+     *
+     * Requests which expired while in flight stay in the queue, because their response still needs to be matched
+     * in order. Once it arrives, the response is dropped and its content released.
+     *
+     * If the response asks for a retry, the request itself is handed to the response {@link RingBuffer}, where it
+     * is scheduled for a retry. Its timeout keeps running in the meantime.
      */
     final class EventResponseDecoder extends MessageToMessageDecoder<CouchbaseResponse> {
 
@@ -117,13 +217,43 @@ public class GenericEndpointHandler extends CombinedChannelDuplexHandler<Generic
             throws Exception {
             if (currentRequest == null) {
                 currentRequest = queue.poll();
+                IN_FLIGHT_UPDATER.lazySet(GenericEndpointHandler.this, queue.size());
+                currentRequest.mark(RequestStage.DECODED);
+                if (in.status() == ResponseStatus.RETRY) {
+                    releaseContent(in);
+                    responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, currentRequest, currentRequest);
+                    currentRequest = null;
+                    return;
+                }
+                currentExpired = !currentRequest.cancelTimeout();
             }
 
-            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, in, currentRequest.observable());
+            if (currentExpired) {
+                releaseContent(in);
+            } else if (directCompletion) {
+                ResponseHandler.completeResponse(in, currentRequest, metrics);
+            } else {
+                responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, in, currentRequest);
+            }
             if (in.status() != ResponseStatus.CHUNKED) {
                 currentRequest = null;
             }
         }
 
     }
+
+    /**
+     * Releases the content of a response which is not passed on.
+     *
+     * @param response the response to release.
+     */
+    private static void releaseContent(final CouchbaseResponse response) {
+        if (response instanceof GetResponse) {
+            ReferenceCountUtil.release(((GetResponse) response).content());
+        } else if (response instanceof GetBucketConfigResponse) {
+            ReferenceCountUtil.release(((GetBucketConfigResponse) response).content());
+        } else if (response instanceof BucketStreamingResponse) {
+            ReferenceCountUtil.release(((BucketStreamingResponse) response).content());
+        }
+    }
 }
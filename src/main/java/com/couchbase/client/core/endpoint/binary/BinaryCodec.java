@@ -23,6 +23,7 @@ package com.couchbase.client.core.endpoint.binary;
 
 import com.couchbase.client.core.message.ResponseStatus;
 import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.EncodedKey;
 import com.couchbase.client.core.message.binary.GetBucketConfigRequest;
 import com.couchbase.client.core.message.binary.GetBucketConfigResponse;
 import com.couchbase.client.core.message.binary.GetRequest;
@@ -33,6 +34,7 @@ import com.couchbase.client.core.message.binary.RemoveRequest;
 import com.couchbase.client.core.message.binary.RemoveResponse;
 import com.couchbase.client.core.message.binary.ReplaceRequest;
 import com.couchbase.client.core.message.binary.ReplaceResponse;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
 import com.couchbase.client.core.message.binary.UpsertRequest;
 import com.couchbase.client.core.message.binary.UpsertResponse;
 import io.netty.buffer.ByteBuf;
@@ -45,12 +47,12 @@ import io.netty.handler.codec.memcache.binary.DefaultBinaryMemcacheRequest;
 import io.netty.handler.codec.memcache.binary.DefaultFullBinaryMemcacheRequest;
 import io.netty.handler.codec.memcache.binary.FullBinaryMemcacheRequest;
 import io.netty.handler.codec.memcache.binary.FullBinaryMemcacheResponse;
-import io.netty.util.CharsetUtil;
 
 import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Codec that handles encoding of binary memcache requests and decoding of binary memcache responses.
@@ -61,15 +63,31 @@ import java.util.Queue;
 public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheResponse, BinaryRequest> {
 
     /**
-     * The Queue which holds the request types so that proper decoding can happen async.
+     * The opcode of the replica read command.
      */
-    private final Queue<Class<?>> queue;
+    private static final byte OP_GET_REPLICA = (byte) 0x83;
+
+    /**
+     * The Queue which holds the requests so that proper decoding can happen async.
+     */
+    private final Queue<BinaryRequest> queue;
+
+    /**
+     * Updates the published size of the queue.
+     */
+    private static final AtomicIntegerFieldUpdater<BinaryCodec> IN_FLIGHT_UPDATER =
+        AtomicIntegerFieldUpdater.newUpdater(BinaryCodec.class, "inFlight");
+
+    /**
+     * The size of the queue, published for gauges which read it outside of the IO thread.
+     */
+    private volatile int inFlight;
 
     /**
      * Creates a new {@link BinaryCodec} with the default dequeue.
      */
     public BinaryCodec() {
-        this(new ArrayDeque<Class<?>>());
+        this(new ArrayDeque<BinaryRequest>());
     }
 
     /**
@@ -77,7 +95,7 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
      *
      * @param queue a custom queue to test encoding/decoding.
      */
-    public BinaryCodec(final Queue<Class<?>> queue) {
+    public BinaryCodec(final Queue<BinaryRequest> queue) {
         this.queue = queue;
     }
 
@@ -89,6 +107,8 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
             request = handleGetBucketConfigRequest();
         } else if (msg instanceof GetRequest) {
             request = handleGetRequest((GetRequest) msg);
+        } else if (msg instanceof ReplicaGetRequest) {
+            request = handleReplicaGetRequest((ReplicaGetRequest) msg);
         } else if (msg instanceof UpsertRequest) {
             request = handleUpsertRequest((UpsertRequest) msg, ctx);
         } else if (msg instanceof InsertRequest) {
@@ -102,41 +122,52 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
         }
 
         out.add(request);
-        queue.offer(msg.getClass());
+        queue.offer(msg);
+        IN_FLIGHT_UPDATER.lazySet(this, queue.size());
     }
 
     @Override
     protected void decode(final ChannelHandlerContext ctx,
                           final FullBinaryMemcacheResponse msg,
                           final List<Object> in) throws Exception {
-        Class<?> clazz = queue.poll();
+        BinaryRequest request = queue.poll();
+        IN_FLIGHT_UPDATER.lazySet(this, queue.size());
 
         ResponseStatus status = convertStatus(msg.getStatus());
         long cas = msg.getCAS();
-        if(clazz.equals(GetBucketConfigRequest.class)) {
+        if (request instanceof GetBucketConfigRequest) {
             InetSocketAddress addr = (InetSocketAddress) ctx.channel().remoteAddress();
             in.add(
                 new GetBucketConfigResponse(
                     convertStatus(msg.getStatus()),
-                    msg.content().toString(CharsetUtil.UTF_8),
+                    msg.content().copy(),
                     addr.getHostName()
                 )
             );
-        } else if (clazz.equals(GetRequest.class)) {
-            in.add(new GetResponse(status, cas, msg.content().copy()));
-        } else if (clazz.equals(InsertRequest.class)) {
+        } else if (request instanceof GetRequest || request instanceof ReplicaGetRequest) {
+            in.add(new GetResponse(status, cas, request.key(), msg.content().copy()));
+        } else if (request instanceof InsertRequest) {
             in.add(new InsertResponse(status, cas));
-        } else if (clazz.equals(UpsertRequest.class)) {
+        } else if (request instanceof UpsertRequest) {
             in.add(new UpsertResponse(status, cas));
-        } else if (clazz.equals(ReplaceRequest.class)) {
+        } else if (request instanceof ReplaceRequest) {
             in.add(new ReplaceResponse(status, cas));
-        } else if (clazz.equals(RemoveRequest.class)) {
+        } else if (request instanceof RemoveRequest) {
             in.add(new RemoveResponse(convertStatus(msg.getStatus())));
         } else {
             throw new IllegalStateException("Got a response message for a request that was not sent." + msg);
         }
     }
 
+    /**
+     * The number of encoded requests which wait for their response.
+     *
+     * @return the number of in-flight requests.
+     */
+    public int inFlight() {
+        return inFlight;
+    }
+
     /**
      * Convert the binary protocol status in a typesafe enum that can be acted upon later.
      *
@@ -165,11 +196,29 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
      * @return the built protocol request.
      */
     private BinaryMemcacheRequest handleGetRequest(final GetRequest request) {
-        int length = request.key().length();
-        BinaryMemcacheRequest msg = new DefaultBinaryMemcacheRequest(request.key());
+        EncodedKey key = request.encodedKey();
+        BinaryMemcacheRequest msg = new DefaultBinaryMemcacheRequest(key.key());
+        msg.setKeyBytes(key.bytes());
         msg.setOpcode(BinaryMemcacheOpcodes.GET);
-        msg.setKeyLength((short) length);
-        msg.setTotalBodyLength((short) length);
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length());
+        msg.setReserved(request.partition());
+        return msg;
+    }
+
+    /**
+     * Creates the actual protocol level request for an incoming replica get request.
+     *
+     * @param request the incoming replica get request.
+     * @return the built protocol request.
+     */
+    private BinaryMemcacheRequest handleReplicaGetRequest(final ReplicaGetRequest request) {
+        EncodedKey key = request.encodedKey();
+        BinaryMemcacheRequest msg = new DefaultBinaryMemcacheRequest(key.key());
+        msg.setKeyBytes(key.bytes());
+        msg.setOpcode(OP_GET_REPLICA);
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length());
         msg.setReserved(request.partition());
         return msg;
     }
@@ -186,11 +235,13 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
         extras.writeInt(request.flags());
         extras.writeInt(request.expiration());
 
-        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(request.key(), extras, request.content());
+        EncodedKey key = request.encodedKey();
+        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(key.key(), extras, request.content());
+        msg.setKeyBytes(key.bytes());
 
         msg.setOpcode(BinaryMemcacheOpcodes.SET);
-        msg.setKeyLength((short) request.key().length());
-        msg.setTotalBodyLength((short) request.key().length() + request.content().readableBytes() + extras.readableBytes());
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length() + request.content().readableBytes() + extras.readableBytes());
         msg.setReserved(request.partition());
         msg.setExtrasLength((byte) extras.readableBytes());
         return msg;
@@ -208,12 +259,14 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
         extras.writeInt(request.flags());
         extras.writeInt(request.expiration());
 
-        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(request.key(), extras, request.content());
+        EncodedKey key = request.encodedKey();
+        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(key.key(), extras, request.content());
+        msg.setKeyBytes(key.bytes());
 
         msg.setOpcode(BinaryMemcacheOpcodes.REPLACE);
         msg.setCAS(request.cas());
-        msg.setKeyLength((short) request.key().length());
-        msg.setTotalBodyLength((short) request.key().length() + request.content().readableBytes() + extras.readableBytes());
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length() + request.content().readableBytes() + extras.readableBytes());
         msg.setReserved(request.partition());
         msg.setExtrasLength((byte) extras.readableBytes());
         return msg;
@@ -231,23 +284,27 @@ public class BinaryCodec extends MessageToMessageCodec<FullBinaryMemcacheRespons
         extras.writeInt(request.flags());
         extras.writeInt(request.expiration());
 
-        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(request.key(), extras, request.content());
+        EncodedKey key = request.encodedKey();
+        FullBinaryMemcacheRequest msg = new DefaultFullBinaryMemcacheRequest(key.key(), extras, request.content());
+        msg.setKeyBytes(key.bytes());
 
         msg.setOpcode(BinaryMemcacheOpcodes.ADD);
-        msg.setKeyLength((short) request.key().length());
-        msg.setTotalBodyLength((short) request.key().length() + request.content().readableBytes() + extras.readableBytes());
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length() + request.content().readableBytes() + extras.readableBytes());
         msg.setReserved(request.partition());
         msg.setExtrasLength((byte) extras.readableBytes());
         return msg;
     }
 
     private BinaryMemcacheRequest handleRemoveRequest(final RemoveRequest request) {
-        BinaryMemcacheRequest msg = new DefaultBinaryMemcacheRequest(request.key());
+        EncodedKey key = request.encodedKey();
+        BinaryMemcacheRequest msg = new DefaultBinaryMemcacheRequest(key.key());
+        msg.setKeyBytes(key.bytes());
 
         msg.setOpcode(BinaryMemcacheOpcodes.DELETE);
         msg.setCAS(request.cas());
-        msg.setKeyLength((short) request.key().length());
-        msg.setTotalBodyLength((short) request.key().length());
+        msg.setKeyLength((short) key.length());
+        msg.setTotalBodyLength(key.length());
         msg.setReserved(request.partition());
         return msg;
     }
@@ -24,6 +24,12 @@ package com.couchbase.client.core.endpoint.binary;
 import com.couchbase.client.core.cluster.ResponseEvent;
 import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.env.Environment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.InsertRequest;
+import com.couchbase.client.core.message.binary.ReplaceRequest;
+import com.couchbase.client.core.message.binary.UpsertRequest;
+import com.couchbase.client.core.metrics.Gauge;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
 import io.netty.handler.codec.memcache.binary.BinaryMemcacheClientCodec;
@@ -34,6 +40,21 @@ import io.netty.handler.codec.memcache.binary.BinaryMemcacheObjectAggregator;
  */
 public class BinaryEndpoint extends AbstractEndpoint {
 
+    /**
+     * The size of the binary protocol header.
+     */
+    private static final int HEADER_SIZE = 24;
+
+    /**
+     * The size of the extras (flags and expiration) of mutations.
+     */
+    private static final int MUTATION_EXTRAS_SIZE = 8;
+
+    /**
+     * The codec of the current channel.
+     */
+    private volatile BinaryCodec codec;
+
     /**
      * Create a new {@link BinaryEndpoint}.
      *
@@ -43,16 +64,40 @@ public class BinaryEndpoint extends AbstractEndpoint {
     public BinaryEndpoint(final String hostname, final String bucket, final String password, int port, final Environment env,
         final RingBuffer<ResponseEvent> responseBuffer) {
         super(hostname, bucket, password, port, env, responseBuffer);
+        registerGauge("codecInFlight", new Gauge() {
+            @Override
+            public long value() {
+                BinaryCodec current = codec;
+                return current == null ? 0 : current.inFlight();
+            }
+        });
     }
 
 
     @Override
     protected void customEndpointHandlers(final ChannelPipeline pipeline) {
+        codec = new BinaryCodec();
         pipeline
             .addLast(new BinaryMemcacheClientCodec())
             .addLast(new BinaryMemcacheObjectAggregator(Integer.MAX_VALUE))
             .addLast(new BinarySaslClient(bucket(), password(), this))
-            .addLast(new BinaryCodec());
+            .addLast(codec);
+    }
+
+    @Override
+    protected int encodedSize(final CouchbaseRequest request) {
+        int size = HEADER_SIZE;
+        if (request instanceof BinaryRequest && ((BinaryRequest) request).encodedKey() != null) {
+            size += ((BinaryRequest) request).encodedKey().length();
+        }
+        if (request instanceof UpsertRequest) {
+            size += MUTATION_EXTRAS_SIZE + ((UpsertRequest) request).content().readableBytes();
+        } else if (request instanceof InsertRequest) {
+            size += MUTATION_EXTRAS_SIZE + ((InsertRequest) request).content().readableBytes();
+        } else if (request instanceof ReplaceRequest) {
+            size += MUTATION_EXTRAS_SIZE + ((ReplaceRequest) request).content().readableBytes();
+        }
+        return size;
     }
 
-}
\ No newline at end of file
+}
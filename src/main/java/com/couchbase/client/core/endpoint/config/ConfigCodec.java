@@ -0,0 +1,247 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.endpoint.config;
+
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.config.BucketStreamingRequest;
+import com.couchbase.client.core.message.config.BucketStreamingResponse;
+import com.couchbase.client.core.message.config.ConfigRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.base64.Base64;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * Code which handles encoding and decoding of requests/responses against the Couchbase config (8091) service.
+ *
+ * The streaming bucket configuration is a chunked HTTP response which never ends while the connection is healthy.
+ * The server separates the configurations with four newlines, so the content is buffered and split at every
+ * separator as it arrives, independent of how the chunks are cut.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class ConfigCodec extends MessageToMessageCodec<HttpObject, ConfigRequest> {
+
+    /**
+     * The number of newlines which separate two configurations in the stream.
+     */
+    private static final int SEPARATOR_LENGTH = 4;
+
+    /**
+     * The Queue which holds the request types so that proper decoding can happen async.
+     */
+    private final Queue<Class<?>> queue;
+
+    /**
+     * The current request class.
+     */
+    private Class<?> currentRequest;
+
+    /**
+     * The current chunked up buffer.
+     */
+    private ByteBuf currentChunk;
+
+    /**
+     * The status of the current response, only known once the response head arrived.
+     */
+    private ResponseStatus currentStatus;
+
+    /**
+     * Where to resume the separator search, relative to the reader index of the current chunk.
+     */
+    private int currentScan;
+
+    /**
+     * Creates a new {@link ConfigCodec} with the default dequeue.
+     */
+    public ConfigCodec() {
+        this(new ArrayDeque<Class<?>>());
+    }
+
+    /**
+     * Creates a new {@link ConfigCodec} with a custom dequeue.
+     *
+     * @param queue a custom queue to test encoding/decoding.
+     */
+    public ConfigCodec(final Queue<Class<?>> queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ConfigRequest msg, List<Object> out) throws Exception {
+        HttpRequest request;
+        if (msg instanceof BucketStreamingRequest) {
+            request = handleBucketStreamingRequest((BucketStreamingRequest) msg);
+        } else {
+            throw new IllegalArgumentException("Unknown Message to encode: " + msg);
+        }
+        out.add(request);
+        queue.offer(msg.getClass());
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, HttpObject msg, List<Object> in) throws Exception {
+        if (currentRequest == null) {
+            currentRequest = queue.poll();
+            currentChunk = ctx.alloc().buffer();
+            currentStatus = null;
+            currentScan = 0;
+        }
+
+        if (currentRequest.equals(BucketStreamingRequest.class)) {
+            handleBucketStreamingResponse(ctx, msg, in);
+        } else {
+            throw new IllegalStateException("Got a response message for a request that was not sent." + msg);
+        }
+    }
+
+    /**
+     * Terminates a stream which is still open when the connection goes away, so its subscribers can reconnect.
+     */
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        if (currentRequest != null) {
+            currentChunk.release();
+            currentChunk = null;
+            currentRequest = null;
+            ctx.fireChannelRead(new BucketStreamingResponse(ResponseStatus.FAILURE, Unpooled.EMPTY_BUFFER));
+        }
+        super.channelInactive(ctx);
+    }
+
+    private HttpRequest handleBucketStreamingRequest(final BucketStreamingRequest msg) {
+        HttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, msg.path());
+        request.headers().set(HttpHeaders.Names.HOST, msg.hostname());
+        request.headers().set(HttpHeaders.Names.AUTHORIZATION, basicAuth(msg.bucket(), msg.password()));
+        return request;
+    }
+
+    private void handleBucketStreamingResponse(final ChannelHandlerContext ctx, final HttpObject msg,
+        final List<Object> in) {
+        if (msg instanceof HttpResponse) {
+            HttpResponseStatus status = ((HttpResponse) msg).getStatus();
+            currentStatus = status.code() == 200 ? ResponseStatus.SUCCESS : ResponseStatus.FAILURE;
+        }
+        if (!(msg instanceof HttpContent)) {
+            return;
+        }
+        if (currentStatus == null) {
+            throw new IllegalStateException("Only expecting HttpResponse before HttpContent");
+        }
+
+        HttpContent content = (HttpContent) msg;
+        if (content.content().readableBytes() > 0) {
+            currentChunk.writeBytes(content.content());
+            content.content().clear();
+        }
+
+        if (currentStatus == ResponseStatus.SUCCESS) {
+            int length;
+            while ((length = nextSeparator()) >= 0) {
+                ByteBuf config = currentChunk.readSlice(length).retain();
+                currentChunk.skipBytes(SEPARATOR_LENGTH);
+                discardReadChunk(ctx);
+                if (config.isReadable()) {
+                    in.add(new BucketStreamingResponse(ResponseStatus.CHUNKED, config));
+                } else {
+                    config.release();
+                }
+            }
+        }
+
+        if (msg instanceof LastHttpContent) {
+            in.add(new BucketStreamingResponse(currentStatus, currentChunk));
+            currentRequest = null;
+            currentChunk = null;
+            currentStatus = null;
+        }
+    }
+
+    /**
+     * Drops the consumed part of the current chunk after a configuration has been sliced off.
+     *
+     * The emitted configurations share the memory of the chunk, so it can not be compacted in place. Only the
+     * remainder moves into a fresh buffer, the old one is freed once all its configurations are released.
+     */
+    private void discardReadChunk(final ChannelHandlerContext ctx) {
+        ByteBuf remainder = ctx.alloc().buffer(Math.max(currentChunk.readableBytes(), 256));
+        remainder.writeBytes(currentChunk);
+        currentChunk.release();
+        currentChunk = remainder;
+        currentScan = 0;
+    }
+
+    /**
+     * Finds the next configuration separator in the buffered content.
+     *
+     * The search resumes where the last one stopped, so every byte is only inspected once per configuration.
+     *
+     * @return the length of the configuration in front of the separator, -1 if no separator found yet.
+     */
+    private int nextSeparator() {
+        int start = currentChunk.readerIndex();
+        int end = currentChunk.writerIndex();
+        int newlines = 0;
+        for (int i = start + Math.max(currentScan - SEPARATOR_LENGTH + 1, 0); i < end; i++) {
+            if (currentChunk.getByte(i) == '\n') {
+                if (++newlines == SEPARATOR_LENGTH) {
+                    return i - start - SEPARATOR_LENGTH + 1;
+                }
+            } else {
+                newlines = 0;
+            }
+        }
+        currentScan = end - start;
+        return -1;
+    }
+
+    /**
+     * Creates the value of a basic authorization header.
+     */
+    private static String basicAuth(final String user, final String password) {
+        ByteBuf raw = Unpooled.copiedBuffer(user + ":" + (password == null ? "" : password), CharsetUtil.UTF_8);
+        ByteBuf encoded = Base64.encode(raw, false);
+        String header = "Basic " + encoded.toString(CharsetUtil.UTF_8);
+        raw.release();
+        encoded.release();
+        return header;
+    }
+
+}
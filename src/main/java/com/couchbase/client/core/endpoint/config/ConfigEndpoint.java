@@ -5,6 +5,7 @@ import com.couchbase.client.core.endpoint.AbstractEndpoint;
 import com.couchbase.client.core.env.Environment;
 import com.lmax.disruptor.RingBuffer;
 import io.netty.channel.ChannelPipeline;
+import io.netty.handler.codec.http.HttpClientCodec;
 
 public class ConfigEndpoint extends AbstractEndpoint {
 
@@ -14,6 +15,8 @@ public class ConfigEndpoint extends AbstractEndpoint {
 
     @Override
     protected void customEndpointHandlers(ChannelPipeline pipeline) {
-
+        pipeline
+            .addLast(new HttpClientCodec())
+            .addLast(new ConfigCodec());
     }
 }
@@ -21,12 +21,27 @@
  */
 package com.couchbase.client.core.env;
 
+import com.couchbase.client.core.metrics.GaugeMetrics;
+import com.couchbase.client.core.metrics.GaugeSampler;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.PhasedBackoffWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import rx.Observable;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 /**
  * The {@link CouchbaseEnvironment} wraps the underlying environment retrieval mechanisms and provides convenient
  * access methods to commonly used properties.
@@ -55,6 +70,26 @@ public class CouchbaseEnvironment implements Environment {
      */
     private final EventLoopGroup ioPool;
 
+    /**
+     * The timer which tracks all request timeouts, created on first use.
+     */
+    private volatile Timer timer;
+
+    /**
+     * The latency metrics of all requests.
+     */
+    private final LatencyMetrics latencyMetrics;
+
+    /**
+     * The gauges of queue depths and channel states, created on first use.
+     */
+    private volatile GaugeMetrics gaugeMetrics;
+
+    /**
+     * Signals if the background tasks have been started.
+     */
+    private final AtomicBoolean started = new AtomicBoolean();
+
     public CouchbaseEnvironment() {
         this(ConfigFactory.load());
     }
@@ -68,6 +103,19 @@ public class CouchbaseEnvironment implements Environment {
         this.namespace = namespace;
 
         ioPool = new NioEventLoopGroup(ioPoolSize());
+        latencyMetrics = new LatencyMetrics();
+    }
+
+    @Override
+    public void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+        long gaugeInterval = gaugeInterval();
+        if (gaugeInterval > 0) {
+            timer().newTimeout(new GaugeSampler(gaugeMetrics(), gaugeInterval), gaugeInterval,
+                TimeUnit.MILLISECONDS);
+        }
     }
 
     @Override
@@ -75,6 +123,13 @@ public class CouchbaseEnvironment implements Environment {
         // TODO: make me better chaned with other thing to shutdown and proper
         // error handling.
         ioPool.shutdownGracefully();
+        Timer current;
+        synchronized (this) {
+            current = timer;
+        }
+        if (current != null) {
+            current.stop();
+        }
         return Observable.from(true);
     }
 
@@ -129,6 +184,15 @@ public class CouchbaseEnvironment implements Environment {
         return port;
     }
 
+    @Override
+    public long bootstrapCarrierStagger() {
+        long stagger = getLong("core.bootstrap.carrier.stagger");
+        if (stagger < 0) {
+            throw new EnvironmentException("Carrier Bootstrap Stagger must be >= 0");
+        }
+        return stagger;
+    }
+
     @Override
     public int ioPoolSize() {
         int ioPoolSize = getInt("core.io.poolSize");
@@ -156,11 +220,100 @@ public class CouchbaseEnvironment implements Environment {
         return resBufSize;
     }
 
+    @Override
+    public int requestShards() {
+        int shards = getInt("core.requestShards");
+        if (shards <= 0 || (shards & (shards - 1)) != 0) {
+            throw new EnvironmentException("Request Shards must be > 0 and power of two");
+        }
+        return shards;
+    }
+
+    @Override
+    public WaitStrategy requestWaitStrategy() {
+        return waitStrategy("core.requestWaitStrategy");
+    }
+
+    @Override
+    public WaitStrategy responseWaitStrategy() {
+        return waitStrategy("core.responseWaitStrategy");
+    }
+
+    @Override
+    public int responseHandlers() {
+        int handlers = getInt("core.responseHandlers");
+        if (handlers <= 0 || (handlers & (handlers - 1)) != 0) {
+            throw new EnvironmentException("Response Handlers must be > 0 and power of two");
+        }
+        return handlers;
+    }
+
+    @Override
+    public boolean directResponseCompletion() {
+        String completion = getString("core.responseCompletion");
+        if (completion.equalsIgnoreCase("direct")) {
+            return true;
+        } else if (completion.equalsIgnoreCase("ringBuffer")) {
+            return false;
+        } else {
+            throw new EnvironmentException("Unknown response completion mode " + completion + '.');
+        }
+    }
+
+    @Override
+    public ThreadAffinity dispatchAffinity() {
+        String className = getString("core.dispatchAffinity");
+        if (className.isEmpty()) {
+            return null;
+        }
+        try {
+            return (ThreadAffinity) Class.forName(className).newInstance();
+        } catch (Exception e) {
+            throw new EnvironmentException("Could not create the dispatch affinity hook " + className + '.', e);
+        }
+    }
+
     @Override
     public EventLoopGroup ioPool() {
         return ioPool;
     }
 
+    @Override
+    public Timer timer() {
+        Timer current = timer;
+        if (current == null) {
+            synchronized (this) {
+                current = timer;
+                if (current == null) {
+                    current = new HashedWheelTimer(new DefaultThreadFactory("cb-timer", true), timerTickDuration(),
+                        TimeUnit.MILLISECONDS, timerWheelSize());
+                    timer = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    @Override
+    public LatencyMetrics latencyMetrics() {
+        return latencyMetrics;
+    }
+
+    @Override
+    public GaugeMetrics gaugeMetrics() {
+        GaugeMetrics current = gaugeMetrics;
+        if (current == null) {
+            synchronized (this) {
+                current = gaugeMetrics;
+                if (current == null) {
+                    current = new GaugeMetrics(gaugeHistory());
+                    gaugeMetrics = current;
+                }
+            }
+        }
+        return current;
+    }
+
     @Override
     public int binaryServiceEndpoints() {
         int endpoints = getInt("core.service.endpoints.binary");
@@ -197,6 +350,283 @@ public class CouchbaseEnvironment implements Environment {
         return endpoints;
     }
 
+    @Override
+    public long binaryTimeout() {
+        return timeout("core.timeout.binary");
+    }
+
+    @Override
+    public long configTimeout() {
+        return timeout("core.timeout.config");
+    }
+
+    @Override
+    public long viewTimeout() {
+        return timeout("core.timeout.view");
+    }
+
+    @Override
+    public long retryMinDelay() {
+        long delay = getLong("core.retry.minDelay");
+        if (delay <= 0) {
+            throw new EnvironmentException("Retry Min Delay must be > 0");
+        }
+        return delay;
+    }
+
+    @Override
+    public long retryMaxDelay() {
+        long delay = getLong("core.retry.maxDelay");
+        if (delay < retryMinDelay()) {
+            throw new EnvironmentException("Retry Max Delay must be >= Retry Min Delay");
+        }
+        return delay;
+    }
+
+    @Override
+    public int retryBudget() {
+        int budget = getInt("core.retry.budget");
+        if (budget < 0) {
+            throw new EnvironmentException("Retry Budget must be >= 0");
+        }
+        return budget;
+    }
+
+    @Override
+    public long replicaFallbackDelay() {
+        long delay = getLong("core.replica.fallbackDelay");
+        if (delay <= 0) {
+            throw new EnvironmentException("Replica Fallback Delay must be > 0");
+        }
+        return delay;
+    }
+
+    @Override
+    public int flushMaxRequests() {
+        int requests = getInt("core.flush.maxRequests");
+        if (requests <= 0) {
+            throw new EnvironmentException("Flush Max Requests must be > 0");
+        }
+        return requests;
+    }
+
+    @Override
+    public long flushMaxBytes() {
+        long bytes = getLong("core.flush.maxBytes");
+        if (bytes <= 0) {
+            throw new EnvironmentException("Flush Max Bytes must be > 0");
+        }
+        return bytes;
+    }
+
+    @Override
+    public long flushLinger() {
+        long linger = getLong("core.flush.linger");
+        if (linger < 0) {
+            throw new EnvironmentException("Flush Linger must be >= 0");
+        }
+        return linger;
+    }
+
+    @Override
+    public boolean latencyMetricsEnabled() {
+        return getBoolean("core.metrics.latency");
+    }
+
+    @Override
+    public boolean stageMarksEnabled() {
+        return getBoolean("core.metrics.stages");
+    }
+
+    @Override
+    public boolean hedgingEnabled() {
+        return getBoolean("core.hedging.enabled");
+    }
+
+    @Override
+    public double hedgingPercentile() {
+        double percentile = getDouble("core.hedging.percentile");
+        if (percentile <= 0 || percentile > 100) {
+            throw new EnvironmentException("Hedging Percentile must be > 0 and <= 100");
+        }
+        return percentile;
+    }
+
+    @Override
+    public long hedgingMinDelay() {
+        long delay = getLong("core.hedging.minDelay");
+        if (delay < 0) {
+            throw new EnvironmentException("Hedging Min Delay must be >= 0");
+        }
+        return delay;
+    }
+
+    @Override
+    public double hedgingBudget() {
+        double budget = getDouble("core.hedging.budget");
+        if (budget < 0 || budget > 100) {
+            throw new EnvironmentException("Hedging Budget must be >= 0 and <= 100");
+        }
+        return budget;
+    }
+
+    @Override
+    public long hedgingInterval() {
+        long interval = getLong("core.hedging.interval");
+        if (interval <= 0) {
+            throw new EnvironmentException("Hedging Interval must be > 0");
+        }
+        return interval;
+    }
+
+    @Override
+    public long configPollMinInterval() {
+        long interval = getLong("core.configPoll.minInterval");
+        if (interval <= 0) {
+            throw new EnvironmentException("Config Poll Min Interval must be > 0");
+        }
+        return interval;
+    }
+
+    @Override
+    public long configPollMaxInterval() {
+        long interval = getLong("core.configPoll.maxInterval");
+        if (interval != 0 && interval < configPollMinInterval()) {
+            throw new EnvironmentException("Config Poll Max Interval must be 0 or >= Min Interval");
+        }
+        return interval;
+    }
+
+    @Override
+    public String admissionPolicy() {
+        String policy = getString("core.admission.policy");
+        if (policy.equalsIgnoreCase("failFast")) {
+            return "failFast";
+        } else if (policy.equalsIgnoreCase("blocking")) {
+            return "blocking";
+        } else if (policy.equalsIgnoreCase("adaptive")) {
+            return "adaptive";
+        } else {
+            throw new EnvironmentException("Unknown admission policy " + policy + '.');
+        }
+    }
+
+    @Override
+    public long admissionDeadline() {
+        long deadline = getLong("core.admission.deadline");
+        if (deadline < 0) {
+            throw new EnvironmentException("Admission Deadline must be >= 0");
+        }
+        return deadline;
+    }
+
+    @Override
+    public long admissionTargetDelay() {
+        long delay = getLong("core.admission.targetDelay");
+        if (delay <= 0) {
+            throw new EnvironmentException("Admission Target Delay must be > 0");
+        }
+        return delay;
+    }
+
+    @Override
+    public int admissionMinLimit() {
+        int limit = getInt("core.admission.minLimit");
+        if (limit <= 0) {
+            throw new EnvironmentException("Admission Min Limit must be > 0");
+        }
+        return limit;
+    }
+
+    /**
+     * Returns the tick duration of the timeout wheel.
+     *
+     * @return the tick duration in milliseconds.
+     */
+    protected long timerTickDuration() {
+        long tick = getLong("core.timer.tickDuration");
+        if (tick <= 0) {
+            throw new EnvironmentException("Timer Tick Duration must be > 0");
+        }
+        return tick;
+    }
+
+    /**
+     * Returns the interval in which the gauges are sampled.
+     *
+     * @return the interval in milliseconds, 0 if sampling is disabled.
+     */
+    protected long gaugeInterval() {
+        long interval = getLong("core.metrics.gauges.interval");
+        if (interval < 0) {
+            throw new EnvironmentException("Gauge Interval must be >= 0");
+        }
+        return interval;
+    }
+
+    /**
+     * Returns the number of samples kept per gauge.
+     *
+     * @return the history size.
+     */
+    protected int gaugeHistory() {
+        int history = getInt("core.metrics.gauges.history");
+        if (history <= 0) {
+            throw new EnvironmentException("Gauge History must be > 0");
+        }
+        return history;
+    }
+
+    /**
+     * Returns the number of buckets of the timeout wheel.
+     *
+     * @return the wheel size.
+     */
+    protected int timerWheelSize() {
+        int size = getInt("core.timer.wheelSize");
+        if (size <= 0 || (size & (size - 1)) != 0) {
+            throw new EnvironmentException("Timer Wheel Size must be > 0 and power of two");
+        }
+        return size;
+    }
+
+    /**
+     * Loads a request timeout from the given path.
+     *
+     * @param path the path of the setting.
+     * @return the timeout in milliseconds.
+     */
+    private long timeout(final String path) {
+        long timeout = getLong(path);
+        if (timeout <= 0) {
+            throw new EnvironmentException("Timeout for " + path + " must be > 0");
+        }
+        return timeout;
+    }
+
+    /**
+     * Creates a new {@link WaitStrategy} from the name configured under the given path.
+     *
+     * @param path the path of the setting.
+     * @return the created wait strategy.
+     */
+    private WaitStrategy waitStrategy(final String path) {
+        String strategy = getString(path);
+        if (strategy.equalsIgnoreCase("blocking")) {
+            return new BlockingWaitStrategy();
+        } else if (strategy.equalsIgnoreCase("sleeping")) {
+            return new SleepingWaitStrategy();
+        } else if (strategy.equalsIgnoreCase("yielding")) {
+            return new YieldingWaitStrategy();
+        } else if (strategy.equalsIgnoreCase("busySpin")) {
+            return new BusySpinWaitStrategy();
+        } else if (strategy.equalsIgnoreCase("phasedBackoff")) {
+            return PhasedBackoffWaitStrategy.withLock(1, 1, TimeUnit.MILLISECONDS);
+        } else {
+            throw new EnvironmentException("Unknown wait strategy " + strategy + " for " + path + '.');
+        }
+    }
+
     protected int getInt(String path) {
         try {
             return config.getInt(namespace + '.' + path);
@@ -213,6 +643,14 @@ public class CouchbaseEnvironment implements Environment {
         }
     }
 
+    protected double getDouble(String path) {
+        try {
+            return config.getDouble(namespace + '.' + path);
+        } catch (Exception e) {
+            throw new EnvironmentException("Could not load environment setting " + path + '.', e);
+        }
+    }
+
     protected String getString(String path) {
         try {
             return config.getString(namespace + '.' + path);
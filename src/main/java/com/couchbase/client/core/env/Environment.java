@@ -21,7 +21,11 @@
  */
 package com.couchbase.client.core.env;
 
+import com.couchbase.client.core.metrics.GaugeMetrics;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.lmax.disruptor.WaitStrategy;
 import io.netty.channel.EventLoopGroup;
+import io.netty.util.Timer;
 import rx.Observable;
 
 /**
@@ -42,6 +46,13 @@ public interface Environment {
      */
     Observable<Boolean> shutdown();
 
+    /**
+     * Starts the background tasks of the {@link Environment}, like sampling the gauges.
+     *
+     * Calling it more than once has no effect.
+     */
+    void start();
+
     /**
      * Identifies if SSL should be enabled.
      *
@@ -80,6 +91,13 @@ public interface Environment {
      */
     int bootstrapCarrierSslPort();
 
+    /**
+     * The delay in milliseconds between racing two seed nodes during carrier bootstrap.
+     *
+     * @return the stagger between carrier bootstrap attempts.
+     */
+    long bootstrapCarrierStagger();
+
     /**
      * Returns the configured IO pool size.
      *
@@ -94,6 +112,29 @@ public interface Environment {
      */
     EventLoopGroup ioPool();
 
+    /**
+     * Returns the hashed wheel timer which tracks the timeouts of all requests.
+     *
+     * The timer is created on first use and stopped on {@link #shutdown()}.
+     *
+     * @return the timer, shared across resources.
+     */
+    Timer timer();
+
+    /**
+     * Returns the latency metrics of all requests.
+     *
+     * @return the latency metrics, shared across resources.
+     */
+    LatencyMetrics latencyMetrics();
+
+    /**
+     * Returns the gauges of the queue depths and channel states, sampled into a rolling time series.
+     *
+     * @return the gauge metrics, shared across resources.
+     */
+    GaugeMetrics gaugeMetrics();
+
     /**
      * Returns the size of the request ringbuffer.
      *
@@ -108,6 +149,52 @@ public interface Environment {
      */
     int responseBufferSize();
 
+    /**
+     * Returns the number of request ringbuffers and dispatch threads.
+     *
+     * @return the number of request shards.
+     */
+    int requestShards();
+
+    /**
+     * Creates the {@link WaitStrategy} for a request ringbuffer consumer.
+     *
+     * A new instance is returned on every call, since wait strategies must not be shared across ringbuffers.
+     *
+     * @return the wait strategy for the request dispatch threads.
+     */
+    WaitStrategy requestWaitStrategy();
+
+    /**
+     * Creates the {@link WaitStrategy} for the response ringbuffer consumer.
+     *
+     * A new instance is returned on every call, since wait strategies must not be shared across ringbuffers.
+     *
+     * @return the wait strategy for the response dispatch thread.
+     */
+    WaitStrategy responseWaitStrategy();
+
+    /**
+     * Returns the number of threads which complete responses from the response ringbuffer.
+     *
+     * @return the number of response handlers.
+     */
+    int responseHandlers();
+
+    /**
+     * Identifies if responses should be completed directly on the IO threads, skipping the response ringbuffer.
+     *
+     * @return true if direct completion is enabled.
+     */
+    boolean directResponseCompletion();
+
+    /**
+     * The optional affinity hook applied to all dispatch threads.
+     *
+     * @return the affinity hook or null if none configured.
+     */
+    ThreadAffinity dispatchAffinity();
+
     /**
      * The number of binary service endpoints.
      *
@@ -135,4 +222,165 @@ public interface Environment {
      * @return amount of endpoints per service.
      */
     int viewServiceEndpoints();
+
+    /**
+     * The default timeout of binary service requests.
+     *
+     * @return the timeout in milliseconds.
+     */
+    long binaryTimeout();
+
+    /**
+     * The default timeout of config service requests.
+     *
+     * @return the timeout in milliseconds.
+     */
+    long configTimeout();
+
+    /**
+     * The default timeout of view service requests.
+     *
+     * @return the timeout in milliseconds.
+     */
+    long viewTimeout();
+
+    /**
+     * The delay before the first retry of a request.
+     *
+     * @return the delay in milliseconds.
+     */
+    long retryMinDelay();
+
+    /**
+     * The upper bound of the exponential retry delay.
+     *
+     * @return the delay in milliseconds.
+     */
+    long retryMaxDelay();
+
+    /**
+     * The maximum number of retries per request before it is failed.
+     *
+     * @return the retry budget.
+     */
+    int retryBudget();
+
+    /**
+     * The default time a replica read waits for the master before it reads from the replicas.
+     *
+     * @return the delay in milliseconds.
+     */
+    long replicaFallbackDelay();
+
+    /**
+     * The number of pending requests which triggers a flush of an endpoint.
+     *
+     * @return the request threshold.
+     */
+    int flushMaxRequests();
+
+    /**
+     * The estimated number of pending bytes which triggers a flush of an endpoint.
+     *
+     * @return the byte threshold.
+     */
+    long flushMaxBytes();
+
+    /**
+     * The maximum time a write is held back before the endpoint is flushed.
+     *
+     * @return the linger time in microseconds, 0 to flush at the end of every batch.
+     */
+    long flushLinger();
+
+    /**
+     * The policy which admits requests into the request ringbuffers.
+     *
+     * @return one of failFast, blocking or adaptive.
+     */
+    String admissionPolicy();
+
+    /**
+     * The maximum time a request waits for admission under the blocking and adaptive policies.
+     *
+     * @return the deadline in milliseconds.
+     */
+    long admissionDeadline();
+
+    /**
+     * The queueing delay the adaptive admission policy sizes its limit for.
+     *
+     * @return the target delay in microseconds.
+     */
+    long admissionTargetDelay();
+
+    /**
+     * The lower bound of the limit of the adaptive admission policy.
+     *
+     * @return the minimum limit.
+     */
+    int admissionMinLimit();
+
+    /**
+     * If the latency of every request should be recorded in the {@link #latencyMetrics()}.
+     *
+     * @return true if enabled.
+     */
+    boolean latencyMetricsEnabled();
+
+    /**
+     * If requests should record the time they reach every stage, broken down in the {@link #latencyMetrics()}.
+     *
+     * @return true if enabled.
+     */
+    boolean stageMarksEnabled();
+
+    /**
+     * If idempotent reads should send a second copy once they take longer than usual for their node.
+     *
+     * @return true if enabled.
+     */
+    boolean hedgingEnabled();
+
+    /**
+     * The percentile of the recent latency of a node after which a hedged read sends its second copy.
+     *
+     * @return the percentile, between 0 and 100.
+     */
+    double hedgingPercentile();
+
+    /**
+     * The lower bound of the delay before a hedged read sends its second copy.
+     *
+     * @return the delay in milliseconds.
+     */
+    long hedgingMinDelay();
+
+    /**
+     * The maximum share of hedgeable reads which send a second copy.
+     *
+     * @return the budget in percent.
+     */
+    double hedgingBudget();
+
+    /**
+     * The interval in which the hedging delays are recomputed from the recent latencies.
+     *
+     * @return the interval in milliseconds.
+     */
+    long hedgingInterval();
+
+    /**
+     * The interval of the background config polling right after the configuration turned out to be outdated.
+     *
+     * @return the interval in milliseconds.
+     */
+    long configPollMinInterval();
+
+    /**
+     * The interval of the background config polling once things are stable.
+     *
+     * @return the interval in milliseconds, 0 if polling is disabled.
+     */
+    long configPollMaxInterval();
 }
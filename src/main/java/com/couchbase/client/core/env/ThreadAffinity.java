@@ -0,0 +1,46 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.env;
+
+/**
+ * A hook to pin the internal dispatch threads to specific CPUs.
+ *
+ * The JVM does not provide a way to set thread affinity, so implementations usually delegate to a native
+ * library. Implementations need a public no-arg constructor so they can be configured through the
+ * {@link Environment}.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public interface ThreadAffinity {
+
+    /**
+     * Binds the current thread.
+     *
+     * This method is called from the dispatch thread itself, right before it starts processing events.
+     *
+     * @param name the name of the dispatch thread.
+     * @param index the index of the thread within its pool, starting at 0.
+     */
+    void bind(String name, int index);
+
+}
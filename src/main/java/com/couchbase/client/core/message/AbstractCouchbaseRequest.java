@@ -21,7 +21,8 @@
  */
 package com.couchbase.client.core.message;
 
-import rx.subjects.AsyncSubject;
+import com.couchbase.client.core.metrics.RequestStage;
+import io.netty.util.Timeout;
 import rx.subjects.Subject;
 
 /**
@@ -32,6 +33,11 @@ import rx.subjects.Subject;
  */
 public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
 
+    /**
+     * The number of {@link RequestStage}s, cached since values() copies the array.
+     */
+    private static final int STAGE_COUNT = RequestStage.values().length;
+
     /**
      * The observable which eventually completes the response.
      */
@@ -47,13 +53,43 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      */
     private final String password;
 
+    /**
+     * The custom timeout in milliseconds, 0 if the service default applies.
+     */
+    private long timeout;
+
+    /**
+     * The handle of the scheduled timeout.
+     */
+    private volatile Timeout timeoutHandle;
+
+    /**
+     * The number of retries so far.
+     */
+    private int retryCount;
+
+    /**
+     * The time when the request has been sent into the cluster, 0 if not stamped.
+     */
+    private long sendTime;
+
+    /**
+     * The hostname of the node the request has last been dispatched to.
+     */
+    private String dispatchedTo;
+
+    /**
+     * The time per {@link RequestStage}, null unless stage marks are enabled.
+     */
+    private long[] marks;
+
     /**
      * Create a new {@link AbstractCouchbaseRequest}.
      *
      * Depending on the type of operation, bucket and password may be null, this needs to
      * be enforced properly by the child implementations.
      *
-     * This constructor will create a AsyncSubject, which implies that the response for this
+     * This constructor will create a {@link ResponseSubject}, which implies that the response for this
      * request only emits one message. If you need to expose a streaming response, use the
      * other constructor and feed it a ReplaySubject or something similar.
      *
@@ -61,7 +97,7 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
      * @param password the password of the bucket.
      */
     protected AbstractCouchbaseRequest(String bucket, String password) {
-        this(bucket, password, AsyncSubject.<CouchbaseResponse>create());
+        this(bucket, password, ResponseSubject.create());
     }
 
     /**
@@ -94,4 +130,80 @@ public abstract class AbstractCouchbaseRequest implements CouchbaseRequest {
     public String password() {
         return password;
     }
+
+    @Override
+    public long timeout() {
+        return timeout;
+    }
+
+    @Override
+    public CouchbaseRequest timeout(final long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    @Override
+    public Timeout timeoutHandle() {
+        return timeoutHandle;
+    }
+
+    @Override
+    public void timeoutHandle(final Timeout handle) {
+        this.timeoutHandle = handle;
+    }
+
+    @Override
+    public boolean cancelTimeout() {
+        Timeout handle = timeoutHandle;
+        return handle == null || handle.cancel();
+    }
+
+    @Override
+    public int incrementRetryCount() {
+        return ++retryCount;
+    }
+
+    @Override
+    public int retryCount() {
+        return retryCount;
+    }
+
+    @Override
+    public long sendTime() {
+        return sendTime;
+    }
+
+    @Override
+    public void sendTime(final long nanos) {
+        this.sendTime = nanos;
+    }
+
+    @Override
+    public String dispatchedTo() {
+        return dispatchedTo;
+    }
+
+    @Override
+    public void dispatchedTo(final String hostname) {
+        this.dispatchedTo = hostname;
+    }
+
+    @Override
+    public void enableStageMarks() {
+        if (marks == null) {
+            marks = new long[STAGE_COUNT];
+        }
+    }
+
+    @Override
+    public void mark(final RequestStage stage) {
+        if (marks != null) {
+            marks[stage.ordinal()] = System.nanoTime();
+        }
+    }
+
+    @Override
+    public long markOf(final RequestStage stage) {
+        return marks == null ? 0 : marks[stage.ordinal()];
+    }
 }
@@ -21,6 +21,8 @@
  */
 package com.couchbase.client.core.message;
 
+import com.couchbase.client.core.metrics.RequestStage;
+import io.netty.util.Timeout;
 import rx.subjects.Subject;
 
 import java.util.Observable;
@@ -54,4 +56,107 @@ public interface CouchbaseRequest extends CouchbaseMessage {
      */
     String password();
 
+    /**
+     * The custom timeout of this request in milliseconds.
+     *
+     * @return the timeout or 0 if the default timeout of the service should be used.
+     */
+    long timeout();
+
+    /**
+     * Overrides the default timeout of the service for this request.
+     *
+     * @param timeout the timeout in milliseconds, 0 to use the default.
+     * @return the {@link CouchbaseRequest} for chaining purposes.
+     */
+    CouchbaseRequest timeout(long timeout);
+
+    /**
+     * The handle of the scheduled timeout.
+     *
+     * @return the handle or null if no timeout has been scheduled yet.
+     */
+    Timeout timeoutHandle();
+
+    /**
+     * Attaches the handle of the scheduled timeout.
+     *
+     * @param handle the timeout handle.
+     */
+    void timeoutHandle(Timeout handle);
+
+    /**
+     * Cancels the scheduled timeout, if any.
+     *
+     * Since the timeout can only be cancelled before it expired, this decides if the request is still owned by
+     * its response or if it has already been failed with a timeout.
+     *
+     * @return true if the request has not expired, false otherwise.
+     */
+    boolean cancelTimeout();
+
+    /**
+     * Increments the number of retries of this request.
+     *
+     * @return the number of retries including this one.
+     */
+    int incrementRetryCount();
+
+    /**
+     * The number of times this request has been retried.
+     *
+     * @return the number of retries.
+     */
+    int retryCount();
+
+    /**
+     * The time when this request has been sent into the cluster.
+     *
+     * @return the value of {@link System#nanoTime()} when sent, 0 if it has not been stamped.
+     */
+    long sendTime();
+
+    /**
+     * Stamps the time when this request has been sent into the cluster.
+     *
+     * @param nanos the value of {@link System#nanoTime()}.
+     */
+    void sendTime(long nanos);
+
+    /**
+     * The hostname of the node this request has last been dispatched to.
+     *
+     * @return the hostname or null if it has not been dispatched yet.
+     */
+    String dispatchedTo();
+
+    /**
+     * Records the node this request is dispatched to.
+     *
+     * @param hostname the hostname of the node.
+     */
+    void dispatchedTo(String hostname);
+
+    /**
+     * Enables the stage marks of this request, which are off by default.
+     */
+    void enableStageMarks();
+
+    /**
+     * Marks that the request reached the given stage now.
+     *
+     * This does nothing unless stage marks have been enabled, so it is cheap to call on the hot path.
+     *
+     * @param stage the stage reached.
+     */
+    void mark(RequestStage stage);
+
+    /**
+     * The time when the request last reached the given stage.
+     *
+     * @param stage the stage.
+     * @return the value of {@link System#nanoTime()} at the stage, 0 if not marked.
+     */
+    long markOf(RequestStage stage);
+
 }
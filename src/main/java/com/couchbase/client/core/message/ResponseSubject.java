@@ -0,0 +1,204 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message;
+
+import rx.Subscriber;
+import rx.subjects.Subject;
+
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
+/**
+ * A {@link Subject} which completes with at most one {@link CouchbaseResponse}, purpose-built for single-response
+ * requests.
+ *
+ * It behaves like an {@link rx.subjects.AsyncSubject}: the last value passed to {@link #onNext(CouchbaseResponse)} is emitted
+ * together with the completion, and every subscriber - even a late one - receives the same terminal outcome. Only
+ * the first terminal event counts, every later one is ignored.
+ *
+ * Unlike the general purpose subjects it does not maintain a subscription manager. Completing it is a single
+ * compare-and-set of the outcome plus one swap of the subscriber slot, which in the common case holds at most one
+ * subscriber.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class ResponseSubject extends Subject<CouchbaseResponse, CouchbaseResponse> {
+
+    /**
+     * Marks a completion without a value.
+     */
+    private static final Object EMPTY = new Object();
+
+    /**
+     * Marks the subscriber slot once the outcome has been emitted.
+     */
+    private static final Object TERMINATED = new Object();
+
+    private static final AtomicReferenceFieldUpdater<ResponseSubject, Object> OUTCOME_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(ResponseSubject.class, Object.class, "outcome");
+
+    private static final AtomicReferenceFieldUpdater<ResponseSubject, Object> SUBSCRIBERS_UPDATER =
+        AtomicReferenceFieldUpdater.newUpdater(ResponseSubject.class, Object.class, "subscribers");
+
+    /**
+     * The last value passed to {@link #onNext(CouchbaseResponse)}, only written by the producer.
+     */
+    private CouchbaseResponse value;
+
+    /**
+     * The terminal outcome: null while pending, then the value, a {@link Throwable} or {@link #EMPTY}.
+     */
+    private volatile Object outcome;
+
+    /**
+     * Null, a single {@link Subscriber}, an array of them or {@link #TERMINATED}.
+     */
+    private volatile Object subscribers;
+
+    /**
+     * Creates a new {@link ResponseSubject}.
+     *
+     * @return the created subject.
+     */
+    public static ResponseSubject create() {
+        SubscribeLink link = new SubscribeLink();
+        ResponseSubject subject = new ResponseSubject(link);
+        link.subject = subject;
+        return subject;
+    }
+
+    private ResponseSubject(final SubscribeLink link) {
+        super(link);
+    }
+
+    @Override
+    public void onNext(final CouchbaseResponse value) {
+        if (outcome == null) {
+            this.value = value;
+        }
+    }
+
+    @Override
+    public void onCompleted() {
+        CouchbaseResponse current = value;
+        terminate(current == null ? EMPTY : current);
+    }
+
+    @Override
+    public void onError(final Throwable e) {
+        terminate(e);
+    }
+
+    /**
+     * If a terminal event has been received.
+     *
+     * @return true if completed or failed.
+     */
+    public boolean isCompleted() {
+        return outcome != null;
+    }
+
+    /**
+     * Records the outcome if none has been recorded yet and emits it to all current subscribers.
+     *
+     * @param result the outcome.
+     */
+    private void terminate(final Object result) {
+        if (!OUTCOME_UPDATER.compareAndSet(this, null, result)) {
+            return;
+        }
+
+        Object current = SUBSCRIBERS_UPDATER.getAndSet(this, TERMINATED);
+        if (current instanceof Subscriber) {
+            emit(asSubscriber(current), result);
+        } else if (current instanceof Subscriber[]) {
+            Subscriber<?>[] all = (Subscriber<?>[]) current;
+            for (int i = 0; i < all.length; i++) {
+                emit(asSubscriber(all[i]), result);
+            }
+        }
+    }
+
+    /**
+     * Adds the subscriber, or emits the outcome right away if already terminated.
+     *
+     * @param subscriber the subscriber to add.
+     */
+    private void add(final Subscriber<? super CouchbaseResponse> subscriber) {
+        while (true) {
+            Object current = subscribers;
+            if (current == TERMINATED) {
+                emit(subscriber, outcome);
+                return;
+            }
+
+            Object next;
+            if (current == null) {
+                next = subscriber;
+            } else if (current instanceof Subscriber) {
+                next = new Subscriber<?>[] { (Subscriber<?>) current, subscriber };
+            } else {
+                Subscriber<?>[] all = (Subscriber<?>[]) current;
+                Subscriber<?>[] grown = new Subscriber<?>[all.length + 1];
+                System.arraycopy(all, 0, grown, 0, all.length);
+                grown[all.length] = subscriber;
+                next = grown;
+            }
+            if (SUBSCRIBERS_UPDATER.compareAndSet(this, current, next)) {
+                return;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Subscriber<? super CouchbaseResponse> asSubscriber(final Object subscriber) {
+        return (Subscriber<? super CouchbaseResponse>) subscriber;
+    }
+
+    private static void emit(final Subscriber<? super CouchbaseResponse> subscriber, final Object result) {
+        if (subscriber.isUnsubscribed()) {
+            return;
+        }
+        if (result instanceof Throwable) {
+            subscriber.onError((Throwable) result);
+        } else {
+            if (result != EMPTY) {
+                subscriber.onNext((CouchbaseResponse) result);
+            }
+            subscriber.onCompleted();
+        }
+    }
+
+    /**
+     * Connects subscriptions to the subject, which can not be referenced while it is being constructed.
+     */
+    private static final class SubscribeLink implements OnSubscribe<CouchbaseResponse> {
+
+        private ResponseSubject subject;
+
+        @Override
+        public void call(final Subscriber<? super CouchbaseResponse> subscriber) {
+            subject.add(subscriber);
+        }
+    }
+
+}
@@ -22,6 +22,8 @@
 package com.couchbase.client.core.message.binary;
 
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import rx.subjects.Subject;
 
 /**
  * Default implementation of a {@link BinaryRequest}.
@@ -32,9 +34,9 @@ import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 public abstract class AbstractBinaryRequest extends AbstractCouchbaseRequest implements BinaryRequest {
 
     /**
-     * The key of the document, should be null if not tied to any.
+     * The encoded key of the document, should be null if not tied to any.
      */
-    private final String key;
+    private final EncodedKey key;
 
     /**
      * The partition (vbucket) of the document.
@@ -50,11 +52,44 @@ public abstract class AbstractBinaryRequest extends AbstractCouchbaseRequest imp
      */
     protected AbstractBinaryRequest(String key, String bucket, String password) {
         super(bucket, password);
+        this.key = key == null ? null : new EncodedKey(key);
+    }
+
+    /**
+     * Creates a new {@link AbstractBinaryRequest} which completes into the given observable.
+     *
+     * @param key the key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the optional password of the bucket.
+     * @param observable the observable which receives the response.
+     */
+    protected AbstractBinaryRequest(String key, String bucket, String password,
+        Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        this(key == null ? null : new EncodedKey(key), bucket, password, observable);
+    }
+
+    /**
+     * Creates a new {@link AbstractBinaryRequest} with an already encoded key which completes into the given
+     * observable.
+     *
+     * @param key the encoded key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the optional password of the bucket.
+     * @param observable the observable which receives the response.
+     */
+    protected AbstractBinaryRequest(EncodedKey key, String bucket, String password,
+        Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        super(bucket, password, observable);
         this.key = key;
     }
 
     @Override
     public String key() {
+        return key == null ? null : key.key();
+    }
+
+    @Override
+    public EncodedKey encodedKey() {
         return key;
     }
 
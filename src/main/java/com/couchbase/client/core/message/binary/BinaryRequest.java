@@ -38,6 +38,13 @@ public interface BinaryRequest extends CouchbaseRequest {
      */
     String key();
 
+    /**
+     * The key of the document, encoded once when the request has been created.
+     *
+     * @return the encoded key of the document, if set.
+     */
+    EncodedKey encodedKey();
+
     /**
      * The partition (vbucket) to use for this request.
      *
@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.Unpooled;
+import rx.Subscriber;
+import rx.subjects.ReplaySubject;
+import rx.subjects.Subject;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetch multiple documents from the cluster in one operation.
+ *
+ * The request is dispatched as a whole and only fanned out into one {@link GetRequest} per key when it is located.
+ * All keys which belong to the same node are written as one pipelined burst. The {@link GetResponse}s are emitted on
+ * the observable of this request as they arrive, identified through {@link GetResponse#key()}, and it completes once
+ * every key has been answered. Keys which fail are answered with a {@link ResponseStatus#FAILURE} response.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class BulkGetRequest extends AbstractCouchbaseRequest {
+
+    /**
+     * The requests for the individual keys.
+     */
+    private final GetRequest[] requests;
+
+    /**
+     * Create a new {@link BulkGetRequest}.
+     *
+     * @param keys the keys of the documents.
+     * @param bucket the bucket of the documents.
+     */
+    public BulkGetRequest(final Collection<String> keys, final String bucket) {
+        this(keys, bucket, null);
+    }
+
+    /**
+     * Create a new {@link BulkGetRequest}.
+     *
+     * @param keys the keys of the documents.
+     * @param bucket the bucket of the documents.
+     * @param password the password of the bucket.
+     */
+    public BulkGetRequest(final Collection<String> keys, final String bucket, final String password) {
+        super(bucket, password, ReplaySubject.<CouchbaseResponse>create());
+        if (keys == null || keys.isEmpty()) {
+            throw new IllegalArgumentException("At least one key is required");
+        }
+
+        AtomicInteger outstanding = new AtomicInteger(keys.size());
+        requests = new GetRequest[keys.size()];
+        int i = 0;
+        for (String key : keys) {
+            requests[i++] = new GetRequest(key, bucket, password, new BulkObserver(this, key, outstanding));
+        }
+    }
+
+    /**
+     * The requests for the individual keys, all completing into this request.
+     *
+     * @return the individual requests.
+     */
+    public GetRequest[] requests() {
+        return requests;
+    }
+
+    /**
+     * The observable of an individual request, which funnels its response into the bulk observable.
+     *
+     * Responses can arrive concurrently from different IO threads, so all signals are serialized on the bulk
+     * observable before they are passed on. A key which fails is answered with a {@link ResponseStatus#FAILURE}
+     * response instead of failing the whole bulk, which completes when the last outstanding key is answered. The
+     * timeout of the bulk is cancelled at that point, and if it already fired the bulk is left to the timeout.
+     */
+    static final class BulkObserver extends Subject<CouchbaseResponse, CouchbaseResponse> {
+
+        private final BulkGetRequest request;
+        private final Subject<CouchbaseResponse, CouchbaseResponse> parent;
+        private final String key;
+        private final AtomicInteger outstanding;
+
+        BulkObserver(final BulkGetRequest request, final String key, final AtomicInteger outstanding) {
+            super(new OnSubscribe<CouchbaseResponse>() {
+                @Override
+                public void call(final Subscriber<? super CouchbaseResponse> subscriber) {
+                    request.observable().subscribe(subscriber);
+                }
+            });
+            this.request = request;
+            this.parent = request.observable();
+            this.key = key;
+            this.outstanding = outstanding;
+        }
+
+        @Override
+        public void onNext(final CouchbaseResponse response) {
+            synchronized (parent) {
+                parent.onNext(response);
+            }
+        }
+
+        @Override
+        public void onCompleted() {
+            if (outstanding.decrementAndGet() == 0 && request.cancelTimeout()) {
+                synchronized (parent) {
+                    parent.onCompleted();
+                }
+            }
+        }
+
+        @Override
+        public void onError(final Throwable e) {
+            onNext(new GetResponse(ResponseStatus.FAILURE, 0, key, Unpooled.EMPTY_BUFFER));
+            onCompleted();
+        }
+    }
+
+}
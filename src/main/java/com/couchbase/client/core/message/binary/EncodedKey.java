@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import io.netty.util.CharsetUtil;
+
+/**
+ * The key of a document together with its UTF-8 encoded bytes and its partition hash.
+ *
+ * It is created once when the request is built, on the thread of the caller, so the locator, the endpoint and the
+ * codec all work with the same bytes and hash instead of encoding and hashing the key on the dispatch thread.
+ * Note that all protocol lengths need to be taken from the bytes, since a non-ASCII key is longer in bytes than
+ * in characters.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class EncodedKey {
+
+    /**
+     * The key as a string.
+     */
+    private final String key;
+
+    /**
+     * The UTF-8 encoded key.
+     */
+    private final byte[] bytes;
+
+    /**
+     * The hash of the key, which selects its partition.
+     */
+    private final int partitionHash;
+
+    /**
+     * The ketama hash of the key, -1 until it has been computed.
+     */
+    private volatile long ketamaHash = -1;
+
+    /**
+     * Encodes the given key.
+     *
+     * @param key the key of the document.
+     */
+    public EncodedKey(final String key) {
+        this.key = key;
+        this.bytes = key.getBytes(CharsetUtil.UTF_8);
+        this.partitionHash = PartitionHasher.hash(bytes);
+    }
+
+    /**
+     * The key as a string.
+     *
+     * @return the key.
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * The UTF-8 encoded key.
+     *
+     * The returned array is shared and must not be modified.
+     *
+     * @return the encoded key.
+     */
+    public byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * The length of the encoded key in bytes.
+     *
+     * @return the length in bytes.
+     */
+    public int length() {
+        return bytes.length;
+    }
+
+    /**
+     * The hash of the key, which needs to be masked with the number of partitions to get the partition.
+     *
+     * @return the partition hash.
+     */
+    public int partitionHash() {
+        return partitionHash;
+    }
+
+    /**
+     * The position of the key on the ketama ring of a memcache bucket.
+     *
+     * Since only keys of memcache buckets need it, it is computed on first use and cached afterwards.
+     *
+     * @return the ketama hash.
+     */
+    public long ketamaHash() {
+        long hash = ketamaHash;
+        if (hash == -1) {
+            hash = KetamaHasher.hash(bytes);
+            ketamaHash = hash;
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+
+}
@@ -23,6 +23,7 @@ package com.couchbase.client.core.message.binary;
 
 import com.couchbase.client.core.message.AbstractCouchbaseResponse;
 import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Represents a response with a bucket configuration.
@@ -32,16 +33,21 @@ import com.couchbase.client.core.message.ResponseStatus;
  */
 public class GetBucketConfigResponse extends AbstractCouchbaseResponse implements BinaryResponse {
 
-    private final String content;
+    private final ByteBuf content;
     private String hostname;
 
-    public GetBucketConfigResponse(final ResponseStatus status, final String content, final String hostname) {
+    public GetBucketConfigResponse(final ResponseStatus status, final ByteBuf content, final String hostname) {
         super(status);
         this.content = content;
         this.hostname = hostname;
     }
 
-    public String content() {
+    /**
+     * The raw configuration, which needs to be released once consumed.
+     *
+     * @return the raw configuration.
+     */
+    public ByteBuf content() {
         return content;
     }
 
@@ -21,6 +21,9 @@
  */
 package com.couchbase.client.core.message.binary;
 
+import com.couchbase.client.core.message.CouchbaseResponse;
+import rx.subjects.Subject;
+
 /**
  * Fetch a document from the cluster and return it if found.
  *
@@ -39,4 +42,31 @@ public class GetRequest extends AbstractBinaryRequest {
         super(key, bucket, null);
     }
 
+    /**
+     * Create a new {@link GetRequest} which completes into a shared observable, used by {@link BulkGetRequest}.
+     *
+     * @param key the key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the password of the bucket.
+     * @param observable the shared observable.
+     */
+    GetRequest(final String key, final String bucket, final String password,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        super(key, bucket, password, observable);
+    }
+
+    /**
+     * Create a new {@link GetRequest} with an already encoded key which completes into a shared observable, used by
+     * {@link ReplicaReadRequest} and for hedged requests.
+     *
+     * @param key the encoded key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the password of the bucket.
+     * @param observable the shared observable.
+     */
+    public GetRequest(final EncodedKey key, final String bucket, final String password,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        super(key, bucket, password, observable);
+    }
+
 }
@@ -35,11 +35,13 @@ public class GetResponse extends AbstractCouchbaseResponse implements BinaryResp
 
     private final ByteBuf content;
     private final long cas;
+    private final String key;
 
-    public GetResponse(final ResponseStatus status, final long cas, final ByteBuf content) {
+    public GetResponse(final ResponseStatus status, final long cas, final String key, final ByteBuf content) {
         super(status);
         this.content = content;
         this.cas = cas;
+        this.key = key;
     }
 
     public ByteBuf content() {
@@ -49,4 +51,13 @@ public class GetResponse extends AbstractCouchbaseResponse implements BinaryResp
     public long cas() {
         return cas;
     }
+
+    /**
+     * The key of the requested document, needed to correlate responses of a {@link BulkGetRequest}.
+     *
+     * @return the key of the document.
+     */
+    public String key() {
+        return key;
+    }
 }
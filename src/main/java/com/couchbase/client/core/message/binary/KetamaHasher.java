@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Computes the MD5 based ketama hashes used to distribute the documents of memcache buckets.
+ *
+ * Every MD5 digest yields four 32 bit points on the ketama ring. A key is placed at its first point, every node
+ * at many points derived from its address. The digests are computed with one {@link MessageDigest} per thread.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class KetamaHasher {
+
+    /**
+     * The number of points per MD5 digest.
+     */
+    public static final int POINTS_PER_DIGEST = 4;
+
+    /**
+     * The MD5 digest of every thread.
+     */
+    private static final ThreadLocal<MessageDigest> MD5 = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("MD5 is not supported by this JVM.", ex);
+            }
+        }
+    };
+
+    private KetamaHasher() {
+    }
+
+    /**
+     * Computes the MD5 digest of the given bytes.
+     *
+     * @param bytes the bytes to digest.
+     * @return the digest.
+     */
+    public static byte[] digest(final byte[] bytes) {
+        return MD5.get().digest(bytes);
+    }
+
+    /**
+     * Extracts one of the points of a digest.
+     *
+     * @param digest the MD5 digest.
+     * @param index the index of the point, between 0 and {@link #POINTS_PER_DIGEST} (exclusive).
+     * @return the point, an unsigned 32 bit value.
+     */
+    public static long point(final byte[] digest, final int index) {
+        int offset = index * 4;
+        return ((long) (digest[offset + 3] & 0xFF) << 24)
+            | ((long) (digest[offset + 2] & 0xFF) << 16)
+            | ((long) (digest[offset + 1] & 0xFF) << 8)
+            | (digest[offset] & 0xFF);
+    }
+
+    /**
+     * Computes the ketama hash of the given key.
+     *
+     * @param key the UTF-8 encoded key.
+     * @return the position of the key on the ring.
+     */
+    public static long hash(final byte[] key) {
+        return point(digest(key), 0);
+    }
+
+}
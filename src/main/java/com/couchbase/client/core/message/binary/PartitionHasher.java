@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+/**
+ * Computes the partition (vbucket) hash of a key with a table-driven CRC32.
+ *
+ * The server selects the partition from bits 16 to 30 of the CRC32 (IEEE 802.3) of the key. Unlike
+ * {@link java.util.zip.CRC32}, this does not allocate and does not need to cross into native code, so it is cheap
+ * enough to run on the caller thread when the request is created. The dispatch thread then only needs to mask the
+ * hash with the number of partitions.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class PartitionHasher {
+
+    /**
+     * The reversed polynomial of the CRC32.
+     */
+    private static final int POLYNOMIAL = 0xEDB88320;
+
+    /**
+     * The CRC of every possible byte value.
+     */
+    private static final int[] TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < TABLE.length; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 1) != 0 ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            TABLE[i] = crc;
+        }
+    }
+
+    private PartitionHasher() {
+    }
+
+    /**
+     * Computes the CRC32 of the given bytes.
+     *
+     * @param bytes the bytes to checksum.
+     * @return the CRC32, same as {@link java.util.zip.CRC32#getValue()}.
+     */
+    public static long crc32(final byte[] bytes) {
+        int crc = 0xFFFFFFFF;
+        for (int i = 0; i < bytes.length; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ bytes[i]) & 0xFF];
+        }
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Computes the partition hash of the given encoded key.
+     *
+     * @param key the UTF-8 encoded key.
+     * @return the hash, which needs to be masked with the number of partitions.
+     */
+    public static int hash(final byte[] key) {
+        return (int) (crc32(key) >> 16) & 0x7fff;
+    }
+
+}
@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import com.couchbase.client.core.message.CouchbaseResponse;
+import rx.subjects.Subject;
+
+/**
+ * Fetch a document from one specific replica and return it if found.
+ *
+ * The request uses the replica read command, so it is answered by the node which holds the given replica of the
+ * partition instead of its master. The document may lag behind the master copy. The response is a
+ * {@link GetResponse}. Use a {@link ReplicaReadRequest} to race all replicas or to fall back from the master.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class ReplicaGetRequest extends AbstractBinaryRequest {
+
+    /**
+     * The number of the replica to read from, starting at 0.
+     */
+    private final int replica;
+
+    /**
+     * Create a new {@link ReplicaGetRequest}.
+     *
+     * @param key the key of the document.
+     * @param bucket the bucket of the document.
+     * @param replica the number of the replica to read from, starting at 0.
+     */
+    public ReplicaGetRequest(final String key, final String bucket, final int replica) {
+        super(key, bucket, null);
+        if (replica < 0) {
+            throw new IllegalArgumentException("Replica must be larger than or equal to zero");
+        }
+        this.replica = replica;
+    }
+
+    /**
+     * Create a new {@link ReplicaGetRequest} which completes into a shared observable, used by
+     * {@link ReplicaReadRequest} and for hedged requests.
+     *
+     * @param key the encoded key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the password of the bucket.
+     * @param replica the number of the replica to read from, starting at 0.
+     * @param observable the shared observable.
+     */
+    public ReplicaGetRequest(final EncodedKey key, final String bucket, final String password, final int replica,
+        final Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        super(key, bucket, password, observable);
+        this.replica = replica;
+    }
+
+    /**
+     * The number of the replica to read from.
+     *
+     * @return the replica number, starting at 0.
+     */
+    public int replica() {
+        return replica;
+    }
+
+}
@@ -0,0 +1,287 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.util.ReferenceCountUtil;
+import rx.Subscriber;
+import rx.subjects.ReplaySubject;
+import rx.subjects.Subject;
+
+/**
+ * Fetch a document from its replicas, following the given {@link ReplicaMode}.
+ *
+ * The request is dispatched as a whole and only fanned out into a {@link GetRequest} for the master and one
+ * {@link ReplicaGetRequest} per replica when it is located. The first {@link GetResponse} which found the document
+ * completes this request and all later ones are discarded. If no copy has the document, the last response is
+ * emitted instead.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class ReplicaReadRequest extends AbstractCouchbaseRequest {
+
+    /**
+     * The encoded key of the document, shared by all individual requests.
+     */
+    private final EncodedKey key;
+
+    /**
+     * The policy which decides where the document is read from.
+     */
+    private final ReplicaMode mode;
+
+    /**
+     * The time in milliseconds to wait for the master before reading from the replicas, 0 for the default.
+     */
+    private final long fallbackDelay;
+
+    /**
+     * The observable shared by all individual requests.
+     */
+    private final ReplicaObserver observer;
+
+    /**
+     * Create a new {@link ReplicaReadRequest} with the default fallback delay.
+     *
+     * @param key the key of the document.
+     * @param bucket the bucket of the document.
+     * @param mode the replica read policy.
+     */
+    public ReplicaReadRequest(final String key, final String bucket, final ReplicaMode mode) {
+        this(key, bucket, null, mode, 0);
+    }
+
+    /**
+     * Create a new {@link ReplicaReadRequest}.
+     *
+     * @param key the key of the document.
+     * @param bucket the bucket of the document.
+     * @param password the password of the bucket.
+     * @param mode the replica read policy.
+     * @param fallbackDelay the time in milliseconds to wait for the master, 0 for the default.
+     */
+    public ReplicaReadRequest(final String key, final String bucket, final String password, final ReplicaMode mode,
+        final long fallbackDelay) {
+        super(bucket, password, ReplaySubject.<CouchbaseResponse>create());
+        if (key == null) {
+            throw new IllegalArgumentException("A key is required");
+        }
+        if (mode == null) {
+            throw new IllegalArgumentException("A replica mode is required");
+        }
+        if (fallbackDelay < 0) {
+            throw new IllegalArgumentException("Fallback delay must be larger than or equal to zero");
+        }
+        this.key = new EncodedKey(key);
+        this.mode = mode;
+        this.fallbackDelay = fallbackDelay;
+        this.observer = new ReplicaObserver(this, this.key.key());
+    }
+
+    /**
+     * The key of the document.
+     *
+     * @return the key.
+     */
+    public String key() {
+        return key.key();
+    }
+
+    /**
+     * The encoded key of the document.
+     *
+     * @return the encoded key.
+     */
+    public EncodedKey encodedKey() {
+        return key;
+    }
+
+    /**
+     * The policy which decides where the document is read from.
+     *
+     * @return the replica mode.
+     */
+    public ReplicaMode mode() {
+        return mode;
+    }
+
+    /**
+     * The time in milliseconds to wait for the master before reading from the replicas.
+     *
+     * @return the fallback delay, 0 if the default should be used.
+     */
+    public long fallbackDelay() {
+        return fallbackDelay;
+    }
+
+    /**
+     * Creates the request for the master, which has to answer before the fallback to the replicas is not needed
+     * anymore.
+     *
+     * @return the request for the master.
+     */
+    public GetRequest master() {
+        GetRequest request = new GetRequest(key, bucket(), password(), observer);
+        observer.expectMaster();
+        return request;
+    }
+
+    /**
+     * Creates the requests for all replicas, unless the document has already been found or the replicas have
+     * already been asked.
+     *
+     * All returned requests are accounted for before any of them can complete, so they have to be sent right away.
+     *
+     * @param count the number of replicas of the bucket.
+     * @return the requests for the replicas or null if they are not needed.
+     */
+    public ReplicaGetRequest[] replicas(final int count) {
+        ReplicaGetRequest[] requests = new ReplicaGetRequest[count];
+        for (int i = 0; i < count; i++) {
+            requests[i] = new ReplicaGetRequest(key, bucket(), password(), i, observer);
+        }
+        return observer.expectReplicas(count) ? requests : null;
+    }
+
+    /**
+     * The observable shared by all individual requests, which completes the replica read with the first copy found.
+     *
+     * Responses can arrive concurrently from different IO threads, so all signals are serialized before they are
+     * passed on. Responses which arrive after the read is complete are released. The timeout of the read is
+     * cancelled once it completes, and if it already fired the read is left to the timeout, like a hedged read.
+     */
+    static final class ReplicaObserver extends Subject<CouchbaseResponse, CouchbaseResponse> {
+
+        private final ReplicaReadRequest request;
+        private final Subject<CouchbaseResponse, CouchbaseResponse> parent;
+        private final String key;
+        private int outstanding;
+        private boolean fallbackPending;
+        private boolean replicasAsked;
+        private boolean done;
+        private CouchbaseResponse last;
+        private Throwable error;
+
+        ReplicaObserver(final ReplicaReadRequest request, final String key) {
+            super(new OnSubscribe<CouchbaseResponse>() {
+                @Override
+                public void call(final Subscriber<? super CouchbaseResponse> subscriber) {
+                    request.observable().subscribe(subscriber);
+                }
+            });
+            this.request = request;
+            this.parent = request.observable();
+            this.key = key;
+        }
+
+        synchronized void expectMaster() {
+            outstanding++;
+            fallbackPending = true;
+        }
+
+        synchronized boolean expectReplicas(final int count) {
+            if (done || replicasAsked) {
+                return false;
+            }
+            replicasAsked = true;
+            fallbackPending = false;
+            outstanding += count;
+            settle();
+            return !done;
+        }
+
+        @Override
+        public synchronized void onNext(final CouchbaseResponse response) {
+            if (done) {
+                release(response);
+            } else if (response.status() == ResponseStatus.SUCCESS) {
+                release(last);
+                last = null;
+                if (finish()) {
+                    parent.onNext(response);
+                    parent.onCompleted();
+                } else {
+                    release(response);
+                }
+            } else {
+                release(last);
+                last = response;
+            }
+        }
+
+        @Override
+        public synchronized void onCompleted() {
+            outstanding--;
+            settle();
+        }
+
+        @Override
+        public synchronized void onError(final Throwable e) {
+            error = e;
+            outstanding--;
+            settle();
+        }
+
+        /**
+         * Completes the read once every asked copy has answered.
+         *
+         * A failed master does not complete the read while the fallback to the replicas is still pending.
+         */
+        private void settle() {
+            if (done || outstanding > 0 || (fallbackPending && last == null)) {
+                return;
+            }
+            if (!finish()) {
+                release(last);
+                last = null;
+            } else if (last != null) {
+                parent.onNext(last);
+                parent.onCompleted();
+                last = null;
+            } else if (error != null) {
+                parent.onError(error);
+            } else {
+                parent.onError(new IllegalStateException("No replica available for key " + key));
+            }
+        }
+
+        /**
+         * Marks the read as done and cancels its timeout.
+         *
+         * @return true if the read completes now, false if the timeout fired first.
+         */
+        private boolean finish() {
+            done = true;
+            return request.cancelTimeout();
+        }
+
+        private static void release(final CouchbaseResponse response) {
+            if (response instanceof GetResponse) {
+                ReferenceCountUtil.release(((GetResponse) response).content());
+            }
+        }
+    }
+
+}
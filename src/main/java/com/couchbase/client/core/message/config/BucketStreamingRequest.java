@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.config;
+
+import com.couchbase.client.core.message.AbstractCouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import rx.subjects.PublishSubject;
+
+/**
+ * Request which opens a long-lived streaming connection for bucket configurations.
+ *
+ * The server keeps the chunked HTTP response open and pushes a new configuration whenever the topology changes.
+ * Every configuration is emitted as its own {@link BucketStreamingResponse} while the stream stays open, so the
+ * observable needs to be subscribed to right away. Note that the stream occupies its config endpoint for as long
+ * as it is open.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class BucketStreamingRequest extends AbstractCouchbaseRequest implements ConfigRequest {
+
+    /**
+     * The streaming path of the bucket.
+     */
+    private final String path;
+
+    /**
+     * The hostname of the node to stream from.
+     */
+    private final String hostname;
+
+    /**
+     * Creates a new {@link BucketStreamingRequest}.
+     *
+     * @param path the streaming path, as advertised through the bucket configuration.
+     * @param bucket the name of the bucket.
+     * @param password the password of the bucket.
+     * @param hostname the hostname of the node to stream from.
+     */
+    public BucketStreamingRequest(final String path, final String bucket, final String password,
+        final String hostname) {
+        super(bucket, password, PublishSubject.<CouchbaseResponse>create());
+        this.path = path;
+        this.hostname = hostname;
+    }
+
+    /**
+     * Returns the streaming path of the bucket.
+     *
+     * @return the path.
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the hostname of the node to stream from.
+     *
+     * @return the hostname.
+     */
+    public String hostname() {
+        return hostname;
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.config;
+
+import com.couchbase.client.core.message.AbstractCouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+
+/**
+ * A single bucket configuration received through a {@link BucketStreamingRequest}.
+ *
+ * Configurations pushed while the stream is open are {@link ResponseStatus#CHUNKED}. The last response signals
+ * the end of the stream and carries whatever content was left, which is the error body if the server rejected the
+ * request.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class BucketStreamingResponse extends AbstractCouchbaseResponse {
+
+    private final ByteBuf content;
+
+    public BucketStreamingResponse(final ResponseStatus status, final ByteBuf content) {
+        super(status);
+        this.content = content;
+    }
+
+    /**
+     * The raw configuration, which needs to be released once consumed.
+     *
+     * @return the raw configuration.
+     */
+    public ByteBuf content() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BucketStreamingResponse{");
+        sb.append("content=").append(content.toString(CharsetUtil.UTF_8));
+        sb.append(", status=").append(status());
+        sb.append('}');
+        return sb.toString();
+    }
+}
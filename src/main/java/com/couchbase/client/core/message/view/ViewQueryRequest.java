@@ -3,6 +3,7 @@ package com.couchbase.client.core.message.view;
 import com.couchbase.client.core.message.AbstractCouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
 import rx.subjects.ReplaySubject;
+import rx.subjects.Subject;
 
 public class ViewQueryRequest extends AbstractCouchbaseRequest implements ViewRequest {
 
@@ -16,7 +17,15 @@ public class ViewQueryRequest extends AbstractCouchbaseRequest implements ViewRe
     }
 
     public ViewQueryRequest(String design, String view, boolean development, String query, String bucket, String password) {
-        super(bucket, password, ReplaySubject.<CouchbaseResponse>create());
+        this(design, view, development, query, bucket, password, ReplaySubject.<CouchbaseResponse>create());
+    }
+
+    /**
+     * Creates a new {@link ViewQueryRequest} which streams its responses into the given observable.
+     */
+    public ViewQueryRequest(String design, String view, boolean development, String query, String bucket,
+        String password, Subject<CouchbaseResponse, CouchbaseResponse> observable) {
+        super(bucket, password, observable);
         this.design = design;
         this.view = view;
         this.query = query;
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Holds all registered {@link Gauge}s by name and samples them into their {@link GaugeSeries}.
+ *
+ * The components of the core register gauges for the remaining capacity of the RingBuffers, the number of
+ * in-flight requests per connection and the writability of every channel, which shows where requests pile up.
+ * Sampling is triggered periodically by the environment, see {@link #sample()}.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class GaugeMetrics {
+
+    /**
+     * The series by gauge name.
+     */
+    private final ConcurrentMap<String, GaugeSeries> series = new ConcurrentHashMap<String, GaugeSeries>();
+
+    /**
+     * The number of samples kept per gauge.
+     */
+    private final int history;
+
+    /**
+     * Creates a new {@link GaugeMetrics}.
+     *
+     * @param history the number of samples kept per gauge.
+     */
+    public GaugeMetrics(final int history) {
+        this.history = history;
+    }
+
+    /**
+     * Registers a gauge, replacing an existing one with the same name.
+     *
+     * @param name the name of the gauge.
+     * @param gauge the gauge.
+     */
+    public void register(final String name, final Gauge gauge) {
+        series.put(name, new GaugeSeries(gauge, history));
+    }
+
+    /**
+     * Removes a gauge and its samples.
+     *
+     * @param name the name of the gauge.
+     */
+    public void unregister(final String name) {
+        series.remove(name);
+    }
+
+    /**
+     * Removes all gauges whose name starts with the given prefix.
+     *
+     * @param prefix the common prefix of the gauge names.
+     */
+    public void unregisterAll(final String prefix) {
+        for (String name : series.keySet()) {
+            if (name.startsWith(prefix)) {
+                series.remove(name);
+            }
+        }
+    }
+
+    /**
+     * Returns the names of all registered gauges.
+     *
+     * @return the names.
+     */
+    public Set<String> names() {
+        return series.keySet();
+    }
+
+    /**
+     * Returns the series of the given gauge.
+     *
+     * @param name the name of the gauge.
+     * @return the series or null if no such gauge is registered.
+     */
+    public GaugeSeries series(final String name) {
+        return series.get(name);
+    }
+
+    /**
+     * Reads the live value of all gauges.
+     *
+     * @return the values by gauge name, sorted by name.
+     */
+    public Map<String, Long> values() {
+        Map<String, Long> values = new TreeMap<String, Long>();
+        for (Map.Entry<String, GaugeSeries> entry : series.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().current());
+        }
+        return values;
+    }
+
+    /**
+     * Samples all gauges at the current time.
+     */
+    public void sample() {
+        long now = System.currentTimeMillis();
+        for (GaugeSeries gauge : series.values()) {
+            gauge.sample(now);
+        }
+    }
+
+}
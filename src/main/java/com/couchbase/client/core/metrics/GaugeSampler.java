@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically samples the {@link GaugeMetrics} on the timer of the environment.
+ *
+ * The sampler reschedules itself after every run until the timer is stopped.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class GaugeSampler implements TimerTask {
+
+    private final GaugeMetrics gauges;
+    private final long interval;
+
+    /**
+     * Creates a new {@link GaugeSampler}.
+     *
+     * @param gauges the gauges to sample.
+     * @param interval the interval between samples in milliseconds.
+     */
+    public GaugeSampler(final GaugeMetrics gauges, final long interval) {
+        this.gauges = gauges;
+        this.interval = interval;
+    }
+
+    @Override
+    public void run(final Timeout timeout) throws Exception {
+        try {
+            gauges.sample();
+        } finally {
+            reschedule(timeout.timer());
+        }
+    }
+
+    /**
+     * Schedules the next run, unless the timer has been stopped in the meantime.
+     *
+     * @param timer the timer to schedule on.
+     */
+    private void reschedule(final Timer timer) {
+        try {
+            timer.newTimeout(this, interval, TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException ex) {
+            // The timer has been stopped, sampling ends with it.
+        }
+    }
+
+}
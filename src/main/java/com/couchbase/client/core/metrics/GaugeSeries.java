@@ -0,0 +1,137 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+/**
+ * A rolling time series of the samples of one {@link Gauge}.
+ *
+ * It keeps a fixed number of samples, once full the oldest sample is overwritten.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class GaugeSeries {
+
+    /**
+     * The sampled gauge.
+     */
+    private final Gauge gauge;
+
+    /**
+     * The time of every sample in milliseconds.
+     */
+    private final long[] timestamps;
+
+    /**
+     * The value of every sample.
+     */
+    private final long[] values;
+
+    /**
+     * The slot of the next sample.
+     */
+    private int next;
+
+    /**
+     * The number of samples kept.
+     */
+    private int size;
+
+    /**
+     * Creates a new {@link GaugeSeries}.
+     *
+     * @param gauge the gauge to sample.
+     * @param capacity the number of samples to keep.
+     */
+    public GaugeSeries(final Gauge gauge, final int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be > 0");
+        }
+        this.gauge = gauge;
+        this.timestamps = new long[capacity];
+        this.values = new long[capacity];
+    }
+
+    /**
+     * Returns the current value of the gauge.
+     *
+     * @return the live value, not a sample.
+     */
+    public long current() {
+        return gauge.value();
+    }
+
+    /**
+     * Samples the gauge.
+     *
+     * @param timestamp the time of the sample in milliseconds.
+     */
+    public synchronized void sample(final long timestamp) {
+        timestamps[next] = timestamp;
+        values[next] = gauge.value();
+        next = (next + 1) % values.length;
+        if (size < values.length) {
+            size++;
+        }
+    }
+
+    /**
+     * Returns the sampled values, oldest first.
+     *
+     * @return the values.
+     */
+    public synchronized long[] values() {
+        return ordered(values);
+    }
+
+    /**
+     * Returns the times of the samples in milliseconds, oldest first.
+     *
+     * @return the timestamps.
+     */
+    public synchronized long[] timestamps() {
+        return ordered(timestamps);
+    }
+
+    /**
+     * Returns the highest sampled value.
+     *
+     * @return the maximum or 0 if nothing has been sampled.
+     */
+    public synchronized long max() {
+        long max = size == 0 ? 0 : Long.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, values[i]);
+        }
+        return max;
+    }
+
+    private long[] ordered(final long[] samples) {
+        long[] copy = new long[size];
+        int start = size < samples.length ? 0 : next;
+        for (int i = 0; i < size; i++) {
+            copy[i] = samples[(start + i) % samples.length];
+        }
+        return copy;
+    }
+
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+/**
+ * An immutable point-in-time copy of a {@link LatencyHistogram}.
+ *
+ * All reported values are in microseconds and correspond to the upper bound of their bucket.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class HistogramSnapshot {
+
+    /**
+     * The empty snapshot.
+     */
+    public static final HistogramSnapshot EMPTY = new HistogramSnapshot(new long[LatencyHistogram.BUCKETS]);
+
+    /**
+     * The counts per bucket.
+     */
+    private final long[] counts;
+
+    /**
+     * The total number of recorded values.
+     */
+    private final long count;
+
+    HistogramSnapshot(final long[] counts) {
+        this.counts = counts;
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            total += counts[i];
+        }
+        this.count = total;
+    }
+
+    /**
+     * The number of recorded values.
+     *
+     * @return the number of values.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the value at the given percentile.
+     *
+     * @param percentile the percentile, between 0 and 100 (for example 99.9).
+     * @return the value in microseconds, 0 if nothing has been recorded.
+     */
+    public long percentile(final double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(Math.min(percentile, 100.0) / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return LatencyHistogram.highestValueAt(i);
+            }
+        }
+        return LatencyHistogram.MAX_VALUE;
+    }
+
+    /**
+     * The highest recorded value.
+     *
+     * @return the value in microseconds, 0 if nothing has been recorded.
+     */
+    public long max() {
+        return percentile(100.0);
+    }
+
+    /**
+     * The mean of all recorded values.
+     *
+     * @return the mean in microseconds, 0 if nothing has been recorded.
+     */
+    public double mean() {
+        if (count == 0) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] != 0) {
+                sum += (double) counts[i] * LatencyHistogram.highestValueAt(i);
+            }
+        }
+        return sum / count;
+    }
+
+    /**
+     * Merges this snapshot with another one.
+     *
+     * @param other the snapshot to merge with.
+     * @return a new snapshot containing the values of both.
+     */
+    public HistogramSnapshot merge(final HistogramSnapshot other) {
+        long[] merged = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            merged[i] = counts[i] + other.counts[i];
+        }
+        return new HistogramSnapshot(merged);
+    }
+
+    /**
+     * Returns the values which have been recorded since the given earlier snapshot of the same histogram.
+     *
+     * If the histogram has been reset in between, this snapshot is returned as a whole.
+     *
+     * @param previous the earlier snapshot.
+     * @return a new snapshot containing only the values recorded in between.
+     */
+    public HistogramSnapshot since(final HistogramSnapshot previous) {
+        long[] delta = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = counts[i] - previous.counts[i];
+            if (delta[i] < 0) {
+                return this;
+            }
+        }
+        return new HistogramSnapshot(delta);
+    }
+
+    @Override
+    public String toString() {
+        return "HistogramSnapshot{count=" + count + ", p50=" + percentile(50) + ", p99=" + percentile(99)
+            + ", p999=" + percentile(99.9) + ", max=" + max() + '}';
+    }
+
+}
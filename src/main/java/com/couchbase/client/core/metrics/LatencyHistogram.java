@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of latencies with a high dynamic range.
+ *
+ * Values are tracked in microseconds in log-linear buckets: every power of two is divided into 32 linear
+ * sub-buckets, so every recorded value is reported with a relative error of at most 1/32 (about 3%), from
+ * single microseconds up to roughly 19 hours. Larger values are clamped.
+ *
+ * Recording is a single atomic increment and can be done from any number of threads concurrently. A snapshot
+ * taken with reset swaps every bucket individually, so values recorded concurrently are either part of this or
+ * of the next snapshot, but never lost.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class LatencyHistogram {
+
+    /**
+     * The number of bits used for the linear sub-buckets of each power of two.
+     */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The largest value which can be tracked, in microseconds.
+     */
+    static final long MAX_VALUE = (1L << 36) - 1;
+
+    /**
+     * The total number of buckets.
+     */
+    static final int BUCKETS = indexFor(MAX_VALUE) + 1;
+
+    /**
+     * The counts per bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos the latency in nanoseconds.
+     */
+    public void record(final long nanos) {
+        long micros = nanos / 1000;
+        if (micros < 0) {
+            micros = 0;
+        } else if (micros > MAX_VALUE) {
+            micros = MAX_VALUE;
+        }
+        counts.incrementAndGet(indexFor(micros));
+    }
+
+    /**
+     * Takes a snapshot of the recorded latencies.
+     *
+     * @param reset if the buckets should be cleared at the same time.
+     * @return the snapshot.
+     */
+    public HistogramSnapshot snapshot(final boolean reset) {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = reset ? counts.getAndSet(i, 0) : counts.get(i);
+        }
+        return new HistogramSnapshot(copy);
+    }
+
+    /**
+     * Returns the bucket for the given value.
+     *
+     * Values below 64 get their own bucket, every power of two above is divided into 32 buckets.
+     *
+     * @param micros the value in microseconds.
+     * @return the index of the bucket.
+     */
+    static int indexFor(final long micros) {
+        int shift = Math.max(0, 64 - SUB_BUCKET_BITS - 1 - Long.numberOfLeadingZeros(micros));
+        return (shift << SUB_BUCKET_BITS) + (int) (micros >>> shift);
+    }
+
+    /**
+     * Returns the highest value which falls into the given bucket.
+     *
+     * @param index the index of the bucket.
+     * @return the highest value in microseconds.
+     */
+    static long highestValueAt(final int index) {
+        int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        long sub = index - (shift << SUB_BUCKET_BITS);
+        return ((sub + 1) << shift) - 1;
+    }
+
+}
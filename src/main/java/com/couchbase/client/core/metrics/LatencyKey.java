@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.service.ServiceType;
+
+/**
+ * Identifies a {@link LatencyHistogram} by operation, node, service and outcome.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class LatencyKey {
+
+    private final Class<? extends CouchbaseRequest> operation;
+    private final String hostname;
+    private final ServiceType service;
+    private final RequestOutcome outcome;
+
+    public LatencyKey(final Class<? extends CouchbaseRequest> operation, final String hostname,
+        final ServiceType service) {
+        this(operation, hostname, service, RequestOutcome.COMPLETED);
+    }
+
+    public LatencyKey(final Class<? extends CouchbaseRequest> operation, final String hostname,
+        final ServiceType service, final RequestOutcome outcome) {
+        this.operation = operation;
+        this.hostname = hostname;
+        this.service = service;
+        this.outcome = outcome;
+    }
+
+    /**
+     * The type of the request, for example a GetRequest.
+     *
+     * @return the request type.
+     */
+    public Class<? extends CouchbaseRequest> operation() {
+        return operation;
+    }
+
+    /**
+     * The hostname of the node the requests were dispatched to.
+     *
+     * @return the hostname.
+     */
+    public String hostname() {
+        return hostname;
+    }
+
+    /**
+     * The service which served the requests.
+     *
+     * @return the service type.
+     */
+    public ServiceType service() {
+        return service;
+    }
+
+    /**
+     * How the requests ended.
+     *
+     * @return the outcome.
+     */
+    public RequestOutcome outcome() {
+        return outcome;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        LatencyKey that = (LatencyKey) o;
+        return operation.equals(that.operation) && hostname.equals(that.hostname) && service == that.service
+            && outcome == that.outcome;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = operation.hashCode();
+        result = 31 * result + hostname.hashCode();
+        result = 31 * result + service.hashCode();
+        result = 31 * result + outcome.hashCode();
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return operation.getSimpleName() + '@' + hostname + '/' + service + '/' + outcome;
+    }
+
+}
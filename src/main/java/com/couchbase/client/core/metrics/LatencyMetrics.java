@@ -0,0 +1,242 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
+import com.couchbase.client.core.message.config.ConfigRequest;
+import com.couchbase.client.core.message.view.ViewRequest;
+import com.couchbase.client.core.service.ServiceType;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Collects the latencies of all requests, from the time they are sent into the cluster until their response
+ * completes the observable.
+ *
+ * The latencies are kept in one {@link LatencyHistogram} per operation, node and {@link RequestOutcome}, the service
+ * is implied by the type of the request. Requests which time out or fail are recorded as well, under their own
+ * outcome, so the tail of the latency is not hidden by only looking at completed requests. Requests which failed
+ * before they have been dispatched are recorded under {@link #UNDISPATCHED}. Once a histogram exists, recording into
+ * it does neither lock nor allocate. The recorded values can be collected periodically through
+ * {@link #snapshotAndReset()}.
+ *
+ * For requests with stage marks enabled, the time spent in every {@link RequestStage} is recorded as well, which
+ * breaks the latency down into queueing in the RingBuffers, on the event loops and on the network and server.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class LatencyMetrics {
+
+    /**
+     * The hostname under which requests are recorded which never have been dispatched to a node.
+     */
+    public static final String UNDISPATCHED = "undispatched";
+
+    /**
+     * All outcomes, indexed by their ordinal.
+     */
+    private static final RequestOutcome[] OUTCOMES = RequestOutcome.values();
+
+    /**
+     * All stages, indexed by their ordinal.
+     */
+    private static final RequestStage[] STAGES = RequestStage.values();
+
+    /**
+     * The histograms, by request type and hostname, indexed by the ordinal of their {@link RequestOutcome}.
+     */
+    private final ConcurrentMap<Class<? extends CouchbaseRequest>,
+        ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>>> histograms = new ConcurrentHashMap<
+            Class<? extends CouchbaseRequest>, ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>>>();
+
+    /**
+     * The histograms per stage, indexed by the ordinal of the {@link RequestStage} which ends the interval.
+     */
+    private final LatencyHistogram[] stages;
+
+    public LatencyMetrics() {
+        stages = new LatencyHistogram[STAGES.length];
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records the latency of a completed request.
+     *
+     * The latency is only recorded for requests which have been stamped with a send time, the stages only for
+     * requests with stage marks.
+     *
+     * @param request the completed request.
+     */
+    public void record(final CouchbaseRequest request) {
+        record(request, RequestOutcome.COMPLETED);
+    }
+
+    /**
+     * Records the time until the request ended with the given outcome.
+     *
+     * The latency is only recorded for requests which have been stamped with a send time, the stages only for
+     * completed requests with stage marks.
+     *
+     * @param request the request.
+     * @param outcome how the request ended.
+     */
+    public void record(final CouchbaseRequest request, final RequestOutcome outcome) {
+        long sendTime = request.sendTime();
+        if (sendTime != 0) {
+            String hostname = request.dispatchedTo();
+            histogram(request.getClass(), hostname == null ? UNDISPATCHED : hostname, outcome)
+                .record(System.nanoTime() - sendTime);
+        }
+        if (outcome == RequestOutcome.COMPLETED && request.markOf(RequestStage.COMPLETED) != 0) {
+            recordStages(request);
+        }
+    }
+
+    /**
+     * Records the time between every two consecutive stages the request has been marked at.
+     *
+     * @param request the completed request.
+     */
+    private void recordStages(final CouchbaseRequest request) {
+        long previous = request.markOf(STAGES[0]);
+        for (int i = 1; i < STAGES.length; i++) {
+            long current = request.markOf(STAGES[i]);
+            if (previous != 0 && current != 0 && current >= previous) {
+                stages[i].record(current - previous);
+            }
+            previous = current;
+        }
+    }
+
+    /**
+     * Takes a snapshot of all latencies recorded so far.
+     *
+     * @return the snapshot.
+     */
+    public LatencySnapshot snapshot() {
+        return snapshot(false);
+    }
+
+    /**
+     * Takes a snapshot of all latencies and resets the histograms, so that the next snapshot only contains the
+     * latencies recorded in between.
+     *
+     * @return the snapshot.
+     */
+    public LatencySnapshot snapshotAndReset() {
+        return snapshot(true);
+    }
+
+    private LatencySnapshot snapshot(final boolean reset) {
+        Map<LatencyKey, HistogramSnapshot> snapshots = new HashMap<LatencyKey, HistogramSnapshot>();
+        for (Map.Entry<Class<? extends CouchbaseRequest>, ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>>>
+            operation : histograms.entrySet()) {
+            ServiceType service = serviceTypeFor(operation.getKey());
+            for (Map.Entry<String, AtomicReferenceArray<LatencyHistogram>> node : operation.getValue().entrySet()) {
+                for (int i = 0; i < OUTCOMES.length; i++) {
+                    LatencyHistogram histogram = node.getValue().get(i);
+                    if (histogram != null) {
+                        snapshots.put(new LatencyKey(operation.getKey(), node.getKey(), service, OUTCOMES[i]),
+                            histogram.snapshot(reset));
+                    }
+                }
+            }
+        }
+        Map<RequestStage, HistogramSnapshot> stageSnapshots =
+            new EnumMap<RequestStage, HistogramSnapshot>(RequestStage.class);
+        for (int i = 1; i < STAGES.length; i++) {
+            stageSnapshots.put(STAGES[i], stages[i].snapshot(reset));
+        }
+        return new LatencySnapshot(snapshots, stageSnapshots);
+    }
+
+    /**
+     * Returns the histogram for the given operation, node and outcome, creating it if needed.
+     *
+     * @param operation the type of the request.
+     * @param hostname the hostname of the node.
+     * @param outcome how the request ended.
+     * @return the histogram.
+     */
+    private LatencyHistogram histogram(final Class<? extends CouchbaseRequest> operation, final String hostname,
+        final RequestOutcome outcome) {
+        ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>> nodes = histograms.get(operation);
+        if (nodes == null) {
+            nodes = new ConcurrentHashMap<String, AtomicReferenceArray<LatencyHistogram>>();
+            ConcurrentMap<String, AtomicReferenceArray<LatencyHistogram>> existing =
+                histograms.putIfAbsent(operation, nodes);
+            if (existing != null) {
+                nodes = existing;
+            }
+        }
+
+        AtomicReferenceArray<LatencyHistogram> outcomes = nodes.get(hostname);
+        if (outcomes == null) {
+            outcomes = new AtomicReferenceArray<LatencyHistogram>(OUTCOMES.length);
+            AtomicReferenceArray<LatencyHistogram> existing = nodes.putIfAbsent(hostname, outcomes);
+            if (existing != null) {
+                outcomes = existing;
+            }
+        }
+
+        int index = outcome.ordinal();
+        LatencyHistogram histogram = outcomes.get(index);
+        if (histogram == null) {
+            outcomes.compareAndSet(index, null, new LatencyHistogram());
+            histogram = outcomes.get(index);
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the service which serves the given type of request.
+     *
+     * Bulk and replica reads are not sent themselves, but fan out into binary requests, so they count as binary.
+     *
+     * @param operation the type of the request.
+     * @return the service type.
+     */
+    private static ServiceType serviceTypeFor(final Class<? extends CouchbaseRequest> operation) {
+        if (BinaryRequest.class.isAssignableFrom(operation) || BulkGetRequest.class.isAssignableFrom(operation)
+            || ReplicaReadRequest.class.isAssignableFrom(operation)) {
+            return ServiceType.BINARY;
+        } else if (ConfigRequest.class.isAssignableFrom(operation)) {
+            return ServiceType.CONFIG;
+        } else if (ViewRequest.class.isAssignableFrom(operation)) {
+            return ServiceType.VIEW;
+        } else {
+            throw new IllegalStateException("Unknown Request: " + operation);
+        }
+    }
+
+}
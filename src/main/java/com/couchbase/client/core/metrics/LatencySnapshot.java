@@ -0,0 +1,157 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.service.ServiceType;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * A point-in-time copy of all latency histograms of the {@link LatencyMetrics}.
+ *
+ * Next to the individual histograms, it merges them by node, operation, service or outcome, which allows to spot a
+ * slow node even if it serves all kinds of operations. The merged histograms cover all outcomes, unless merged by
+ * outcome. The time spent per {@link RequestStage} is only populated for
+ * requests with stage marks enabled.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class LatencySnapshot {
+
+    /**
+     * The individual histograms.
+     */
+    private final Map<LatencyKey, HistogramSnapshot> histograms;
+
+    /**
+     * The histograms per stage.
+     */
+    private final Map<RequestStage, HistogramSnapshot> stages;
+
+    LatencySnapshot(final Map<LatencyKey, HistogramSnapshot> histograms,
+        final Map<RequestStage, HistogramSnapshot> stages) {
+        this.histograms = Collections.unmodifiableMap(histograms);
+        this.stages = Collections.unmodifiableMap(stages);
+    }
+
+    /**
+     * Returns all individual histograms.
+     *
+     * @return the histograms by operation, node and service.
+     */
+    public Map<LatencyKey, HistogramSnapshot> histograms() {
+        return histograms;
+    }
+
+    /**
+     * Returns all latencies of the given node.
+     *
+     * @param hostname the hostname of the node.
+     * @return the merged histogram.
+     */
+    public HistogramSnapshot node(final String hostname) {
+        HistogramSnapshot merged = HistogramSnapshot.EMPTY;
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().hostname().equals(hostname)) {
+                merged = merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns all latencies of the given operation.
+     *
+     * @param operation the type of the request.
+     * @return the merged histogram.
+     */
+    public HistogramSnapshot operation(final Class<? extends CouchbaseRequest> operation) {
+        HistogramSnapshot merged = HistogramSnapshot.EMPTY;
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().operation().equals(operation)) {
+                merged = merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns all latencies of the given service.
+     *
+     * @param service the service type.
+     * @return the merged histogram.
+     */
+    public HistogramSnapshot service(final ServiceType service) {
+        HistogramSnapshot merged = HistogramSnapshot.EMPTY;
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().service() == service) {
+                merged = merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns all latencies of requests which ended with the given outcome.
+     *
+     * @param outcome the outcome.
+     * @return the merged histogram.
+     */
+    public HistogramSnapshot outcome(final RequestOutcome outcome) {
+        HistogramSnapshot merged = HistogramSnapshot.EMPTY;
+        for (Map.Entry<LatencyKey, HistogramSnapshot> entry : histograms.entrySet()) {
+            if (entry.getKey().outcome() == outcome) {
+                merged = merged.merge(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Returns the time spent in the given stage, that is between the previous stage and this one.
+     *
+     * @param stage the stage.
+     * @return the histogram of the stage.
+     */
+    public HistogramSnapshot stage(final RequestStage stage) {
+        HistogramSnapshot snapshot = stages.get(stage);
+        return snapshot == null ? HistogramSnapshot.EMPTY : snapshot;
+    }
+
+    /**
+     * Returns the time spent in all stages.
+     *
+     * @return the histograms by stage.
+     */
+    public Map<RequestStage, HistogramSnapshot> stages() {
+        return stages;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencySnapshot{histograms=" + histograms + ", stages=" + stages + '}';
+    }
+
+}
@@ -0,0 +1,55 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+/**
+ * How a request ended, recorded as its own dimension of the {@link LatencyMetrics}.
+ *
+ * Keeping the failures apart from the completed requests shows how long a client waits for a request which does
+ * not succeed, without skewing the latencies of the requests which do.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public enum RequestOutcome {
+
+    /**
+     * Completed by a response from the server, whatever its status.
+     */
+    COMPLETED,
+
+    /**
+     * Failed because its timeout has been reached before a response arrived.
+     */
+    TIMED_OUT,
+
+    /**
+     * Rejected with backpressure before it has been dispatched.
+     */
+    REJECTED,
+
+    /**
+     * Failed with any other error, for example because its retry budget is exhausted or its node is not connected.
+     */
+    FAILED
+
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+/**
+ * The stages a request passes through on its way to the server and back, in order.
+ *
+ * Requests with stage marks enabled record the time they reach every stage. The time spent in a stage is
+ * attributed to the stage which ends it, so {@link #DISPATCHED} for example covers the queueing in the request
+ * {@link com.lmax.disruptor.RingBuffer}.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public enum RequestStage {
+
+    /**
+     * Published into the request RingBuffer by the cluster.
+     */
+    PUBLISHED,
+
+    /**
+     * Picked up by the request handler and dispatched to its node.
+     */
+    DISPATCHED,
+
+    /**
+     * Handed to the endpoint, which writes it to the channel.
+     */
+    ENDPOINT,
+
+    /**
+     * Encoded on the IO thread of the channel.
+     */
+    ENCODED,
+
+    /**
+     * Flush of the channel issued.
+     */
+    FLUSHED,
+
+    /**
+     * First response decoded on the IO thread.
+     */
+    DECODED,
+
+    /**
+     * Response completed the observable.
+     */
+    COMPLETED
+
+}
@@ -166,6 +166,9 @@ public class CouchbaseNode extends AbstractStateMachine<LifecycleState> implemen
     @Override
     public Observable<Service> removeService(final RemoveServiceRequest request) {
         Service service = serviceRegistry.serviceBy(request.type(), request.bucket());
+        if (service == null) {
+            return Observable.empty();
+        }
         serviceRegistry.removeService(service, request.bucket());
         return Observable.from(service);
     }
@@ -0,0 +1,156 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A copy-on-write registry of all {@link Node}s managed by the client.
+ *
+ * Readers never block: they operate on an immutable snapshot which is read through a single volatile field. Writers
+ * (which only happen when the topology changes) serialize among themselves, copy the current snapshot and publish
+ * the modified one atomically.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class NodeRegistry {
+
+    /**
+     * The current, immutable view of the registered nodes.
+     */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    /**
+     * Returns all currently registered nodes.
+     *
+     * The returned array is shared and must not be modified by the caller.
+     *
+     * @return the registered nodes.
+     */
+    public Node[] nodes() {
+        return snapshot.nodes;
+    }
+
+    /**
+     * Returns the node with the given hostname.
+     *
+     * @param hostname the hostname of the node.
+     * @return the node or null if not registered.
+     */
+    public Node nodeBy(final String hostname) {
+        return snapshot.hostnames.get(hostname);
+    }
+
+    /**
+     * Checks if the given node is registered.
+     *
+     * @param node the node to check.
+     * @return true if registered, false otherwise.
+     */
+    public boolean contains(final Node node) {
+        return snapshot.indexOf(node) >= 0;
+    }
+
+    /**
+     * Returns the number of registered nodes.
+     *
+     * @return the number of nodes.
+     */
+    public int size() {
+        return snapshot.nodes.length;
+    }
+
+    /**
+     * Registers the given node if not already present.
+     *
+     * @param node the node to add.
+     * @return true if it has been added, false if it was already registered.
+     */
+    public synchronized boolean add(final Node node) {
+        Snapshot current = snapshot;
+        if (current.indexOf(node) >= 0) {
+            return false;
+        }
+        Node[] nodes = Arrays.copyOf(current.nodes, current.nodes.length + 1);
+        nodes[nodes.length - 1] = node;
+        snapshot = new Snapshot(nodes);
+        return true;
+    }
+
+    /**
+     * Removes the given node if registered.
+     *
+     * @param node the node to remove.
+     * @return true if it has been removed, false if it was not registered.
+     */
+    public synchronized boolean remove(final Node node) {
+        Snapshot current = snapshot;
+        int index = current.indexOf(node);
+        if (index < 0) {
+            return false;
+        }
+        Node[] nodes = new Node[current.nodes.length - 1];
+        System.arraycopy(current.nodes, 0, nodes, 0, index);
+        System.arraycopy(current.nodes, index + 1, nodes, index, nodes.length - index);
+        snapshot = new Snapshot(nodes);
+        return true;
+    }
+
+    /**
+     * An immutable point-in-time view of the registered nodes, including the hostname index.
+     */
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new Node[0]);
+
+        final Node[] nodes;
+        final Map<String, Node> hostnames;
+
+        Snapshot(final Node[] nodes) {
+            this.nodes = nodes;
+            if (nodes.length == 0) {
+                hostnames = Collections.emptyMap();
+            } else {
+                hostnames = new HashMap<String, Node>(nodes.length * 2);
+                for (Node node : nodes) {
+                    if (node.hostname() != null) {
+                        hostnames.put(node.hostname(), node);
+                    }
+                }
+            }
+        }
+
+        int indexOf(final Node node) {
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i].equals(node)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+}
@@ -7,11 +7,9 @@ import com.couchbase.client.core.config.MemcacheBucketConfig;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.binary.BinaryRequest;
 import com.couchbase.client.core.message.binary.GetBucketConfigRequest;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
 import com.couchbase.client.core.node.Node;
 
-import java.io.UnsupportedEncodingException;
-import java.util.Set;
-import java.util.zip.CRC32;
 
 /**
  * This {@link Locator} finds the proper {@link Node}s for every incoming {@link CouchbaseRequest}.
@@ -21,22 +19,52 @@ import java.util.zip.CRC32;
  */
 public class BinaryLocator implements Locator {
 
+    /**
+     * The current partition routing snapshot, replaced as a whole on every topology change.
+     */
+    private volatile RoutingTable routingTable = RoutingTable.EMPTY;
+
+    /**
+     * Replace the current {@link RoutingTable} with a freshly computed one.
+     *
+     * @param routingTable the new routing table.
+     */
+    public void routingTable(final RoutingTable routingTable) {
+        this.routingTable = routingTable;
+    }
+
     @Override
-    public Node[] locate(final CouchbaseRequest request, final Set<Node> nodes, final ClusterConfig cluster) {
+    public Node[] locate(final CouchbaseRequest request, final Node[] nodes, final ClusterConfig cluster) {
         if (request instanceof GetBucketConfigRequest) {
-            return nodes.toArray(new Node[nodes.size()]);
+            return locateByHostname((GetBucketConfigRequest) request, nodes);
         }
 
         BucketConfig bucket = cluster.bucketConfig(request.bucket());
         if (bucket instanceof CouchbaseBucketConfig) {
             return locateForCouchbaseBucket((BinaryRequest) request, nodes, (CouchbaseBucketConfig) bucket);
         } else if (bucket instanceof MemcacheBucketConfig) {
-            return locateForMemcacheBucket((BinaryRequest) request, nodes, (MemcacheBucketConfig) bucket);
+            return locateForMemcacheBucket((BinaryRequest) request, (MemcacheBucketConfig) bucket);
         } else {
             throw new IllegalStateException("Unsupported Bucket Type: " + bucket);
         }
     }
 
+    /**
+     * Locates the single {@link Node} a config is fetched from, instead of asking all nodes at once.
+     *
+     * @param request the config request.
+     * @param nodes the managed nodes.
+     * @return the node to send the request to.
+     */
+    private static Node[] locateByHostname(final GetBucketConfigRequest request, final Node[] nodes) {
+        for (Node node : nodes) {
+            if (node.hostname().equals(request.hostname())) {
+                return new Node[] { node };
+            }
+        }
+        throw new IllegalStateException("Node not found for request " + request);
+    }
+
     /**
      * Locates the proper {@link Node}s for a Couchbase bucket.
      *
@@ -45,21 +73,69 @@ public class BinaryLocator implements Locator {
      * @param config the bucket configuration.
      * @return an observable with one or more nodes to send the request to.
      */
-    private Node[] locateForCouchbaseBucket(final BinaryRequest request, final Set<Node> nodes,
+    private Node[] locateForCouchbaseBucket(final BinaryRequest request, final Node[] nodes,
         final CouchbaseBucketConfig config) {
-        String key = request.key();
+        int partitionId = request.encodedKey().partitionHash() & (config.numberOfPartitions() - 1);
+        request.partition((short) partitionId);
 
-        CRC32 crc32 = new CRC32();
-        try {
-            crc32.update(key.getBytes("UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+        if (request instanceof ReplicaGetRequest) {
+            return locateReplica((ReplicaGetRequest) request, partitionId, nodes, config);
         }
-        long rv = (crc32.getValue() >> 16) & 0x7fff;
-        int partitionId = (int) rv & config.partitions().size() - 1;
-        request.partition((short) partitionId);
 
-        int nodeId = config.partitions().get(partitionId).master();
+        RoutingTable.BucketRoute route = routingTable.route(request.bucket());
+        if (route != null && route.isFor(config)) {
+            Node[] target = route.masterTarget(partitionId);
+            if (target != null) {
+                return target;
+            }
+        }
+
+        int nodeId = config.nodeIndexForMaster(partitionId);
+        return nodeFor(request, nodeId, nodes, config);
+    }
+
+    /**
+     * Locates the {@link Node} which holds the requested replica of the partition.
+     *
+     * @param request the replica request.
+     * @param partitionId the partition of the document.
+     * @param nodes the managed nodes.
+     * @param config the bucket configuration.
+     * @return the node to send the request to.
+     */
+    private Node[] locateReplica(final ReplicaGetRequest request, final int partitionId, final Node[] nodes,
+        final CouchbaseBucketConfig config) {
+        int replica = request.replica();
+        if (replica >= config.numberOfReplicas()) {
+            throw new IllegalStateException("Replica " + replica + " is not configured for request " + request);
+        }
+
+        RoutingTable.BucketRoute route = routingTable.route(request.bucket());
+        if (route != null && route.isFor(config)) {
+            Node[] target = route.replicaTarget(replica, partitionId);
+            if (target != null) {
+                return target;
+            }
+        }
+
+        int nodeId = config.nodeIndexForReplica(partitionId, replica);
+        if (nodeId < 0) {
+            throw new IllegalStateException("Replica " + replica + " is not assigned for request " + request);
+        }
+        return nodeFor(request, nodeId, nodes, config);
+    }
+
+    /**
+     * Helper method to find the managed {@link Node} of a server list index.
+     *
+     * @param request the request.
+     * @param nodeId the index into the server list.
+     * @param nodes the managed nodes.
+     * @param config the bucket configuration.
+     * @return the node to send the request to.
+     */
+    private static Node[] nodeFor(final BinaryRequest request, final int nodeId, final Node[] nodes,
+        final CouchbaseBucketConfig config) {
         String hostname = config.partitionHosts().get(nodeId);
         for (Node node : nodes) {
             if (node.hostname().equals(hostname)) {
@@ -72,15 +148,29 @@ public class BinaryLocator implements Locator {
     /**
      * Locates the proper {@link Node}s for a Memcache bucket.
      *
+     * The ring is only read from the current {@link RoutingTable}, which builds it once per configuration. Until the
+     * table has caught up with a new configuration, the ring of the previous one is used.
+     *
      * @param request the request.
-     * @param nodes the managed nodes.
      * @param config the bucket configuration.
      * @return an observable with one or more nodes to send the request to.
      */
-    private Node[] locateForMemcacheBucket(final BinaryRequest request, final Set<Node> nodes,
-        final MemcacheBucketConfig config) {
-        // todo: ketama lookup
-        throw new UnsupportedOperationException("implement me");
+    private Node[] locateForMemcacheBucket(final BinaryRequest request, final MemcacheBucketConfig config) {
+        if (request instanceof ReplicaGetRequest) {
+            throw new IllegalStateException("Memcache buckets have no replicas to read from: " + request);
+        }
+        request.partition((short) 0);
+
+        KetamaRing ring = routingTable.ring(request.bucket());
+        if (ring == null) {
+            throw new IllegalStateException("No ketama ring built yet for request " + request);
+        }
+
+        Node[] target = ring.locate(request.encodedKey().ketamaHash());
+        if (target == null) {
+            throw new IllegalStateException("Node not found for request" + request);
+        }
+        return target;
     }
 
 }
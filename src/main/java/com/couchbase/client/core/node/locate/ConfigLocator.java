@@ -0,0 +1,50 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.config.BucketStreamingRequest;
+import com.couchbase.client.core.node.Node;
+
+/**
+ * This {@link Locator} finds the {@link Node} for config requests, which always name the node they are meant for.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public class ConfigLocator implements Locator {
+
+    @Override
+    public Node[] locate(final CouchbaseRequest request, final Node[] nodes, final ClusterConfig config) {
+        if (request instanceof BucketStreamingRequest) {
+            String hostname = ((BucketStreamingRequest) request).hostname();
+            for (Node node : nodes) {
+                if (node.hostname().equals(hostname)) {
+                    return new Node[] { node };
+                }
+            }
+            throw new IllegalStateException("Node not found for request " + request);
+        }
+        throw new IllegalArgumentException("Unknown Request Type: " + request);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.MemcacheBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.binary.KetamaHasher;
+import com.couchbase.client.core.node.Node;
+import com.couchbase.client.core.service.ServiceType;
+import io.netty.util.CharsetUtil;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * An immutable ketama ring which maps the keys of a memcache bucket onto its {@link Node}s.
+ *
+ * Every node is placed at 160 points derived from its address, the points are kept in a sorted primitive array
+ * with the owning nodes in a parallel array. Locating a key is a binary search for the first point at or after
+ * the hash of the key. The ring is rebuilt whenever the configuration or the set of managed nodes changes, so that
+ * only the keys of added or removed nodes move.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class KetamaRing {
+
+    /**
+     * The number of MD5 digests per node, each yielding four points.
+     */
+    private static final int DIGESTS_PER_NODE = 40;
+
+    /**
+     * The number of bits reserved for the node index when sorting the points.
+     */
+    private static final int NODE_BITS = 20;
+
+    /**
+     * The bucket configuration this ring has been computed from.
+     */
+    private final MemcacheBucketConfig config;
+
+    /**
+     * The sorted points on the ring.
+     */
+    private final long[] points;
+
+    /**
+     * The node owning each point, as a shared single-element target array.
+     */
+    private final Node[][] targets;
+
+    private KetamaRing(final MemcacheBucketConfig config, final long[] points, final Node[][] targets) {
+        this.config = config;
+        this.points = points;
+        this.targets = targets;
+    }
+
+    /**
+     * Builds the ring for the given bucket configuration and the currently managed nodes.
+     *
+     * Nodes of the configuration which are not managed (yet) are left out of the ring.
+     *
+     * @param config the bucket configuration.
+     * @param nodes the currently managed nodes.
+     * @return the created ring.
+     */
+    public static KetamaRing create(final MemcacheBucketConfig config, final Node[] nodes) {
+        List<NodeInfo> infos = config.nodes();
+        Node[][] owners = new Node[infos.size()][];
+        String[] addresses = new String[infos.size()];
+        int ringNodes = 0;
+        for (NodeInfo info : infos) {
+            for (Node node : nodes) {
+                if (node.hostname().equals(info.hostname())) {
+                    owners[ringNodes] = new Node[] { node };
+                    addresses[ringNodes] = info.hostname() + ":" + info.services().get(ServiceType.BINARY);
+                    ringNodes++;
+                    break;
+                }
+            }
+        }
+
+        int pointsPerNode = DIGESTS_PER_NODE * KetamaHasher.POINTS_PER_DIGEST;
+        long[] packed = new long[ringNodes * pointsPerNode];
+        int next = 0;
+        for (int n = 0; n < ringNodes; n++) {
+            for (int i = 0; i < DIGESTS_PER_NODE; i++) {
+                byte[] digest = KetamaHasher.digest((addresses[n] + "-" + i).getBytes(CharsetUtil.UTF_8));
+                for (int p = 0; p < KetamaHasher.POINTS_PER_DIGEST; p++) {
+                    packed[next++] = (KetamaHasher.point(digest, p) << NODE_BITS) | n;
+                }
+            }
+        }
+        Arrays.sort(packed);
+
+        long[] points = new long[packed.length];
+        Node[][] targets = new Node[packed.length][];
+        for (int i = 0; i < packed.length; i++) {
+            points[i] = packed[i] >>> NODE_BITS;
+            targets[i] = owners[(int) (packed[i] & ((1 << NODE_BITS) - 1))];
+        }
+        return new KetamaRing(config, points, targets);
+    }
+
+    /**
+     * Checks if this ring has been computed from the given configuration.
+     *
+     * @param config the configuration to check against.
+     * @return true if the ring is up to date with the config.
+     */
+    public boolean isFor(final MemcacheBucketConfig config) {
+        return this.config == config;
+    }
+
+    /**
+     * Locates the node for the given ketama hash of a key.
+     *
+     * The returned array is shared and must not be modified by the caller.
+     *
+     * @param hash the ketama hash of the key.
+     * @return the node as a single-element array or null if the ring is empty.
+     */
+    public Node[] locate(final long hash) {
+        if (points.length == 0) {
+            return null;
+        }
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -(index + 1);
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return targets[index];
+    }
+
+    /**
+     * The number of points on the ring.
+     *
+     * @return the number of points.
+     */
+    public int size() {
+        return points.length;
+    }
+
+}
@@ -4,9 +4,15 @@ import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.node.Node;
 
-import java.util.Set;
-
 public interface Locator {
 
-    Node[] locate(CouchbaseRequest request, Set<Node> nodes, ClusterConfig config);
+    /**
+     * Locates the target {@link Node}s for the given request.
+     *
+     * @param request the request to locate.
+     * @param nodes the currently managed nodes, must not be modified.
+     * @param config the current cluster configuration.
+     * @return one or more nodes to send the request to.
+     */
+    Node[] locate(CouchbaseRequest request, Node[] nodes, ClusterConfig config);
 }
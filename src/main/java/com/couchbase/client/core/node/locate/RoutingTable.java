@@ -0,0 +1,290 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.MemcacheBucketConfig;
+import com.couchbase.client.core.node.Node;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable snapshot which maps every partition of every open couchbase bucket directly to its {@link Node}s
+ * and holds the {@link KetamaRing} of every open memcache bucket.
+ *
+ * The table is rebuilt whenever the configuration or the set of managed nodes changes, so that locating the target
+ * of a request on the hot path is a plain array lookup without locking or hostname comparisons.
+ *
+ * @author Michael Nitschinger
+ * @since 1.0
+ */
+public final class RoutingTable {
+
+    /**
+     * A table with no routes at all, used before the first configuration arrives.
+     */
+    public static final RoutingTable EMPTY = new RoutingTable(Collections.<String, BucketRoute>emptyMap(),
+        Collections.<String, KetamaRing>emptyMap());
+
+    /**
+     * The routes for each bucket, identified by bucket name.
+     */
+    private final Map<String, BucketRoute> routes;
+
+    /**
+     * The ketama rings for each memcache bucket, identified by bucket name.
+     */
+    private final Map<String, KetamaRing> rings;
+
+    /**
+     * Creates a new {@link RoutingTable}.
+     *
+     * @param routes the routes per bucket.
+     * @param rings the ketama rings per bucket.
+     */
+    private RoutingTable(final Map<String, BucketRoute> routes, final Map<String, KetamaRing> rings) {
+        this.routes = routes;
+        this.rings = rings;
+    }
+
+    /**
+     * Builds a new {@link RoutingTable} from the given configuration and the currently managed nodes.
+     *
+     * Partitions whose node is not (yet) managed are mapped to null.
+     *
+     * @param config the current cluster configuration, may be null.
+     * @param nodes the currently managed nodes.
+     * @return the created routing table.
+     */
+    public static RoutingTable create(final ClusterConfig config, final Node[] nodes) {
+        if (config == null) {
+            return EMPTY;
+        }
+
+        Map<String, BucketRoute> routes = new HashMap<String, BucketRoute>();
+        Map<String, KetamaRing> rings = new HashMap<String, KetamaRing>();
+        for (Map.Entry<String, BucketConfig> bucket : config.bucketConfigs().entrySet()) {
+            if (bucket.getValue() instanceof CouchbaseBucketConfig) {
+                routes.put(bucket.getKey(), BucketRoute.create((CouchbaseBucketConfig) bucket.getValue(), nodes));
+            } else if (bucket.getValue() instanceof MemcacheBucketConfig) {
+                rings.put(bucket.getKey(), KetamaRing.create((MemcacheBucketConfig) bucket.getValue(), nodes));
+            }
+        }
+        return new RoutingTable(routes, rings);
+    }
+
+    /**
+     * Returns the route for the given bucket.
+     *
+     * @param bucket the name of the bucket.
+     * @return the route, or null if the bucket has none.
+     */
+    public BucketRoute route(final String bucket) {
+        return routes.get(bucket);
+    }
+
+    /**
+     * Returns the ketama ring for the given memcache bucket.
+     *
+     * @param bucket the name of the bucket.
+     * @return the ring, or null if the bucket has none.
+     */
+    public KetamaRing ring(final String bucket) {
+        return rings.get(bucket);
+    }
+
+    /**
+     * The partition to node mapping for a single couchbase bucket.
+     */
+    public static final class BucketRoute {
+
+        /**
+         * The bucket configuration this route has been computed from.
+         */
+        private final CouchbaseBucketConfig config;
+
+        /**
+         * The master node for each partition, indexed by partition id.
+         */
+        private final Node[] masters;
+
+        /**
+         * Shared single-element target arrays for each master, so that locating does not allocate.
+         */
+        private final Node[][] masterTargets;
+
+        /**
+         * The replica nodes for each partition, indexed by replica number and then partition id.
+         */
+        private final Node[][] replicas;
+
+        /**
+         * Shared single-element target arrays for each replica, indexed by replica number and then partition id.
+         */
+        private final Node[][][] replicaTargets;
+
+        /**
+         * Creates a new {@link BucketRoute}.
+         *
+         * @param config the bucket config.
+         * @param masters the master nodes.
+         * @param masterTargets the single-element target arrays of the master nodes.
+         * @param replicas the replica nodes.
+         * @param replicaTargets the single-element target arrays of the replica nodes.
+         */
+        private BucketRoute(final CouchbaseBucketConfig config, final Node[] masters, final Node[][] masterTargets,
+            final Node[][] replicas, final Node[][][] replicaTargets) {
+            this.config = config;
+            this.masters = masters;
+            this.masterTargets = masterTargets;
+            this.replicas = replicas;
+            this.replicaTargets = replicaTargets;
+        }
+
+        /**
+         * Computes the route for the given bucket configuration.
+         *
+         * @param config the bucket configuration.
+         * @param nodes the currently managed nodes.
+         * @return the computed route.
+         */
+        static BucketRoute create(final CouchbaseBucketConfig config, final Node[] nodes) {
+            List<String> hosts = config.partitionHosts();
+            Node[] hostNodes = new Node[hosts.size()];
+            Node[][] hostTargets = new Node[hosts.size()][];
+            for (int i = 0; i < hostNodes.length; i++) {
+                String hostname = hosts.get(i);
+                for (Node node : nodes) {
+                    if (node.hostname().equals(hostname)) {
+                        hostNodes[i] = node;
+                        hostTargets[i] = new Node[] { node };
+                        break;
+                    }
+                }
+            }
+
+            int numPartitions = config.numberOfPartitions();
+            int numReplicas = config.numberOfReplicas();
+            Node[] masters = new Node[numPartitions];
+            Node[][] masterTargets = new Node[numPartitions][];
+            Node[][] replicas = new Node[numReplicas][numPartitions];
+            Node[][][] replicaTargets = new Node[numReplicas][numPartitions][];
+            for (int i = 0; i < numPartitions; i++) {
+                short master = config.nodeIndexForMaster(i);
+                masters[i] = nodeAt(hostNodes, master);
+                if (masters[i] != null) {
+                    masterTargets[i] = hostTargets[master];
+                }
+                for (int r = 0; r < numReplicas; r++) {
+                    short replica = config.nodeIndexForReplica(i, r);
+                    replicas[r][i] = nodeAt(hostNodes, replica);
+                    if (replicas[r][i] != null) {
+                        replicaTargets[r][i] = hostTargets[replica];
+                    }
+                }
+            }
+            return new BucketRoute(config, masters, masterTargets, replicas, replicaTargets);
+        }
+
+        /**
+         * Helper method to safely resolve a server list index into a node.
+         *
+         * @param hostNodes the nodes by server list index.
+         * @param index the index, negative if not assigned.
+         * @return the node or null if not assigned or not managed.
+         */
+        private static Node nodeAt(final Node[] hostNodes, final int index) {
+            return index >= 0 && index < hostNodes.length ? hostNodes[index] : null;
+        }
+
+        /**
+         * Checks if this route has been computed from the given configuration.
+         *
+         * @param config the configuration to check against.
+         * @return true if the route is up to date with the config.
+         */
+        public boolean isFor(final CouchbaseBucketConfig config) {
+            return this.config == config;
+        }
+
+        /**
+         * Returns the master node for the given partition.
+         *
+         * @param partition the partition id.
+         * @return the master node or null if not managed.
+         */
+        public Node master(final int partition) {
+            return masters[partition];
+        }
+
+        /**
+         * Returns the master node for the given partition as a shared single-element array.
+         *
+         * The returned array must not be modified by the caller.
+         *
+         * @param partition the partition id.
+         * @return the master node array or null if not managed.
+         */
+        public Node[] masterTarget(final int partition) {
+            return masterTargets[partition];
+        }
+
+        /**
+         * Returns the replica node for the given partition.
+         *
+         * @param replica the number of the replica, starting at 0.
+         * @param partition the partition id.
+         * @return the replica node or null if not assigned or not managed.
+         */
+        public Node replica(final int replica, final int partition) {
+            return replica < replicas.length ? replicas[replica][partition] : null;
+        }
+
+        /**
+         * Returns the replica node for the given partition as a shared single-element array.
+         *
+         * The returned array must not be modified by the caller.
+         *
+         * @param replica the number of the replica, starting at 0.
+         * @param partition the partition id.
+         * @return the replica node array or null if not assigned or not managed.
+         */
+        public Node[] replicaTarget(final int replica, final int partition) {
+            return replica < replicaTargets.length ? replicaTargets[replica][partition] : null;
+        }
+
+        /**
+         * The number of partitions in this route.
+         *
+         * @return the number of partitions.
+         */
+        public int partitions() {
+            return masters.length;
+        }
+    }
+
+}
@@ -104,7 +104,7 @@ public abstract class AbstractService extends AbstractStateMachine<LifecycleStat
         }
         Endpoint endpoint = strategy.select(request, endpoints);
         if (endpoint == null) {
-            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request.observable());
+            responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, request, request);
         } else {
             endpoint.send(request);
         }
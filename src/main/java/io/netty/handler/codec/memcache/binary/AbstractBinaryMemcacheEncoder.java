@@ -19,7 +19,6 @@ import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.handler.codec.MessageToByteEncoder;
 import io.netty.handler.codec.memcache.AbstractMemcacheObjectEncoder;
-import io.netty.util.CharsetUtil;
 
 /**
  * A {@link MessageToByteEncoder} that encodes binary memache messages into bytes.
@@ -38,7 +37,7 @@ public abstract class AbstractBinaryMemcacheEncoder<M extends BinaryMemcacheMess
 
         encodeHeader(buf, msg);
         encodeExtras(buf, msg.getExtras());
-        encodeKey(buf, msg.getKey());
+        encodeKey(buf, msg.getKeyBytes());
 
         return buf;
     }
@@ -61,14 +60,14 @@ public abstract class AbstractBinaryMemcacheEncoder<M extends BinaryMemcacheMess
      * Encode the key.
      *
      * @param buf the {@link ByteBuf} to write into.
-     * @param key the key to encode.
+     * @param key the encoded key.
      */
-    private static void encodeKey(ByteBuf buf, String key) {
-        if (key == null || key.isEmpty()) {
+    private static void encodeKey(ByteBuf buf, byte[] key) {
+        if (key == null || key.length == 0) {
             return;
         }
 
-        buf.writeBytes(key.getBytes(CharsetUtil.UTF_8));
+        buf.writeBytes(key);
     }
 
     /**
@@ -17,6 +17,7 @@ package io.netty.handler.codec.memcache.binary;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.handler.codec.memcache.AbstractMemcacheObject;
+import io.netty.util.CharsetUtil;
 
 /**
  * Default implementation of a {@link BinaryMemcacheMessage}.
@@ -30,6 +31,11 @@ public abstract class AbstractBinaryMemcacheMessage
      */
     private String key;
 
+    /**
+     * Contains the optional encoded key.
+     */
+    private byte[] keyBytes;
+
     /**
      * Contains the optional extras.
      */
@@ -68,6 +74,21 @@ public abstract class AbstractBinaryMemcacheMessage
     @Override
     public BinaryMemcacheMessage setKey(String key) {
         this.key = key;
+        keyBytes = null;
+        return this;
+    }
+
+    @Override
+    public byte[] getKeyBytes() {
+        if (keyBytes == null && key != null) {
+            keyBytes = key.getBytes(CharsetUtil.UTF_8);
+        }
+        return keyBytes;
+    }
+
+    @Override
+    public BinaryMemcacheMessage setKeyBytes(byte[] keyBytes) {
+        this.keyBytes = keyBytes;
         return this;
     }
 
@@ -169,6 +169,22 @@ public interface BinaryMemcacheMessage extends MemcacheMessage {
      */
     BinaryMemcacheMessage setKey(String key);
 
+    /**
+     * Returns the UTF-8 encoded bytes of the optional key.
+     *
+     * If only the key itself has been set, it is encoded on demand.
+     *
+     * @return the encoded key of the document.
+     */
+    byte[] getKeyBytes();
+
+    /**
+     * Sets the already encoded bytes of the key, so they do not need to be encoded again.
+     *
+     * @param keyBytes the UTF-8 encoded key, which must match the key.
+     */
+    BinaryMemcacheMessage setKeyBytes(byte[] keyBytes);
+
     /**
      * Returns a {@link ByteBuf} representation of the optional extras.
      *
@@ -0,0 +1,100 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.cluster;
+
+import com.couchbase.client.core.cluster.ResponseEvent;
+import com.couchbase.client.core.cluster.ResponseEventFactory;
+import com.couchbase.client.core.cluster.ResponseHandler;
+import com.couchbase.client.core.cluster.RetryScheduler;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.GetResponse;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import rx.subjects.AsyncSubject;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the latency distribution of completing a small GET response through the response {@link RingBuffer}
+ * against completing it directly on the calling (IO) thread.
+ *
+ * Run in sample time mode to get the p99 and p999 of both paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseCompletionBenchmark {
+
+    private static final CouchbaseResponse RESPONSE =
+        new GetResponse(ResponseStatus.SUCCESS, 0, "key", Unpooled.EMPTY_BUFFER);
+
+    private ExecutorService executor;
+    private Disruptor<ResponseEvent> disruptor;
+    private RingBuffer<ResponseEvent> responseBuffer;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        executor = Executors.newSingleThreadExecutor();
+        disruptor = new Disruptor<ResponseEvent>(new ResponseEventFactory(), 16384, executor, ProducerType.MULTI,
+            new BlockingWaitStrategy());
+        disruptor.handleEventsWith(new ResponseHandler((RetryScheduler) null, new LatencyMetrics()));
+        responseBuffer = disruptor.start();
+    }
+
+    @TearDown
+    public void teardown() {
+        disruptor.shutdown();
+        executor.shutdown();
+    }
+
+    @GenerateMicroBenchmark
+    public CouchbaseResponse completeThroughRingBuffer() {
+        GetRequest request = new GetRequest("key", "bucket");
+        responseBuffer.publishEvent(ResponseHandler.RESPONSE_TRANSLATOR, RESPONSE, request);
+        return request.observable().toBlockingObservable().single();
+    }
+
+    @GenerateMicroBenchmark
+    public CouchbaseResponse completeDirectly() {
+        AsyncSubject<CouchbaseResponse> observable = AsyncSubject.create();
+        ResponseHandler.completeResponse(RESPONSE, observable);
+        return observable.toBlockingObservable().single();
+    }
+
+}
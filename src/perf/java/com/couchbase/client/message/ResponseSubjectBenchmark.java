@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.message;
+
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.ResponseSubject;
+import com.couchbase.client.core.message.binary.GetResponse;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.GenerateMicroBenchmark;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import rx.functions.Action1;
+import rx.subjects.AsyncSubject;
+import rx.subjects.Subject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares creating and completing the per-request {@link ResponseSubject} against an {@link AsyncSubject}, both
+ * without a subscriber and with a single callback subscribed.
+ *
+ * Run with the GC profiler to compare the allocation rate of both.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ResponseSubjectBenchmark {
+
+    private static final CouchbaseResponse RESPONSE =
+        new GetResponse(ResponseStatus.SUCCESS, 0, "key", Unpooled.EMPTY_BUFFER);
+
+    private static final Action1<CouchbaseResponse> CALLBACK = new Action1<CouchbaseResponse>() {
+        @Override
+        public void call(CouchbaseResponse response) {
+        }
+    };
+
+    @GenerateMicroBenchmark
+    public Object completeAsyncSubject() {
+        return complete(AsyncSubject.<CouchbaseResponse>create());
+    }
+
+    @GenerateMicroBenchmark
+    public Object completeResponseSubject() {
+        return complete(ResponseSubject.create());
+    }
+
+    @GenerateMicroBenchmark
+    public Object completeSubscribedAsyncSubject() {
+        Subject<CouchbaseResponse, CouchbaseResponse> subject = AsyncSubject.create();
+        subject.subscribe(CALLBACK);
+        return complete(subject);
+    }
+
+    @GenerateMicroBenchmark
+    public Object completeSubscribedResponseSubject() {
+        Subject<CouchbaseResponse, CouchbaseResponse> subject = ResponseSubject.create();
+        subject.subscribe(CALLBACK);
+        return complete(subject);
+    }
+
+    private static Object complete(final Subject<CouchbaseResponse, CouchbaseResponse> subject) {
+        subject.onNext(RESPONSE);
+        subject.onCompleted();
+        return subject;
+    }
+
+}
@@ -0,0 +1,135 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link AdmissionPolicy} implementations.
+ */
+public class AdmissionPolicyTest {
+
+    private RingBuffer<RequestEvent> ringBuffer;
+    private Sequence consumer;
+    private AdmissionStats stats;
+
+    @Before
+    public void setup() {
+        ringBuffer = RingBuffer.createMultiProducer(new RequestEventFactory(), 2);
+        consumer = new Sequence();
+        ringBuffer.addGatingSequences(consumer);
+        stats = new AdmissionStats();
+    }
+
+    @Test
+    public void shouldRejectRightAwayWhenFull() {
+        AdmissionPolicy policy = new FailFastAdmissionPolicy(ringBuffer, stats);
+
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+        assertFalse(policy.publish(new GetRequest("key", "bucket")));
+        assertEquals(2, stats.admitted());
+        assertEquals(0, stats.throttled());
+        assertEquals(1, stats.rejected());
+    }
+
+    @Test
+    public void shouldRejectAfterDeadlineWhenFull() {
+        AdmissionPolicy policy = new BlockingAdmissionPolicy(ringBuffer, stats, 10);
+        fill(policy);
+
+        assertFalse(policy.publish(new GetRequest("key", "bucket")));
+        assertEquals(1, stats.throttled());
+        assertEquals(1, stats.rejected());
+    }
+
+    @Test
+    public void shouldNotBlockWhenPublishingNow() {
+        AdmissionPolicy policy = new BlockingAdmissionPolicy(ringBuffer, stats, 10000);
+        fill(policy);
+
+        assertFalse(policy.publishNow(new GetRequest("key", "bucket")));
+        assertEquals(0, stats.throttled());
+        assertEquals(1, stats.rejected());
+    }
+
+    @Test
+    public void shouldBlockUntilDrained() {
+        AdmissionPolicy policy = new BlockingAdmissionPolicy(ringBuffer, stats, 10000);
+        fill(policy);
+        drainLater();
+
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+        assertEquals(3, stats.admitted());
+        assertEquals(1, stats.throttled());
+        assertEquals(0, stats.rejected());
+    }
+
+    @Test
+    public void shouldAdaptivelyBlockUntilDrained() {
+        AdaptiveAdmissionPolicy policy = new AdaptiveAdmissionPolicy(ringBuffer, stats, 10000, 1000, 1);
+        assertEquals(2, policy.limit());
+        fill(policy);
+        drainLater();
+
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+        assertEquals(1, stats.throttled());
+        assertEquals(0, stats.rejected());
+    }
+
+    @Test
+    public void shouldAdaptivelyRejectAfterDeadline() {
+        AdmissionPolicy policy = new AdaptiveAdmissionPolicy(ringBuffer, stats, 10, 1000, 1);
+        fill(policy);
+
+        assertFalse(policy.publish(new GetRequest("key", "bucket")));
+        assertEquals(1, stats.rejected());
+    }
+
+    private static void fill(final AdmissionPolicy policy) {
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+        assertTrue(policy.publish(new GetRequest("key", "bucket")));
+    }
+
+    private void drainLater() {
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                consumer.set(ringBuffer.getCursor());
+            }
+        }).start();
+    }
+
+}
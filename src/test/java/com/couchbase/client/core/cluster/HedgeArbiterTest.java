@@ -0,0 +1,129 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.GetResponse;
+import com.couchbase.client.core.message.view.ViewQueryRequest;
+import com.couchbase.client.core.message.view.ViewQueryResponse;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.Timeout;
+import org.junit.Test;
+import rx.subjects.Subject;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link HedgeArbiter}.
+ */
+public class HedgeArbiterTest {
+
+    @Test
+    public void shouldPassOnFirstAnswerAndReleaseOthers() {
+        GetRequest request = new GetRequest("key", "bucket");
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+        Subject<CouchbaseResponse, CouchbaseResponse> primary = arbiter.primary();
+        Subject<CouchbaseResponse, CouchbaseResponse> hedge = arbiter.hedge();
+
+        GetResponse winner = new GetResponse(ResponseStatus.SUCCESS, 1, "key", Unpooled.EMPTY_BUFFER);
+        hedge.onNext(winner);
+        hedge.onCompleted();
+        ByteBuf late = Unpooled.buffer();
+        primary.onNext(new GetResponse(ResponseStatus.SUCCESS, 1, "key", late));
+        primary.onCompleted();
+
+        assertSame(winner, request.observable().toBlockingObservable().single());
+        assertEquals(0, late.refCnt());
+        assertFalse(arbiter.open());
+        assertNull(arbiter.hedge());
+    }
+
+    @Test
+    public void shouldStreamAllChunksOfWinner() {
+        ViewQueryRequest request = new ViewQueryRequest("design", "view", false, "bucket", null);
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+        Subject<CouchbaseResponse, CouchbaseResponse> primary = arbiter.primary();
+        Subject<CouchbaseResponse, CouchbaseResponse> hedge = arbiter.hedge();
+
+        primary.onNext(new ViewQueryResponse(ResponseStatus.CHUNKED, 2, Unpooled.EMPTY_BUFFER));
+        ByteBuf discarded = Unpooled.buffer();
+        hedge.onNext(new ViewQueryResponse(ResponseStatus.CHUNKED, 2, discarded));
+        primary.onNext(new ViewQueryResponse(ResponseStatus.SUCCESS, 2, Unpooled.EMPTY_BUFFER));
+        primary.onCompleted();
+        hedge.onCompleted();
+
+        List<CouchbaseResponse> responses = request.observable().toList().toBlockingObservable().single();
+        assertEquals(2, responses.size());
+        assertEquals(0, discarded.refCnt());
+    }
+
+    @Test
+    public void shouldIgnoreErrorWhileOtherCopyIsOutstanding() {
+        GetRequest request = new GetRequest("key", "bucket");
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+        Subject<CouchbaseResponse, CouchbaseResponse> primary = arbiter.primary();
+        Subject<CouchbaseResponse, CouchbaseResponse> hedge = arbiter.hedge();
+
+        hedge.onError(new IllegalStateException());
+        assertTrue(arbiter.open());
+        primary.onNext(new GetResponse(ResponseStatus.SUCCESS, 1, "key", Unpooled.EMPTY_BUFFER));
+        primary.onCompleted();
+
+        assertEquals(ResponseStatus.SUCCESS, request.observable().toBlockingObservable().single().status());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailOnceNoCopyIsOutstanding() {
+        GetRequest request = new GetRequest("key", "bucket");
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+        arbiter.primary().onError(new IllegalStateException());
+
+        assertFalse(arbiter.open());
+        request.observable().toBlockingObservable().single();
+    }
+
+    @Test
+    public void shouldDiscardAnswersOfExpiredRequest() {
+        GetRequest request = new GetRequest("key", "bucket");
+        Timeout timeout = mock(Timeout.class);
+        when(timeout.cancel()).thenReturn(false);
+        request.timeoutHandle(timeout);
+        HedgeArbiter arbiter = new HedgeArbiter(request);
+
+        ByteBuf content = Unpooled.buffer();
+        arbiter.primary().onNext(new GetResponse(ResponseStatus.SUCCESS, 1, "key", content));
+        assertEquals(0, content.refCnt());
+        assertFalse(arbiter.open());
+    }
+
+}
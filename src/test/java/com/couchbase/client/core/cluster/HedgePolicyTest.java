@@ -0,0 +1,144 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.UpsertRequest;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link HedgePolicy}.
+ */
+public class HedgePolicyTest {
+
+    @Test
+    public void shouldDeriveDelayFromRecentLatencyOfNode() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        HedgePolicy policy = new HedgePolicy(metrics, 99.0, 100, 0.02, 1000);
+        record(metrics, "node1", 1, 1000);
+
+        assertEquals(0, policy.delayFor(GetRequest.class, "node1"));
+        policy.refresh();
+        long delay = policy.delayFor(GetRequest.class, "node1");
+        assertTrue(delay >= 990 && delay <= 1030);
+        assertEquals(0, policy.delayFor(GetRequest.class, "node2"));
+        assertEquals(0, policy.delayFor(UpsertRequest.class, "node1"));
+
+        record(metrics, "node1", 5000, 100);
+        policy.refresh();
+        assertTrue(policy.delayFor(GetRequest.class, "node1") >= 5000);
+    }
+
+    @Test
+    public void shouldKeepDelayWithoutEnoughSamples() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        HedgePolicy policy = new HedgePolicy(metrics, 50.0, 100, 0.02, 1000);
+        record(metrics, "node1", 1, 10);
+        policy.refresh();
+        assertEquals(0, policy.delayFor(GetRequest.class, "node1"));
+
+        record(metrics, "node1", 1, 100);
+        policy.refresh();
+        long delay = policy.delayFor(GetRequest.class, "node1");
+        assertTrue(delay >= 100);
+
+        record(metrics, "node1", 1000000, 1);
+        policy.refresh();
+        assertEquals(delay, policy.delayFor(GetRequest.class, "node1"));
+    }
+
+    @Test
+    public void shouldIncludeFailedRequestsInDelay() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        HedgePolicy policy = new HedgePolicy(metrics, 95.0, 100, 0.02, 1000);
+        record(metrics, "node1", 1, 90, RequestOutcome.COMPLETED);
+        record(metrics, "node1", 100000, 10, RequestOutcome.TIMED_OUT);
+        record(metrics, LatencyMetrics.UNDISPATCHED, 1, 100, RequestOutcome.REJECTED);
+
+        policy.refresh();
+        assertTrue(policy.delayFor(GetRequest.class, "node1") >= 100000);
+        assertEquals(0, policy.delayFor(GetRequest.class, LatencyMetrics.UNDISPATCHED));
+    }
+
+    @Test
+    public void shouldApplyMinDelay() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        HedgePolicy policy = new HedgePolicy(metrics, 99.0, 5000, 0.02, 1000);
+        record(metrics, "node1", 1, 200);
+        policy.refresh();
+        assertEquals(5000, policy.delayFor(GetRequest.class, "node1"));
+    }
+
+    @Test
+    public void shouldCapHedgesByBudget() {
+        HedgePolicy policy = new HedgePolicy(new LatencyMetrics(), 99.0, 0, 0.02, 1000);
+        for (int i = 0; i < 49; i++) {
+            policy.requested();
+        }
+        assertFalse(policy.tryHedge());
+
+        policy.requested();
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+
+        for (int i = 0; i < 50; i++) {
+            policy.requested();
+        }
+        assertTrue(policy.tryHedge());
+        assertFalse(policy.tryHedge());
+        assertEquals(2, policy.hedges());
+
+        policy.refresh();
+        assertEquals(50, policy.requests());
+        assertEquals(1, policy.hedges());
+    }
+
+    /**
+     * Records the given number of get latencies against a node.
+     */
+    private static void record(final LatencyMetrics metrics, final String hostname, final long startMicros,
+        final int count) {
+        record(metrics, hostname, startMicros, count, RequestOutcome.COMPLETED);
+    }
+
+    /**
+     * Records the given number of get latencies against a node, with the given outcome.
+     */
+    private static void record(final LatencyMetrics metrics, final String hostname, final long startMicros,
+        final int count, final RequestOutcome outcome) {
+        for (int i = 0; i < count; i++) {
+            GetRequest request = new GetRequest("key", "bucket");
+            request.sendTime(System.nanoTime() - TimeUnit.MICROSECONDS.toNanos(startMicros + i));
+            request.dispatchedTo(hostname);
+            metrics.record(request, outcome);
+        }
+    }
+
+}
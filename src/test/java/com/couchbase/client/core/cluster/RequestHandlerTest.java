@@ -21,24 +21,46 @@
  */
 package com.couchbase.client.core.cluster;
 
+import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.config.DefaultNodeInfo;
+import com.couchbase.client.core.config.NodeInfo;
 import com.couchbase.client.core.env.CouchbaseEnvironment;
 import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.binary.BinaryRequest;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.internal.AddServiceRequest;
 import com.couchbase.client.core.message.internal.SignalFlush;
 import com.couchbase.client.core.node.Node;
+import com.couchbase.client.core.node.NodeRegistry;
 import com.couchbase.client.core.node.locate.Locator;
+import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.state.LifecycleState;
+import org.junit.AfterClass;
 import org.junit.Test;
+import org.mockito.InOrder;
 import rx.Observable;
+import rx.subjects.BehaviorSubject;
+import rx.subjects.PublishSubject;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,11 +70,16 @@ import static org.mockito.Mockito.when;
 public class RequestHandlerTest {
 
     private static final Environment environment = new CouchbaseEnvironment();
+
+    @AfterClass
+    public static void shutdownEnvironment() {
+        environment.shutdown();
+    }
     private static final Observable<ClusterConfig> configObservable = Observable.from(mock(ClusterConfig.class));
 
     @Test
     public void shouldAddNodes() {
-        Set<Node> nodes = new HashSet<Node>();
+        NodeRegistry nodes = new NodeRegistry();
         RequestHandler handler = new RequestHandler(nodes, environment, configObservable, null);
 
         assertEquals(0, nodes.size());
@@ -64,7 +91,7 @@ public class RequestHandlerTest {
 
     @Test
     public void shouldIgnoreAlreadyAddedNode() throws Exception {
-        Set<Node> nodes = new HashSet<Node>();
+        NodeRegistry nodes = new NodeRegistry();
         RequestHandler handler = new RequestHandler(nodes, environment, configObservable, null);
 
         assertEquals(0, nodes.size());
@@ -78,7 +105,7 @@ public class RequestHandlerTest {
 
     @Test
     public void shouldRemoveNodes() {
-        Set<Node> nodes = new HashSet<Node>();
+        NodeRegistry nodes = new NodeRegistry();
         RequestHandler handler = new RequestHandler(nodes, environment, configObservable, null);
 
         Node node1 = mock(Node.class);
@@ -112,7 +139,7 @@ public class RequestHandlerTest {
 
     @Test
     public void shouldRemoveNodeEvenIfNotDisconnected() throws Exception {
-        Set<Node> nodes = new HashSet<Node>();
+        NodeRegistry nodes = new NodeRegistry();
         RequestHandler handler = new RequestHandler(nodes, environment, configObservable, null);
 
         Node node1 = mock(Node.class);
@@ -140,6 +167,142 @@ public class RequestHandlerTest {
         verify(mockNode).send(SignalFlush.INSTANCE);
     }
 
+    @Test
+    public void shouldFindNodeByHostname() {
+        NodeRegistry nodes = new NodeRegistry();
+        RequestHandler handler = new RequestHandler(nodes, environment, configObservable, null);
+
+        Node node1 = mock(Node.class);
+        when(node1.hostname()).thenReturn("192.168.56.101");
+        when(node1.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+        when(node1.disconnect()).thenReturn(Observable.just(LifecycleState.DISCONNECTED));
+        Node node2 = mock(Node.class);
+        when(node2.hostname()).thenReturn("192.168.56.102");
+        when(node2.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+
+        handler.addNode(node1).toBlockingObservable().single();
+        handler.addNode(node2).toBlockingObservable().single();
+        assertEquals(node1, handler.nodeBy("192.168.56.101"));
+        assertEquals(node2, handler.nodeBy("192.168.56.102"));
+        assertNull(handler.nodeBy("192.168.56.103"));
+        assertNull(handler.nodeBy(null));
+
+        handler.removeNode(node1).toBlockingObservable().single();
+        assertNull(handler.nodeBy("192.168.56.101"));
+        assertEquals(node2, handler.nodeBy("192.168.56.102"));
+    }
+
+    @Test
+    public void shouldDispatchBulkGetGroupedByNode() throws Exception {
+        final Node node1 = mock(Node.class);
+        when(node1.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+        final Node node2 = mock(Node.class);
+        when(node2.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+        RequestHandler handler = new RequestHandler(new NodeRegistry(), environment, configObservable, null) {
+            @Override
+            protected Locator locator(CouchbaseRequest request) {
+                return new Locator() {
+                    @Override
+                    public Node[] locate(CouchbaseRequest request, Node[] nodes, ClusterConfig config) {
+                        return new Node[] { ((BinaryRequest) request).key().startsWith("a") ? node1 : node2 };
+                    }
+                };
+            }
+        };
+        handler.addNode(node1).toBlockingObservable().single();
+        handler.addNode(node2).toBlockingObservable().single();
+
+        BulkGetRequest request = new BulkGetRequest(Arrays.asList("a1", "b1", "a2", "b2"), "bucket");
+        RequestEvent event = new RequestEvent();
+        event.setRequest(request);
+        handler.onEvent(event, 0, false);
+
+        GetRequest[] requests = request.requests();
+        InOrder inOrder = inOrder(node1, node2);
+        inOrder.verify(node1).send(requests[0]);
+        inOrder.verify(node1).send(requests[2]);
+        inOrder.verify(node1).send(SignalFlush.INSTANCE);
+        inOrder.verify(node2).send(requests[1]);
+        inOrder.verify(node2).send(requests[3]);
+        inOrder.verify(node2).send(SignalFlush.INSTANCE);
+        assertNull(event.getRequest());
+    }
+
+    @Test
+    public void shouldSignalOutdatedConfigWhenNodeLosesConnection() {
+        NodeRegistry nodes = new NodeRegistry();
+        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        RequestHandler handler = new RequestHandler(nodes, environment, configObservable, provider, null);
+
+        BehaviorSubject<LifecycleState> states = BehaviorSubject.create(LifecycleState.CONNECTED);
+        Node nodeMock = mock(Node.class);
+        when(nodeMock.connect()).thenReturn(Observable.just(LifecycleState.CONNECTED));
+        when(nodeMock.disconnect()).thenReturn(Observable.just(LifecycleState.DISCONNECTED));
+        when(nodeMock.states()).thenReturn(states);
+        handler.addNode(nodeMock).toBlockingObservable().single();
+        verify(provider, never()).signalOutdated();
+
+        states.onNext(LifecycleState.DEGRADED);
+        verify(provider, times(1)).signalOutdated();
+        states.onNext(LifecycleState.DISCONNECTED);
+        verify(provider, times(1)).signalOutdated();
+
+        states.onNext(LifecycleState.CONNECTED);
+        handler.removeNode(nodeMock).toBlockingObservable().single();
+        states.onNext(LifecycleState.DISCONNECTED);
+        verify(provider, times(1)).signalOutdated();
+    }
+
+    @Test
+    public void shouldRetryNodeWhoseAddFailed() {
+        PublishSubject<ClusterConfig> configs = PublishSubject.create();
+        final List<String> attempts = new ArrayList<String>();
+        RequestHandler handler = new RequestHandler(new NodeRegistry(), environment, configs, null) {
+            @Override
+            public Observable<LifecycleState> addNode(final String hostname) {
+                attempts.add(hostname);
+                if (attempts.size() == 1) {
+                    return Observable.error(new IllegalStateException("Connect failed"));
+                }
+                return Observable.just(LifecycleState.CONNECTED);
+            }
+
+            @Override
+            public Observable<Service> addService(final AddServiceRequest request) {
+                return Observable.empty();
+            }
+        };
+
+        configs.onNext(clusterConfig(bucket("default", "192.168.56.101")));
+        assertEquals(Arrays.asList("192.168.56.101"), attempts);
+
+        configs.onNext(clusterConfig(bucket("default", "192.168.56.101", "192.168.56.102")));
+        assertEquals(3, attempts.size());
+        assertTrue(attempts.subList(1, 3).containsAll(Arrays.asList("192.168.56.101", "192.168.56.102")));
+
+        configs.onNext(clusterConfig(bucket("default", "192.168.56.101", "192.168.56.102")));
+        assertEquals(3, attempts.size());
+    }
+
+    private static ClusterConfig clusterConfig(final BucketConfig bucket) {
+        Map<String, BucketConfig> buckets = Collections.singletonMap(bucket.name(), bucket);
+        ClusterConfig config = mock(ClusterConfig.class);
+        when(config.bucketConfigs()).thenReturn(buckets);
+        return config;
+    }
+
+    private static CouchbaseBucketConfig bucket(final String name, final String... hostnames) {
+        List<NodeInfo> nodes = new ArrayList<NodeInfo>();
+        for (String hostname : hostnames) {
+            nodes.add(new DefaultNodeInfo(null, hostname + ":8091", Collections.singletonMap("direct", 11210)));
+        }
+        CouchbaseBucketConfig config = mock(CouchbaseBucketConfig.class);
+        when(config.name()).thenReturn(name);
+        when(config.nodes()).thenReturn(nodes);
+        when(config.partitionHosts()).thenReturn(Arrays.asList(hostnames));
+        return config;
+    }
+
     /**
      * Helper class which implements a dummy locator for testing purposes.
      */
@@ -158,8 +321,8 @@ public class RequestHandlerTest {
 
         class DummyLocator implements Locator {
             @Override
-            public Node[] locate(CouchbaseRequest request, Set<Node> nodes, ClusterConfig config) {
-                return new Node[] { nodes.iterator().next() };
+            public Node[] locate(CouchbaseRequest request, Node[] nodes, ClusterConfig config) {
+                return new Node[] { nodes[0] };
             }
         }
     }
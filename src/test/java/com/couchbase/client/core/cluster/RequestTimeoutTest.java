@@ -0,0 +1,147 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.GetResponse;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
+import com.couchbase.client.core.message.binary.ReplicaMode;
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import com.couchbase.client.core.metrics.RequestOutcome;
+import io.netty.buffer.Unpooled;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the expiration of requests through the {@link RequestTimeout}.
+ */
+public class RequestTimeoutTest {
+
+    private static Timer timer;
+
+    @BeforeClass
+    public static void setup() {
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterClass
+    public static void teardown() {
+        timer.stop();
+    }
+
+    @Test(expected = RequestTimeoutException.class)
+    public void shouldFailExpiredRequest() {
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request), 10, TimeUnit.MILLISECONDS));
+
+        request.observable().toBlockingObservable().single();
+    }
+
+    @Test
+    public void shouldNotCancelExpiredRequest() throws Exception {
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request), 10, TimeUnit.MILLISECONDS));
+
+        Throwable error = request.observable().materialize().toBlockingObservable().first().getThrowable();
+        assertTrue(error instanceof RequestTimeoutException);
+        assertFalse(request.cancelTimeout());
+    }
+
+    @Test
+    public void shouldRecordExpiredRequest() throws Exception {
+        LatencyMetrics metrics = new LatencyMetrics();
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.sendTime(System.nanoTime());
+        request.dispatchedTo("node1");
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request, metrics), 10, TimeUnit.MILLISECONDS));
+
+        request.observable().materialize().toBlockingObservable().first();
+        assertEquals(1, metrics.snapshot().outcome(RequestOutcome.TIMED_OUT).count());
+        assertEquals(0, metrics.snapshot().outcome(RequestOutcome.COMPLETED).count());
+    }
+
+    @Test
+    public void shouldNotExpireCompletedBulkGet() throws Exception {
+        LatencyMetrics metrics = new LatencyMetrics();
+        BulkGetRequest request = new BulkGetRequest(Arrays.asList("a", "b"), "bucket");
+        request.sendTime(System.nanoTime());
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request, metrics), 50, TimeUnit.MILLISECONDS));
+
+        for (GetRequest child : request.requests()) {
+            child.observable().onNext(new GetResponse(ResponseStatus.SUCCESS, 0, child.key(), Unpooled.EMPTY_BUFFER));
+            child.observable().onCompleted();
+        }
+        assertEquals(2, request.observable().toList().toBlockingObservable().single().size());
+
+        Thread.sleep(100);
+        assertTrue(request.timeoutHandle().isCancelled());
+        assertEquals(0, metrics.snapshot().outcome(RequestOutcome.TIMED_OUT).count());
+    }
+
+    @Test
+    public void shouldNotExpireAnsweredReplicaRead() throws Exception {
+        LatencyMetrics metrics = new LatencyMetrics();
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.ALL_REPLICAS);
+        request.sendTime(System.nanoTime());
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request, metrics), 50, TimeUnit.MILLISECONDS));
+
+        ReplicaGetRequest[] replicas = request.replicas(2);
+        replicas[0].observable().onNext(new GetResponse(ResponseStatus.SUCCESS, 0, "key", Unpooled.EMPTY_BUFFER));
+        replicas[0].observable().onCompleted();
+        assertEquals(ResponseStatus.SUCCESS, request.observable().toBlockingObservable().single().status());
+
+        Thread.sleep(100);
+        assertTrue(request.timeoutHandle().isCancelled());
+        assertEquals(0, metrics.snapshot().outcome(RequestOutcome.TIMED_OUT).count());
+    }
+
+    @Test
+    public void shouldCancelPendingTimeout() throws Exception {
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request), 50, TimeUnit.MILLISECONDS));
+
+        assertTrue(request.cancelTimeout());
+        Thread.sleep(100);
+        assertTrue(request.timeoutHandle().isCancelled());
+    }
+
+    @Test
+    public void shouldCancelUntrackedRequest() {
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        assertTrue(request.cancelTimeout());
+    }
+
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.metrics.HistogramSnapshot;
+import com.couchbase.client.core.metrics.LatencyMetrics;
+import org.junit.Test;
+import rx.functions.Action1;
+import rx.subjects.ReplaySubject;
+import rx.subjects.Subject;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link ResponseHandler}.
+ */
+public class ResponseHandlerTest {
+
+    @Test
+    public void shouldCompleteResponse() throws Exception {
+        ResponseHandler handler = new ResponseHandler(mock(RetryScheduler.class), new LatencyMetrics());
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        CouchbaseResponse response = response(ResponseStatus.SUCCESS);
+
+        handler.onEvent(new ResponseEvent().setMessage(response).setRequest(request), 0, true);
+        assertEquals(response, request.observable().toBlockingObservable().single());
+    }
+
+    @Test
+    public void shouldRecordLatencyOfCompletedRequest() throws Exception {
+        LatencyMetrics metrics = new LatencyMetrics();
+        ResponseHandler handler = new ResponseHandler(mock(RetryScheduler.class), metrics);
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.sendTime(System.nanoTime());
+        request.dispatchedTo("node1");
+
+        handler.onEvent(new ResponseEvent().setMessage(response(ResponseStatus.SUCCESS)).setRequest(request), 0, true);
+        HistogramSnapshot snapshot = metrics.snapshot().node("node1");
+        assertEquals(1, snapshot.count());
+        assertEquals(0, metrics.snapshot().node("node2").count());
+    }
+
+    @Test
+    public void shouldStreamChunkedResponses() {
+        Subject<CouchbaseResponse, CouchbaseResponse> observable = ReplaySubject.create();
+        ResponseHandler.completeResponse(response(ResponseStatus.CHUNKED), observable);
+        ResponseHandler.completeResponse(response(ResponseStatus.CHUNKED), observable);
+        ResponseHandler.completeResponse(response(ResponseStatus.SUCCESS), observable);
+
+        List<CouchbaseResponse> responses = observable.toList().toBlockingObservable().single();
+        assertEquals(3, responses.size());
+        assertEquals(ResponseStatus.SUCCESS, responses.get(2).status());
+    }
+
+    @Test
+    public void shouldOnlyCompleteOwnPartitionInGroup() throws Exception {
+        RetryScheduler retryScheduler = mock(RetryScheduler.class);
+        ResponseHandler[] handlers = new ResponseHandler[] {
+            new ResponseHandler(retryScheduler, new LatencyMetrics(), 0, 2),
+            new ResponseHandler(retryScheduler, new LatencyMetrics(), 1, 2)
+        };
+
+        int completed = 0;
+        for (int i = 0; i < 16; i++) {
+            CouchbaseRequest request = new GetRequest("key" + i, "bucket");
+            final int[] calls = new int[1];
+            request.observable().subscribe(new Action1<CouchbaseResponse>() {
+                @Override
+                public void call(CouchbaseResponse response) {
+                    calls[0]++;
+                }
+            });
+            ResponseEvent event = new ResponseEvent()
+                .setMessage(response(ResponseStatus.SUCCESS))
+                .setRequest(request);
+            for (ResponseHandler handler : handlers) {
+                handler.onEvent(event, i, true);
+            }
+            assertEquals(1, calls[0]);
+            completed += calls[0];
+        }
+        assertEquals(16, completed);
+    }
+
+    @Test
+    public void shouldScheduleBouncedRequestForRetry() throws Exception {
+        RetryScheduler retryScheduler = mock(RetryScheduler.class);
+        ResponseHandler handler = new ResponseHandler(retryScheduler, new LatencyMetrics());
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+
+        handler.onEvent(new ResponseEvent().setMessage(request).setRequest(request), 0, true);
+        verify(retryScheduler).retry(request);
+    }
+
+    private static CouchbaseResponse response(final ResponseStatus status) {
+        CouchbaseResponse response = mock(CouchbaseResponse.class);
+        when(response.status()).thenReturn(status);
+        return response;
+    }
+}
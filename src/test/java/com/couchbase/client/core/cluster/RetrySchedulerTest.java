@@ -0,0 +1,145 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.cluster;
+
+import com.couchbase.client.core.config.ConfigurationProvider;
+import com.couchbase.client.core.env.Environment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.binary.GetRequest;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link RetryScheduler}.
+ */
+public class RetrySchedulerTest {
+
+    private static Timer timer;
+
+    private Cluster cluster;
+
+    @BeforeClass
+    public static void setupTimer() {
+        timer = new HashedWheelTimer(1, TimeUnit.MILLISECONDS);
+    }
+
+    @AfterClass
+    public static void teardownTimer() {
+        timer.stop();
+    }
+
+    @Before
+    public void setup() {
+        cluster = mock(Cluster.class);
+    }
+
+    @Test
+    public void shouldBackoffExponentiallyUpToMaxDelay() {
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(1, 100, 10));
+
+        assertEquals(1, scheduler.delayFor(1));
+        assertEquals(2, scheduler.delayFor(2));
+        assertEquals(64, scheduler.delayFor(7));
+        assertEquals(100, scheduler.delayFor(8));
+        assertEquals(100, scheduler.delayFor(100));
+    }
+
+    @Test
+    public void shouldDispatchAfterBackoff() {
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(10, 100, 10));
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+
+        scheduler.retry(request);
+        assertEquals(1, request.retryCount());
+        verify(cluster, timeout(1000)).trySend(request);
+        assertEquals(0, scheduler.parkedRequests());
+    }
+
+    @Test
+    public void shouldDispatchParkedRequestsOnRedispatch() throws Exception {
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(10000, 10000, 10));
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+
+        scheduler.retry(request);
+        assertEquals(1, scheduler.parkedRequests());
+        scheduler.redispatch();
+        verify(cluster).trySend(request);
+        assertEquals(0, scheduler.parkedRequests());
+    }
+
+    @Test(expected = RetryExhaustedException.class)
+    public void shouldFailWhenBudgetIsExhausted() {
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(1, 1, 1));
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+
+        scheduler.retry(request);
+        scheduler.retry(request);
+        request.observable().toBlockingObservable().single();
+    }
+
+    @Test
+    public void shouldDropExpiredRequests() throws Exception {
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(1, 1, 10));
+        CouchbaseRequest request = new GetRequest("key", "bucket");
+        request.timeoutHandle(timer.newTimeout(new RequestTimeout(request), 1, TimeUnit.MILLISECONDS));
+        request.observable().materialize().toBlockingObservable().first();
+        assertTrue(request.timeoutHandle().isExpired());
+
+        scheduler.retry(request);
+        assertEquals(0, scheduler.parkedRequests());
+        verify(cluster, never()).trySend(request);
+    }
+
+    @Test
+    public void shouldSignalOutdatedConfigOnRetry() {
+        ConfigurationProvider provider = mock(ConfigurationProvider.class);
+        RetryScheduler scheduler = new RetryScheduler(cluster, environment(10000, 10000, 10), provider);
+
+        scheduler.retry(new GetRequest("key", "bucket"));
+        verify(provider).signalOutdated();
+        scheduler.redispatch();
+    }
+
+    private static Environment environment(final long minDelay, final long maxDelay, final int budget) {
+        Environment environment = mock(Environment.class);
+        when(environment.timer()).thenReturn(timer);
+        when(environment.retryMinDelay()).thenReturn(minDelay);
+        when(environment.retryMaxDelay()).thenReturn(maxDelay);
+        when(environment.retryBudget()).thenReturn(budget);
+        return environment;
+    }
+
+}
@@ -0,0 +1,97 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link BucketConfigParser}.
+ */
+public class BucketConfigParserTest {
+
+    private static final String CONFIG = "{\"rev\":42,\"name\":\"default\",\"nodeLocator\":\"vbucket\","
+        + "\"uri\":\"/pools/default/buckets/default\",\"streamingUri\":\"/pools/default/bucketsStreaming/default\","
+        + "\"nodes\":[{\"couchApiBase\":\"http://$HOST:8092/default\",\"hostname\":\"$HOST:8091\","
+        + "\"ports\":{\"direct\":11210}}],\"vBucketServerMap\":{\"numReplicas\":0,"
+        + "\"serverList\":[\"$HOST:11210\"],\"vBucketMap\":[[0],[0]]}}";
+
+    @Test
+    public void shouldSubstituteHostWhileParsing() {
+        ByteBuf content = Unpooled.copiedBuffer(CONFIG, CharsetUtil.UTF_8);
+        BucketConfig config = BucketConfigParser.parse(content, "192.168.56.101");
+
+        assertTrue(config instanceof CouchbaseBucketConfig);
+        assertEquals("default", config.name());
+        assertEquals(42, config.rev());
+        assertEquals("192.168.56.101", config.nodes().get(0).hostname());
+        assertEquals("http://192.168.56.101:8092/default", config.nodes().get(0).viewUri());
+        assertEquals(Arrays.asList("192.168.56.101"), ((CouchbaseBucketConfig) config).partitionHosts());
+        assertEquals(0, content.readerIndex());
+        content.release();
+    }
+
+    @Test
+    public void shouldParseFromDirectBuffer() {
+        ByteBuf content = Unpooled.directBuffer();
+        content.writeBytes(CONFIG.getBytes(CharsetUtil.UTF_8));
+        BucketConfig config = BucketConfigParser.parse(content, "192.168.56.102");
+
+        assertEquals("192.168.56.102", config.nodes().get(0).hostname());
+        assertEquals(0, content.readerIndex());
+        content.release();
+    }
+
+    @Test
+    public void shouldReadRevisionAfterNestedFields() {
+        String config = "{\"name\":\"default\",\"nodes\":[{\"rev\":1}],\"vBucketServerMap\":{\"rev\":2},\"rev\":3}";
+        ByteBuf content = Unpooled.copiedBuffer(config, CharsetUtil.UTF_8);
+        assertEquals(3, BucketConfigParser.revision(content));
+        assertEquals(0, content.readerIndex());
+        content.release();
+    }
+
+    @Test
+    public void shouldReturnZeroWithoutRevision() {
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":\"default\"}", CharsetUtil.UTF_8);
+        assertEquals(0, BucketConfigParser.revision(content));
+        content.release();
+    }
+
+    @Test(expected = ConfigurationException.class)
+    public void shouldFailOnMalformedConfig() {
+        ByteBuf content = Unpooled.copiedBuffer("{\"name\":", CharsetUtil.UTF_8);
+        try {
+            BucketConfigParser.parse(content, "192.168.56.101");
+        } finally {
+            content.release();
+        }
+    }
+
+}
@@ -0,0 +1,140 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.message.internal.AddServiceRequest;
+import com.couchbase.client.core.message.internal.RemoveServiceRequest;
+import com.couchbase.client.core.service.ServiceType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link ConfigDiff}.
+ */
+public class ConfigDiffTest {
+
+    private static final Map<String, BucketConfig> NONE = Collections.emptyMap();
+
+    @Test
+    public void shouldAddEverythingOnFirstConfig() {
+        ConfigDiff diff = ConfigDiff.compute(NONE, buckets(bucket("default", "10.0.0.1", "10.0.0.2")), false);
+
+        assertEquals(2, diff.addedNodes().size());
+        assertTrue(diff.removedNodes().isEmpty());
+        assertEquals(4, diff.addedServices().size());
+        assertTrue(diff.removedServices().isEmpty());
+    }
+
+    @Test
+    public void shouldBeEmptyForSameTopology() {
+        ConfigDiff diff = ConfigDiff.compute(buckets(bucket("default", "10.0.0.1", "10.0.0.2")),
+            buckets(bucket("default", "10.0.0.1", "10.0.0.2")), false);
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void shouldRemoveNodeWhichLeft() {
+        ConfigDiff diff = ConfigDiff.compute(buckets(bucket("default", "10.0.0.1", "10.0.0.2")),
+            buckets(bucket("default", "10.0.0.1")), false);
+
+        assertEquals(Collections.singleton("10.0.0.2"), diff.removedNodes());
+        assertTrue(diff.addedNodes().isEmpty());
+        assertTrue(diff.addedServices().isEmpty());
+        assertTrue(diff.removedServices().isEmpty());
+    }
+
+    @Test
+    public void shouldOnlyAddBucketServicesForNewBucket() {
+        Map<String, BucketConfig> previous = buckets(bucket("default", "10.0.0.1"));
+        Map<String, BucketConfig> next = buckets(bucket("default", "10.0.0.1"), bucket("other", "10.0.0.1"));
+
+        ConfigDiff diff = ConfigDiff.compute(previous, next, false);
+        assertTrue(diff.addedNodes().isEmpty());
+        assertEquals(1, diff.addedServices().size());
+        AddServiceRequest added = diff.addedServices().get(0);
+        assertEquals(ServiceType.BINARY, added.type());
+        assertEquals("other", added.bucket());
+
+        ConfigDiff back = ConfigDiff.compute(next, previous, false);
+        assertEquals(1, back.removedServices().size());
+        RemoveServiceRequest removed = back.removedServices().get(0);
+        assertEquals(ServiceType.BINARY, removed.type());
+        assertEquals("other", removed.bucket());
+    }
+
+    @Test
+    public void shouldCountChangedPartitions() {
+        CouchbaseBucketConfig previous = bucket("default", "10.0.0.1", "10.0.0.2");
+        when(previous.numberOfReplicas()).thenReturn(1);
+        partitions(previous, new short[][] {{0, 1}, {1, 0}});
+        CouchbaseBucketConfig next = bucket("default", "10.0.0.1", "10.0.0.2");
+        when(next.numberOfReplicas()).thenReturn(1);
+        partitions(next, new short[][] {{0, 1}, {0, -1}});
+
+        ConfigDiff diff = ConfigDiff.compute(buckets(previous), buckets(next), false);
+        assertEquals(Integer.valueOf(1), diff.changedPartitions().get("default"));
+    }
+
+    private static Map<String, BucketConfig> buckets(final BucketConfig... configs) {
+        Map<String, BucketConfig> buckets = new HashMap<String, BucketConfig>();
+        for (BucketConfig config : configs) {
+            buckets.put(config.name(), config);
+        }
+        return buckets;
+    }
+
+    private static CouchbaseBucketConfig bucket(final String name, final String... hostnames) {
+        List<NodeInfo> nodes = new ArrayList<NodeInfo>();
+        for (String hostname : hostnames) {
+            nodes.add(new DefaultNodeInfo(null, hostname + ":8091", Collections.singletonMap("direct", 11210)));
+        }
+        CouchbaseBucketConfig config = mock(CouchbaseBucketConfig.class);
+        when(config.name()).thenReturn(name);
+        when(config.nodes()).thenReturn(nodes);
+        when(config.partitionHosts()).thenReturn(Arrays.asList(hostnames));
+        partitions(config, new short[][] {});
+        return config;
+    }
+
+    private static void partitions(final CouchbaseBucketConfig bucketMock, final short[][] map) {
+        when(bucketMock.numberOfPartitions()).thenReturn(map.length);
+        for (int i = 0; i < map.length; i++) {
+            when(bucketMock.nodeIndexForMaster(i)).thenReturn(map[i][0]);
+            for (int r = 1; r < map[i].length; r++) {
+                when(bucketMock.nodeIndexForReplica(i, r - 1)).thenReturn(map[i][r]);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,151 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link ConfigPoller}.
+ */
+public class ConfigPollerTest {
+
+    private DefaultConfigurationProvider provider;
+    private Timer timer;
+    private Timeout timeout;
+
+    @Before
+    public void setup() {
+        provider = mock(DefaultConfigurationProvider.class);
+        timer = mock(Timer.class);
+        timeout = mock(Timeout.class);
+        when(timeout.timer()).thenReturn(timer);
+        when(timer.newTimeout(any(TimerTask.class), anyLong(), any(TimeUnit.class))).thenReturn(timeout);
+    }
+
+    @Test
+    public void shouldAskOneNodePerBucketInRoundRobin() throws Exception {
+        BucketConfig config = bucket("default", "10.0.0.1", "10.0.0.2");
+        ClusterConfig cluster = cluster(config);
+        when(provider.config()).thenReturn(cluster);
+        ConfigPoller poller = new ConfigPoller(provider, 100, 1000);
+
+        poller.run(timeout);
+        poller.run(timeout);
+        poller.run(timeout);
+
+        InOrder order = inOrder(provider);
+        order.verify(provider).refresh(config, "10.0.0.1");
+        order.verify(provider).refresh(config, "10.0.0.2");
+        order.verify(provider).refresh(config, "10.0.0.1");
+    }
+
+    @Test
+    public void shouldBackOffWhileStable() throws Exception {
+        ClusterConfig cluster = cluster();
+        when(provider.config()).thenReturn(cluster);
+        when(timeout.cancel()).thenReturn(true);
+        ConfigPoller poller = new ConfigPoller(provider, 100, 1000);
+        poller.start(timer);
+        verify(timer).newTimeout(poller, 1000, TimeUnit.MILLISECONDS);
+
+        poller.signalOutdated();
+        assertEquals(100, poller.interval());
+        verify(timeout).cancel();
+
+        poller.run(timeout);
+        poller.run(timeout);
+        poller.run(timeout);
+        poller.run(timeout);
+        poller.run(timeout);
+        InOrder order = inOrder(timer);
+        order.verify(timer, times(2)).newTimeout(poller, 100, TimeUnit.MILLISECONDS);
+        order.verify(timer).newTimeout(poller, 200, TimeUnit.MILLISECONDS);
+        order.verify(timer).newTimeout(poller, 400, TimeUnit.MILLISECONDS);
+        order.verify(timer).newTimeout(poller, 800, TimeUnit.MILLISECONDS);
+        order.verify(timer).newTimeout(poller, 1000, TimeUnit.MILLISECONDS);
+        assertEquals(1000, poller.interval());
+    }
+
+    @Test
+    public void shouldStartOnlyOnce() {
+        ConfigPoller poller = new ConfigPoller(provider, 100, 1000);
+        poller.start(timer);
+        poller.start(timer);
+        verify(timer, times(1)).newTimeout(any(TimerTask.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldSkipBucketsWithoutNodes() throws Exception {
+        ClusterConfig cluster = cluster(bucket("default"));
+        when(provider.config()).thenReturn(cluster);
+        ConfigPoller poller = new ConfigPoller(provider, 100, 1000);
+
+        poller.run(timeout);
+        verify(provider, never()).refresh(any(BucketConfig.class), anyString());
+        verify(timer).newTimeout(eq(poller), eq(1000L), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private static BucketConfig bucket(final String name, final String... hostnames) {
+        BucketConfig config = mock(CouchbaseBucketConfig.class);
+        when(config.name()).thenReturn(name);
+        NodeInfo[] nodes = new NodeInfo[hostnames.length];
+        for (int i = 0; i < hostnames.length; i++) {
+            nodes[i] = new DefaultNodeInfo(null, hostnames[i] + ":8091", Collections.singletonMap("direct", 11210));
+        }
+        when(config.nodes()).thenReturn(Arrays.asList(nodes));
+        return config;
+    }
+
+    private static ClusterConfig cluster(final BucketConfig... configs) {
+        Map<String, BucketConfig> buckets = new HashMap<String, BucketConfig>();
+        for (BucketConfig config : configs) {
+            buckets.put(config.name(), config);
+        }
+        ClusterConfig cluster = mock(ClusterConfig.class);
+        when(cluster.bucketConfigs()).thenReturn(buckets);
+        return cluster;
+    }
+
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.couchbase.client.core.cluster.Cluster;
+import com.couchbase.client.core.env.Environment;
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.binary.GetBucketConfigRequest;
+import com.couchbase.client.core.message.binary.GetBucketConfigResponse;
+import com.couchbase.client.core.message.config.BucketStreamingRequest;
+import com.couchbase.client.core.message.internal.AddNodeRequest;
+import com.couchbase.client.core.message.internal.AddNodeResponse;
+import com.couchbase.client.core.message.internal.AddServiceRequest;
+import com.couchbase.client.core.message.internal.AddServiceResponse;
+import com.couchbase.client.core.message.internal.RemoveNodeRequest;
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import rx.Observable;
+import rx.subjects.PublishSubject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the bootstrap functionality of the {@link DefaultConfigurationProvider}.
+ */
+public class DefaultConfigurationProviderTest {
+
+    private static final String CONFIG = "{\"rev\":1,\"name\":\"default\",\"nodeLocator\":\"vbucket\","
+        + "\"nodes\":[{\"hostname\":\"$HOST:8091\",\"ports\":{\"direct\":11210}}],"
+        + "\"vBucketServerMap\":{\"numReplicas\":0,\"serverList\":[\"$HOST:11210\"],\"vBucketMap\":[[0]]}}";
+
+    private static final String ALIASED_CONFIG = CONFIG.replace("$HOST", "node2.example.com");
+
+    private Cluster cluster;
+    private Environment environment;
+    private List<CouchbaseRequest> sent;
+    private String config;
+    private String stalledHost;
+    private PublishSubject<AddServiceResponse> stalled;
+
+    @Before
+    public void setup() {
+        cluster = mock(Cluster.class);
+        environment = mock(Environment.class);
+        when(environment.bootstrapCarrierDirectPort()).thenReturn(11210);
+        when(environment.bootstrapHttpDirectPort()).thenReturn(8091);
+        when(environment.bootstrapCarrierStagger()).thenReturn(200L);
+        sent = Collections.synchronizedList(new ArrayList<CouchbaseRequest>());
+        config = CONFIG;
+        stalled = PublishSubject.create();
+    }
+
+    @Test
+    public void shouldTakeFirstSeedWithValidConfig() throws Exception {
+        respond("10.0.0.2");
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(cluster, environment);
+        provider.seedHosts(Arrays.asList("10.0.0.1", "10.0.0.2", "10.0.0.3"));
+
+        ClusterConfig config = provider.openBucket("default", "").toBlockingObservable().single();
+        Thread.sleep(400);
+
+        assertEquals("10.0.0.2", config.bucketConfig("default").nodes().get(0).hostname());
+        assertTrue(sentTo(RemoveNodeRequest.class, "10.0.0.1"));
+        assertFalse(sentTo(RemoveNodeRequest.class, "10.0.0.2"));
+        assertFalse(sentTo(AddNodeRequest.class, "10.0.0.3"));
+    }
+
+    @Test
+    public void shouldKeepWinningSeedIfConfigUsesOtherHostname() throws Exception {
+        config = ALIASED_CONFIG;
+        respond("10.0.0.2");
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(cluster, environment);
+        provider.seedHosts(Arrays.asList("10.0.0.1", "10.0.0.2"));
+
+        ClusterConfig config = provider.openBucket("default", "").toBlockingObservable().single();
+        Thread.sleep(100);
+
+        assertEquals("node2.example.com", config.bucketConfig("default").nodes().get(0).hostname());
+        assertTrue(sentTo(RemoveNodeRequest.class, "10.0.0.1"));
+        assertFalse(sentTo(RemoveNodeRequest.class, "10.0.0.2"));
+    }
+
+    @Test
+    public void shouldRemoveInFlightLoserOnlyAfterItTerminated() throws Exception {
+        stalledHost = "10.0.0.1";
+        respond("10.0.0.2");
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(cluster, environment);
+        provider.seedHosts(Arrays.asList("10.0.0.1", "10.0.0.2"));
+
+        provider.openBucket("default", "").toBlockingObservable().single();
+        Thread.sleep(100);
+        assertFalse(sentTo(RemoveNodeRequest.class, "10.0.0.1"));
+
+        stalled.onNext(new AddServiceResponse(ResponseStatus.SUCCESS, "10.0.0.1"));
+        stalled.onCompleted();
+        assertTrue(sentTo(RemoveNodeRequest.class, "10.0.0.1"));
+        assertFalse(sentTo(GetBucketConfigRequest.class, "10.0.0.1"));
+    }
+
+    @Test
+    public void shouldFallBackToHttpIfAllSeedsFail() {
+        respond(null);
+        DefaultConfigurationProvider provider = new DefaultConfigurationProvider(cluster, environment);
+        provider.seedHosts(Arrays.asList("10.0.0.1", "10.0.0.2"));
+
+        try {
+            provider.openBucket("default", "").toBlockingObservable().single();
+            fail("Bootstrap should have failed.");
+        } catch (ConfigurationException ex) {
+            assertTrue(sentTo(GetBucketConfigRequest.class, "10.0.0.1"));
+            assertTrue(sentTo(GetBucketConfigRequest.class, "10.0.0.2"));
+            assertTrue(sentTo(BucketStreamingRequest.class, "10.0.0.1"));
+        }
+    }
+
+    /**
+     * Answers every request sent to the mocked cluster, only the given host returns a valid config.
+     */
+    private void respond(final String healthy) {
+        Answer<Observable<?>> answer = new Answer<Observable<?>>() {
+            @Override
+            public Observable<?> answer(final InvocationOnMock invocation) {
+                CouchbaseRequest request = (CouchbaseRequest) invocation.getArguments()[0];
+                sent.add(request);
+                if (request instanceof AddNodeRequest) {
+                    return Observable.from(new AddNodeResponse(ResponseStatus.SUCCESS,
+                        ((AddNodeRequest) request).hostname()));
+                } else if (request instanceof AddServiceRequest) {
+                    if (((AddServiceRequest) request).hostname().equals(stalledHost)) {
+                        return stalled;
+                    }
+                    return Observable.from(new AddServiceResponse(ResponseStatus.SUCCESS,
+                        ((AddServiceRequest) request).hostname()));
+                } else if (request instanceof GetBucketConfigRequest) {
+                    String hostname = ((GetBucketConfigRequest) request).hostname();
+                    if (hostname.equals(healthy)) {
+                        return Observable.from(new GetBucketConfigResponse(ResponseStatus.SUCCESS,
+                            Unpooled.copiedBuffer(config, CharsetUtil.UTF_8), hostname));
+                    }
+                    return Observable.from(new GetBucketConfigResponse(ResponseStatus.FAILURE,
+                        Unpooled.EMPTY_BUFFER, hostname));
+                }
+                return Observable.empty();
+            }
+        };
+        when(cluster.send(any(CouchbaseRequest.class))).thenAnswer(answer);
+        when(cluster.trySend(any(CouchbaseRequest.class))).thenAnswer(answer);
+    }
+
+    private boolean sentTo(final Class<?> type, final String hostname) {
+        synchronized (sent) {
+            for (CouchbaseRequest request : sent) {
+                if (!type.isInstance(request)) {
+                    continue;
+                }
+                String target = null;
+                if (request instanceof AddNodeRequest) {
+                    target = ((AddNodeRequest) request).hostname();
+                } else if (request instanceof RemoveNodeRequest) {
+                    target = ((RemoveNodeRequest) request).hostname();
+                } else if (request instanceof GetBucketConfigRequest) {
+                    target = ((GetBucketConfigRequest) request).hostname();
+                } else if (request instanceof BucketStreamingRequest) {
+                    target = ((BucketStreamingRequest) request).hostname();
+                }
+                if (hostname.equals(target)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
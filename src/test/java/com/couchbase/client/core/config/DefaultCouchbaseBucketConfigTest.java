@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.config;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the parsing of the partition map in the {@link DefaultCouchbaseBucketConfig}.
+ */
+public class DefaultCouchbaseBucketConfigTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void shouldParsePartitionMap() throws Exception {
+        BucketConfig config = MAPPER.readValue(config("[[0,1],[1,0],[1,-1]]"), BucketConfig.class);
+        assertTrue(config instanceof CouchbaseBucketConfig);
+
+        CouchbaseBucketConfig bucket = (CouchbaseBucketConfig) config;
+        assertEquals(Arrays.asList("192.168.56.101", "192.168.56.102"), bucket.partitionHosts());
+        assertEquals(1, bucket.numberOfReplicas());
+        assertEquals(3, bucket.numberOfPartitions());
+        assertEquals(0, bucket.nodeIndexForMaster(0));
+        assertEquals(1, bucket.nodeIndexForReplica(0, 0));
+        assertEquals(1, bucket.nodeIndexForMaster(1));
+        assertEquals(0, bucket.nodeIndexForReplica(1, 0));
+        assertEquals(1, bucket.nodeIndexForMaster(2));
+        assertEquals(-1, bucket.nodeIndexForReplica(2, 0));
+        assertEquals(-1, bucket.nodeIndexForReplica(2, 1));
+    }
+
+    @Test
+    public void shouldParseEmptyPartitionMap() throws Exception {
+        CouchbaseBucketConfig bucket = (CouchbaseBucketConfig) MAPPER.readValue(config("[]"), BucketConfig.class);
+        assertEquals(0, bucket.numberOfPartitions());
+    }
+
+    @Test(expected = JsonMappingException.class)
+    public void shouldFailOnUnevenPartitionMap() throws Exception {
+        MAPPER.readValue(config("[[0,1],[1]]"), BucketConfig.class);
+    }
+
+    private static String config(final String partitionMap) {
+        return "{\"name\":\"default\",\"nodeLocator\":\"vbucket\",\"uri\":\"/pools/default/buckets/default\","
+            + "\"streamingUri\":\"/pools/default/bucketsStreaming/default\",\"nodes\":[],"
+            + "\"vBucketServerMap\":{\"hashAlgorithm\":\"CRC\",\"numReplicas\":1,"
+            + "\"serverList\":[\"192.168.56.101:11210\",\"192.168.56.102:11210\"],"
+            + "\"vBucketMap\":" + partitionMap + "}}";
+    }
+
+}
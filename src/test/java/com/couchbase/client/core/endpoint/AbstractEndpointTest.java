@@ -25,27 +25,44 @@ import com.couchbase.client.core.env.CouchbaseEnvironment;
 import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.message.CouchbaseRequest;
 import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.internal.SignalFlush;
 import com.couchbase.client.core.state.LifecycleState;
 import com.couchbase.client.core.state.NotConnectedException;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.channel.EventLoop;
 import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.Timeout;
+import org.junit.AfterClass;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import rx.Observable;
 import rx.functions.Action1;
 import rx.subjects.AsyncSubject;
 import rx.subjects.Subject;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -59,7 +76,12 @@ import static org.mockito.Mockito.when;
 public class AbstractEndpointTest {
 
     private final String hostname = "127.0.0.1";
-    private final Environment environment = new CouchbaseEnvironment();
+    private static final Environment environment = new CouchbaseEnvironment();
+
+    @AfterClass
+    public static void shutdownEnvironment() {
+        environment.shutdown();
+    }
     private final EmbeddedChannel channel = new EmbeddedChannel(new ChannelInboundHandlerAdapter());
 
     @Test
@@ -191,6 +213,152 @@ public class AbstractEndpointTest {
         assertTrue(channel.readOutbound() instanceof CouchbaseRequest);
     }
 
+    @Test
+    public void shouldFlushAtEndOfBatch() {
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap);
+        endpoint.connect().toBlockingObservable().single();
+
+        endpoint.send(mock(CouchbaseRequest.class));
+        endpoint.send(mock(CouchbaseRequest.class));
+        assertEquals(0, channel.outboundMessages().size());
+
+        endpoint.send(SignalFlush.INSTANCE);
+        endpoint.send(SignalFlush.INSTANCE);
+        assertEquals(2, channel.outboundMessages().size());
+        assertEquals(2, endpoint.writtenRequests());
+        assertEquals(1, endpoint.batchFlushes());
+        assertEquals(0, endpoint.thresholdFlushes());
+    }
+
+    @Test
+    public void shouldFlushWhenRequestThresholdReached() {
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, new FlushPolicy(2, Long.MAX_VALUE, 0));
+        endpoint.connect().toBlockingObservable().single();
+
+        endpoint.send(mock(CouchbaseRequest.class));
+        assertEquals(0, channel.outboundMessages().size());
+        endpoint.send(mock(CouchbaseRequest.class));
+        assertEquals(2, channel.outboundMessages().size());
+        assertEquals(1, endpoint.thresholdFlushes());
+
+        endpoint.send(SignalFlush.INSTANCE);
+        assertEquals(0, endpoint.batchFlushes());
+    }
+
+    @Test
+    public void shouldFlushOnEventLoopAfterLingerTime() throws Exception {
+        EventLoop eventLoop = environment.ioPool().next();
+        Channel lingering = lingeringChannel(eventLoop);
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(new DefaultChannelPromise(lingering, eventLoop).setSuccess());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, new FlushPolicy(Integer.MAX_VALUE, Long.MAX_VALUE,
+            50000));
+        endpoint.connect().toBlockingObservable().single();
+
+        endpoint.send(mock(CouchbaseRequest.class));
+        endpoint.send(mock(CouchbaseRequest.class));
+        verify(lingering, never()).flush();
+
+        verify(lingering, timeout(1000)).flush();
+        eventLoop.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).sync();
+        assertEquals(2, endpoint.writtenRequests());
+        assertEquals(1, endpoint.lingerFlushes());
+        assertEquals(0, endpoint.batchFlushes());
+    }
+
+    @Test
+    public void shouldFlushWriteQueuedBehindLingerFlush() {
+        final ManualEventLoop loop = new ManualEventLoop();
+        final Channel lingering = lingeringChannel(loop.eventLoop);
+        final List<String> operations = new ArrayList<String>();
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                if (loop.running) {
+                    operations.add("write");
+                } else {
+                    loop.tasks.add(new Runnable() {
+                        @Override
+                        public void run() {
+                            operations.add("write");
+                        }
+                    });
+                }
+                return null;
+            }
+        }).when(lingering).write(any(), any(ChannelPromise.class));
+        doAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(final InvocationOnMock invocation) {
+                operations.add("flush");
+                return null;
+            }
+        }).when(lingering).flush();
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(new DefaultChannelPromise(lingering, loop.eventLoop).setSuccess());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, new FlushPolicy(Integer.MAX_VALUE, Long.MAX_VALUE,
+            50000));
+        endpoint.connect();
+        loop.runTasks();
+        assertEquals(LifecycleState.CONNECTED, endpoint.state());
+
+        endpoint.send(mock(CouchbaseRequest.class));
+        loop.runTasks();
+        endpoint.send(mock(CouchbaseRequest.class));
+        loop.runScheduled();
+        loop.runTasks();
+        loop.runScheduled();
+
+        assertEquals(2, endpoint.writtenRequests());
+        assertEquals(Arrays.asList("write", "flush", "write", "flush"), operations);
+        assertEquals(2, endpoint.lingerFlushes());
+    }
+
+    @Test
+    public void shouldIgnoreSignalFlushWhileLingering() {
+        EventLoop eventLoop = environment.ioPool().next();
+        Channel lingering = lingeringChannel(eventLoop);
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(new DefaultChannelPromise(lingering, eventLoop).setSuccess());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap, new FlushPolicy(Integer.MAX_VALUE, Long.MAX_VALUE,
+            50000));
+        endpoint.connect().toBlockingObservable().single();
+
+        endpoint.send(mock(CouchbaseRequest.class));
+        endpoint.send(SignalFlush.INSTANCE);
+        verify(lingering, never()).flush();
+        assertEquals(0, endpoint.batchFlushes());
+
+        verify(lingering, timeout(1000)).flush();
+    }
+
+    @Test
+    public void shouldSkipExpiredRequests() {
+        BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
+        when(bootstrap.connect()).thenReturn(channel.newSucceededFuture());
+        AbstractEndpoint endpoint = new DummyEndpoint(bootstrap);
+        endpoint.connect().toBlockingObservable().single();
+
+        Timeout expired = mock(Timeout.class);
+        when(expired.isExpired()).thenReturn(true);
+        CouchbaseRequest request = mock(CouchbaseRequest.class);
+        when(request.timeoutHandle()).thenReturn(expired);
+        endpoint.send(request);
+        endpoint.send(SignalFlush.INSTANCE);
+
+        assertEquals(0, channel.outboundMessages().size());
+        assertEquals(0, endpoint.writtenRequests());
+        assertEquals(0, endpoint.batchFlushes());
+    }
+
     @Test(expected = NotConnectedException.class)
     public void shouldRejectMessageIfNotConnected() {
         BootstrapAdapter bootstrap = mock(BootstrapAdapter.class);
@@ -230,11 +398,79 @@ public class AbstractEndpointTest {
         assertEquals(LifecycleState.DISCONNECTED, states.get(4));
     }
 
+    /**
+     * Creates a writable channel on the given event loop which records its writes and flushes.
+     */
+    private static Channel lingeringChannel(final EventLoop eventLoop) {
+        Channel lingering = mock(Channel.class);
+        when(lingering.eventLoop()).thenReturn(eventLoop);
+        when(lingering.isWritable()).thenReturn(true);
+        return lingering;
+    }
+
+    /**
+     * A mocked event loop whose queued and scheduled tasks only run when the test says so.
+     */
+    static class ManualEventLoop {
+
+        final EventLoop eventLoop = mock(EventLoop.class);
+        final Queue<Runnable> tasks = new ArrayDeque<Runnable>();
+        final Queue<Runnable> scheduled = new ArrayDeque<Runnable>();
+        boolean running;
+
+        ManualEventLoop() {
+            when(eventLoop.inEventLoop()).thenAnswer(new Answer<Boolean>() {
+                @Override
+                public Boolean answer(final InvocationOnMock invocation) {
+                    return running;
+                }
+            });
+            doAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(final InvocationOnMock invocation) {
+                    tasks.add((Runnable) invocation.getArguments()[0]);
+                    return null;
+                }
+            }).when(eventLoop).execute(any(Runnable.class));
+            doAnswer(new Answer<Object>() {
+                @Override
+                public Object answer(final InvocationOnMock invocation) {
+                    scheduled.add((Runnable) invocation.getArguments()[0]);
+                    return null;
+                }
+            }).when(eventLoop).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+        }
+
+        void runTasks() {
+            run(tasks);
+        }
+
+        void runScheduled() {
+            run(scheduled);
+        }
+
+        private void run(final Queue<Runnable> queue) {
+            running = true;
+            try {
+                Runnable task;
+                while ((task = queue.poll()) != null) {
+                    task.run();
+                }
+            } finally {
+                running = false;
+            }
+        }
+    }
+
     static class DummyEndpoint extends AbstractEndpoint {
         DummyEndpoint(BootstrapAdapter adapter) {
             super("default", null, adapter);
         }
 
+        DummyEndpoint(BootstrapAdapter adapter, FlushPolicy flushPolicy) {
+            super("default", null, adapter, flushPolicy);
+        }
+
         DummyEndpoint(String hostname, Environment environment) {
             super(hostname, "default", null, 0, environment, null);
         }
@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.endpoint.binary;
+
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
+import com.couchbase.client.core.message.binary.UpsertRequest;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.memcache.binary.BinaryMemcacheRequest;
+import io.netty.handler.codec.memcache.binary.FullBinaryMemcacheRequest;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies the encoding of the {@link BinaryCodec}.
+ */
+public class BinaryCodecTest {
+
+    @Test
+    public void shouldUseEncodedKeyForGet() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryCodec());
+        GetRequest request = new GetRequest("k\u00fcche", "bucket");
+        request.partition((short) 1);
+
+        channel.writeOutbound(request);
+        BinaryMemcacheRequest encoded = (BinaryMemcacheRequest) channel.readOutbound();
+        assertEquals(6, encoded.getKeyLength());
+        assertEquals(6, encoded.getTotalBodyLength());
+        assertSame(request.encodedKey().bytes(), encoded.getKeyBytes());
+    }
+
+    @Test
+    public void shouldEncodeReplicaGet() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryCodec());
+        ReplicaGetRequest request = new ReplicaGetRequest("key", "bucket", 1);
+        request.partition((short) 12);
+
+        channel.writeOutbound(request);
+        BinaryMemcacheRequest encoded = (BinaryMemcacheRequest) channel.readOutbound();
+        assertEquals((byte) 0x83, encoded.getOpcode());
+        assertEquals(3, encoded.getKeyLength());
+        assertEquals(12, encoded.getReserved());
+    }
+
+    @Test
+    public void shouldCountKeyBytesInBodyLengthOfMutations() {
+        EmbeddedChannel channel = new EmbeddedChannel(new BinaryCodec());
+        UpsertRequest request = new UpsertRequest("k\u00fcche", Unpooled.copiedBuffer("value", CharsetUtil.UTF_8),
+            "bucket");
+        request.partition((short) 1);
+
+        channel.writeOutbound(request);
+        FullBinaryMemcacheRequest encoded = (FullBinaryMemcacheRequest) channel.readOutbound();
+        assertEquals(6, encoded.getKeyLength());
+        assertEquals(6 + 8 + 5, encoded.getTotalBodyLength());
+        encoded.release();
+        encoded.getExtras().release();
+    }
+}
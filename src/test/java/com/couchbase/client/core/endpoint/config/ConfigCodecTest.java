@@ -0,0 +1,225 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.endpoint.config;
+
+import com.couchbase.client.core.message.ResponseStatus;
+import com.couchbase.client.core.message.config.BucketStreamingRequest;
+import com.couchbase.client.core.message.config.BucketStreamingResponse;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the encoding and the incremental decoding of the {@link ConfigCodec}.
+ */
+public class ConfigCodecTest {
+
+    @Test
+    public void shouldEncodeStreamingRequest() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ConfigCodec());
+        channel.writeOutbound(new BucketStreamingRequest("/pools/default/bucketsStreaming/default", "default",
+            "pass", "127.0.0.1"));
+
+        HttpRequest request = (HttpRequest) channel.readOutbound();
+        assertEquals("/pools/default/bucketsStreaming/default", request.getUri());
+        assertEquals("127.0.0.1", request.headers().get(HttpHeaders.Names.HOST));
+        assertEquals("Basic ZGVmYXVsdDpwYXNz", request.headers().get(HttpHeaders.Names.AUTHORIZATION));
+    }
+
+    @Test
+    public void shouldSplitConfigsAcrossChunks() {
+        EmbeddedChannel channel = streamingChannel();
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(content("{\"rev\":1}\n\n"));
+        assertNull(channel.readInbound());
+        channel.writeInbound(content("\n\n{\"rev\":2}\n\n\n\n\n\n\n\n{\"re"));
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":1}");
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":2}");
+        assertNull(channel.readInbound());
+
+        channel.writeInbound(content("v\":3}\n\n\n\n"));
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":3}");
+        channel.writeInbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        assertConfig(channel, ResponseStatus.SUCCESS, "");
+    }
+
+    @Test
+    public void shouldKeepConfigsWhileStreamContinues() {
+        EmbeddedChannel channel = streamingChannel();
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(content("{\"rev\":1}\n\n\n\n{\"rev\":2}\n\n\n\n{\"re"));
+        BucketStreamingResponse first = (BucketStreamingResponse) channel.readInbound();
+        BucketStreamingResponse second = (BucketStreamingResponse) channel.readInbound();
+
+        channel.writeInbound(content("v\":3}\n\n\n\n{\"rev\":4}\n\n\n\n"));
+        assertResponse(first, ResponseStatus.CHUNKED, "{\"rev\":1}");
+        assertResponse(second, ResponseStatus.CHUNKED, "{\"rev\":2}");
+        assertEquals(0, first.content().refCnt());
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":3}");
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":4}");
+    }
+
+    @Test
+    public void shouldFailOnErrorStatus() {
+        EmbeddedChannel channel = streamingChannel();
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.UNAUTHORIZED));
+        channel.writeInbound(new DefaultLastHttpContent(Unpooled.copiedBuffer("Unauthorized", CharsetUtil.UTF_8)));
+        assertConfig(channel, ResponseStatus.FAILURE, "Unauthorized");
+    }
+
+    @Test
+    public void shouldFailStreamWhenChannelCloses() {
+        EmbeddedChannel channel = streamingChannel();
+        channel.writeInbound(new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK));
+        channel.writeInbound(content("{\"rev\":1}\n\n\n\n{\"rev\""));
+        assertConfig(channel, ResponseStatus.CHUNKED, "{\"rev\":1}");
+
+        channel.finish();
+        assertConfig(channel, ResponseStatus.FAILURE, "");
+    }
+
+    @Test
+    public void shouldStreamFromHttpServer() throws Exception {
+        EventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            Channel server = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline().addLast(new HttpServerCodec()).addLast(new StreamingServerHandler());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+
+            final BlockingQueue<BucketStreamingResponse> responses = new LinkedBlockingQueue<BucketStreamingResponse>();
+            Channel client = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) throws Exception {
+                        ch.pipeline()
+                            .addLast(new HttpClientCodec())
+                            .addLast(new ConfigCodec())
+                            .addLast(new SimpleChannelInboundHandler<BucketStreamingResponse>() {
+                                @Override
+                                protected void channelRead0(ChannelHandlerContext ctx,
+                                    BucketStreamingResponse msg) throws Exception {
+                                    responses.add(msg);
+                                }
+                            });
+                    }
+                })
+                .connect(server.localAddress()).sync().channel();
+
+            int port = ((InetSocketAddress) server.localAddress()).getPort();
+            client.writeAndFlush(new BucketStreamingRequest("/pools/default/bucketsStreaming/default", "default",
+                "", "127.0.0.1:" + port));
+
+            assertResponse(responses.poll(5, TimeUnit.SECONDS), ResponseStatus.CHUNKED, "{\"rev\":1}");
+            assertResponse(responses.poll(5, TimeUnit.SECONDS), ResponseStatus.CHUNKED, "{\"rev\":2}");
+            assertResponse(responses.poll(5, TimeUnit.SECONDS), ResponseStatus.SUCCESS, "");
+
+            client.close().sync();
+            server.close().sync();
+        } finally {
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static EmbeddedChannel streamingChannel() {
+        EmbeddedChannel channel = new EmbeddedChannel(new ConfigCodec());
+        channel.writeOutbound(new BucketStreamingRequest("/pools/default/bucketsStreaming/default", "default", "",
+            "127.0.0.1"));
+        channel.readOutbound();
+        return channel;
+    }
+
+    private static DefaultHttpContent content(final String content) {
+        return new DefaultHttpContent(Unpooled.copiedBuffer(content, CharsetUtil.UTF_8));
+    }
+
+    private static void assertConfig(final EmbeddedChannel channel, final ResponseStatus status,
+        final String content) {
+        assertResponse((BucketStreamingResponse) channel.readInbound(), status, content);
+    }
+
+    private static void assertResponse(final BucketStreamingResponse response, final ResponseStatus status,
+        final String content) {
+        assertEquals(status, response.status());
+        assertEquals(content, response.content().toString(CharsetUtil.UTF_8));
+        response.content().release();
+    }
+
+    /**
+     * Stands in for the streaming config endpoint of a server: pushes two configurations cut at odd boundaries.
+     */
+    static class StreamingServerHandler extends SimpleChannelInboundHandler<Object> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (!(msg instanceof HttpRequest)) {
+                return;
+            }
+            HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+            HttpHeaders.setTransferEncodingChunked(response);
+            ctx.write(response);
+            ctx.writeAndFlush(content("{\"rev\":1}\n\n\n\n{\"rev\""));
+            ctx.writeAndFlush(content(":2}\n\n\n\n"));
+            ctx.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT);
+        }
+    }
+
+}
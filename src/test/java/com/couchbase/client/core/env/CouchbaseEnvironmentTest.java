@@ -1,10 +1,16 @@
 package com.couchbase.client.core.env;
 
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigFactory;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class CouchbaseEnvironmentTest {
 
@@ -27,6 +33,72 @@ public class CouchbaseEnvironmentTest {
         }
     }
 
+    @Test
+    public void shouldLoadDefaultTimeouts() {
+        ConfigFactory.invalidateCaches();
+        CouchbaseEnvironment env = new CouchbaseEnvironment();
+        assertEquals(2500, env.binaryTimeout());
+        assertEquals(5000, env.configTimeout());
+        assertEquals(75000, env.viewTimeout());
+        env.shutdown();
+    }
+
+    @Test
+    public void shouldCreateTimerOnlyOnce() {
+        ConfigFactory.invalidateCaches();
+        CouchbaseEnvironment env = new CouchbaseEnvironment();
+        try {
+            assertNotNull(env.timer());
+            assertSame(env.timer(), env.timer());
+            assertSame(env.gaugeMetrics(), env.gaugeMetrics());
+            env.start();
+            env.start();
+        } finally {
+            env.shutdown();
+        }
+    }
+
+    @Test(expected = EnvironmentException.class)
+    public void shouldRejectRequestShardsNotPowerOfTwo() {
+        System.setProperty("com.couchbase.client.core.requestShards", "3");
+        try {
+            ConfigFactory.invalidateCaches();
+            CouchbaseEnvironment env = new CouchbaseEnvironment();
+            env.requestShards();
+        } finally {
+            System.clearProperty("com.couchbase.client.core.requestShards");
+            ConfigFactory.invalidateCaches();
+        }
+    }
+
+    @Test
+    public void shouldCreateConfiguredWaitStrategies() {
+        System.setProperty("com.couchbase.client.core.requestWaitStrategy", "busySpin");
+        try {
+            ConfigFactory.invalidateCaches();
+            CouchbaseEnvironment env = new CouchbaseEnvironment();
+            assertTrue(env.requestWaitStrategy() instanceof BusySpinWaitStrategy);
+            assertTrue(env.responseWaitStrategy() instanceof BlockingWaitStrategy);
+            assertNull(env.dispatchAffinity());
+        } finally {
+            System.clearProperty("com.couchbase.client.core.requestWaitStrategy");
+            ConfigFactory.invalidateCaches();
+        }
+    }
+
+    @Test(expected = EnvironmentException.class)
+    public void shouldRejectUnknownWaitStrategy() {
+        System.setProperty("com.couchbase.client.core.responseWaitStrategy", "lazy");
+        try {
+            ConfigFactory.invalidateCaches();
+            CouchbaseEnvironment env = new CouchbaseEnvironment();
+            env.responseWaitStrategy();
+        } finally {
+            System.clearProperty("com.couchbase.client.core.responseWaitStrategy");
+            ConfigFactory.invalidateCaches();
+        }
+    }
+
     @Test(expected = EnvironmentException.class)
     public void customConfigShouldOverrideDefault() {
         ConfigFactory.invalidateCaches();
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message;
+
+import org.junit.Test;
+import rx.Observer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies the functionality of the {@link ResponseSubject}.
+ */
+public class ResponseSubjectTest {
+
+    private final CouchbaseResponse response = mock(CouchbaseResponse.class);
+
+    @Test
+    public void shouldEmitToEarlySubscriber() {
+        ResponseSubject subject = ResponseSubject.create();
+        RecordingObserver observer = new RecordingObserver();
+        subject.subscribe(observer);
+        assertTrue(observer.events.isEmpty());
+
+        subject.onNext(response);
+        assertTrue(observer.events.isEmpty());
+        subject.onCompleted();
+        assertEquals(2, observer.events.size());
+        assertSame(response, observer.events.get(0));
+        assertEquals("completed", observer.events.get(1));
+    }
+
+    @Test
+    public void shouldEmitToLateSubscriber() {
+        ResponseSubject subject = ResponseSubject.create();
+        subject.onNext(response);
+        subject.onCompleted();
+
+        assertTrue(subject.isCompleted());
+        assertSame(response, subject.toBlockingObservable().single());
+        assertSame(response, subject.toBlockingObservable().single());
+    }
+
+    @Test
+    public void shouldEmitToAllSubscribers() {
+        ResponseSubject subject = ResponseSubject.create();
+        RecordingObserver first = new RecordingObserver();
+        RecordingObserver second = new RecordingObserver();
+        RecordingObserver third = new RecordingObserver();
+        subject.subscribe(first);
+        subject.subscribe(second);
+        subject.subscribe(third);
+
+        subject.onNext(response);
+        subject.onCompleted();
+        assertEquals(2, first.events.size());
+        assertEquals(2, second.events.size());
+        assertEquals(2, third.events.size());
+    }
+
+    @Test
+    public void shouldOnlyHonorFirstTerminalEvent() {
+        ResponseSubject subject = ResponseSubject.create();
+        RecordingObserver observer = new RecordingObserver();
+        subject.subscribe(observer);
+
+        IllegalStateException error = new IllegalStateException();
+        subject.onError(error);
+        subject.onNext(response);
+        subject.onCompleted();
+
+        assertEquals(1, observer.events.size());
+        assertSame(error, observer.events.get(0));
+    }
+
+    @Test
+    public void shouldCompleteWithoutValue() {
+        ResponseSubject subject = ResponseSubject.create();
+        assertFalse(subject.isCompleted());
+        subject.onCompleted();
+
+        assertEquals(0, subject.toList().toBlockingObservable().single().size());
+    }
+
+    static class RecordingObserver implements Observer<CouchbaseResponse> {
+
+        final List<Object> events = new ArrayList<Object>();
+
+        @Override
+        public void onCompleted() {
+            events.add("completed");
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            events.add(e);
+        }
+
+        @Override
+        public void onNext(CouchbaseResponse response) {
+            events.add(response);
+        }
+    }
+
+}
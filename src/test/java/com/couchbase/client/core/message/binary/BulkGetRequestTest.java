@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the functionality of the {@link BulkGetRequest}.
+ */
+public class BulkGetRequestTest {
+
+    @Test
+    public void shouldCreateOneRequestPerKey() {
+        BulkGetRequest request = new BulkGetRequest(Arrays.asList("key1", "key2", "key3"), "bucket");
+
+        GetRequest[] requests = request.requests();
+        assertEquals(3, requests.length);
+        assertEquals("key2", requests[1].key());
+        assertEquals("bucket", requests[1].bucket());
+    }
+
+    @Test
+    public void shouldCompleteWhenAllKeysAnswered() {
+        BulkGetRequest request = new BulkGetRequest(Arrays.asList("key1", "key2"), "bucket");
+
+        for (GetRequest child : request.requests()) {
+            child.observable().onNext(
+                new GetResponse(ResponseStatus.SUCCESS, 0, child.key(), Unpooled.EMPTY_BUFFER)
+            );
+            child.observable().onCompleted();
+        }
+
+        List<CouchbaseResponse> responses = request.observable().toList().toBlockingObservable().single();
+        assertEquals(2, responses.size());
+        assertEquals("key1", ((GetResponse) responses.get(0)).key());
+        assertEquals("key2", ((GetResponse) responses.get(1)).key());
+    }
+
+    @Test
+    public void shouldAnswerFailedKeyWithoutFailingBulk() {
+        BulkGetRequest request = new BulkGetRequest(Arrays.asList("key1", "key2"), "bucket");
+        GetRequest[] requests = request.requests();
+
+        requests[0].observable().onError(new IllegalStateException("Could not locate key1"));
+        requests[1].observable().onNext(
+            new GetResponse(ResponseStatus.SUCCESS, 0, "key2", Unpooled.EMPTY_BUFFER)
+        );
+        requests[1].observable().onCompleted();
+
+        List<CouchbaseResponse> responses = request.observable().toList().toBlockingObservable().single();
+        assertEquals(2, responses.size());
+        assertEquals("key1", ((GetResponse) responses.get(0)).key());
+        assertEquals(ResponseStatus.FAILURE, responses.get(0).status());
+        assertEquals(ResponseStatus.SUCCESS, responses.get(1).status());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldFailWithoutKeys() {
+        new BulkGetRequest(Arrays.<String>asList(), "bucket");
+    }
+
+}
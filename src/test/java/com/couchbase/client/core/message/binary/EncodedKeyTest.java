@@ -0,0 +1,62 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the functionality of the {@link EncodedKey}.
+ */
+public class EncodedKeyTest {
+
+    @Test
+    public void shouldCountBytesForNonAsciiKeys() {
+        EncodedKey key = new EncodedKey("k\u00fcche");
+        assertEquals("k\u00fcche", key.key());
+        assertEquals(6, key.length());
+        assertArrayEquals("k\u00fcche".getBytes(CharsetUtil.UTF_8), key.bytes());
+    }
+
+    @Test
+    public void shouldComputePartitionHashFromCrc32() {
+        CRC32 crc32 = new CRC32();
+        crc32.update("key".getBytes(CharsetUtil.UTF_8));
+
+        assertEquals((crc32.getValue() >> 16) & 0x7fff, new EncodedKey("key").partitionHash());
+    }
+
+    @Test
+    public void shouldEncodeKeyOnceOnRequest() {
+        GetRequest request = new GetRequest("key", "bucket");
+        assertEquals("key", request.key());
+        assertEquals(3, request.encodedKey().length());
+
+        assertNull(new GetBucketConfigRequest("bucket", null).encodedKey());
+    }
+}
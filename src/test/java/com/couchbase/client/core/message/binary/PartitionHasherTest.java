@@ -0,0 +1,54 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import io.netty.util.CharsetUtil;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Verifies the functionality of the {@link PartitionHasher}.
+ */
+public class PartitionHasherTest {
+
+    @Test
+    public void shouldMatchJdkCrc32() {
+        Random random = new Random(42);
+        for (int length = 0; length < 300; length++) {
+            byte[] bytes = new byte[length];
+            random.nextBytes(bytes);
+            CRC32 crc32 = new CRC32();
+            crc32.update(bytes);
+            assertEquals(crc32.getValue(), PartitionHasher.crc32(bytes));
+        }
+    }
+
+    @Test
+    public void shouldComputeKnownChecksum() {
+        assertEquals(0xCBF43926L, PartitionHasher.crc32("123456789".getBytes(CharsetUtil.UTF_8)));
+        assertEquals((0xCBF43926L >> 16) & 0x7fff, PartitionHasher.hash("123456789".getBytes(CharsetUtil.UTF_8)));
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.message.binary;
+
+import com.couchbase.client.core.message.CouchbaseResponse;
+import com.couchbase.client.core.message.ResponseStatus;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Verifies the functionality of the {@link ReplicaReadRequest}.
+ */
+public class ReplicaReadRequestTest {
+
+    @Test
+    public void shouldCreateOneRequestPerReplica() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.ALL_REPLICAS);
+
+        ReplicaGetRequest[] replicas = request.replicas(2);
+        assertEquals(2, replicas.length);
+        assertEquals(1, replicas[1].replica());
+        assertEquals("key", replicas[1].key());
+        assertSame(request.encodedKey(), replicas[0].encodedKey());
+        assertNull(request.replicas(2));
+    }
+
+    @Test
+    public void shouldCompleteWithFirstFoundCopy() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.ALL_REPLICAS);
+        ReplicaGetRequest[] replicas = request.replicas(3);
+
+        complete(replicas[0], ResponseStatus.NOT_EXISTS, Unpooled.EMPTY_BUFFER);
+        complete(replicas[1], ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+        ByteBuf late = Unpooled.buffer();
+        complete(replicas[2], ResponseStatus.SUCCESS, late);
+
+        List<CouchbaseResponse> responses = request.observable().toList().toBlockingObservable().single();
+        assertEquals(1, responses.size());
+        assertEquals(ResponseStatus.SUCCESS, responses.get(0).status());
+        assertEquals(0, late.refCnt());
+    }
+
+    @Test
+    public void shouldCompleteWithLastResponseIfNotFound() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.ALL_REPLICAS);
+        ReplicaGetRequest[] replicas = request.replicas(2);
+
+        complete(replicas[0], ResponseStatus.NOT_EXISTS, Unpooled.EMPTY_BUFFER);
+        replicas[1].observable().onError(new IllegalStateException());
+
+        CouchbaseResponse response = request.observable().toBlockingObservable().single();
+        assertEquals(ResponseStatus.NOT_EXISTS, response.status());
+    }
+
+    @Test
+    public void shouldNotAskReplicasOnceMasterAnswered() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.MASTER_THEN_REPLICAS);
+        GetRequest master = request.master();
+
+        complete(master, ResponseStatus.NOT_EXISTS, Unpooled.EMPTY_BUFFER);
+
+        assertNull(request.replicas(2));
+        assertEquals(ResponseStatus.NOT_EXISTS, request.observable().toBlockingObservable().single().status());
+    }
+
+    @Test
+    public void shouldWaitForReplicasIfMasterFailed() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.MASTER_THEN_REPLICAS);
+        GetRequest master = request.master();
+        master.observable().onError(new IllegalStateException());
+
+        ReplicaGetRequest[] replicas = request.replicas(1);
+        assertEquals(1, replicas.length);
+        complete(replicas[0], ResponseStatus.SUCCESS, Unpooled.EMPTY_BUFFER);
+
+        assertEquals(ResponseStatus.SUCCESS, request.observable().toBlockingObservable().single().status());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailWithoutReplicas() {
+        ReplicaReadRequest request = new ReplicaReadRequest("key", "bucket", ReplicaMode.MASTER_THEN_REPLICAS);
+        request.master().observable().onError(new IllegalStateException());
+        request.replicas(0);
+
+        request.observable().toBlockingObservable().single();
+    }
+
+    private static void complete(final BinaryRequest request, final ResponseStatus status, final ByteBuf content) {
+        request.observable().onNext(new GetResponse(status, 0, request.key(), content));
+        request.observable().onCompleted();
+    }
+
+}
@@ -0,0 +1,89 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Verifies the functionality of the {@link GaugeMetrics} and {@link GaugeSeries}.
+ */
+public class GaugeMetricsTest {
+
+    @Test
+    public void shouldKeepRollingSamples() {
+        final AtomicLong value = new AtomicLong();
+        GaugeSeries series = new GaugeSeries(gauge(value), 3);
+
+        for (int i = 1; i <= 5; i++) {
+            value.set(i * 10);
+            series.sample(i);
+        }
+
+        assertArrayEquals(new long[] {30, 40, 50}, series.values());
+        assertArrayEquals(new long[] {3, 4, 5}, series.timestamps());
+        assertEquals(50, series.max());
+        value.set(7);
+        assertEquals(7, series.current());
+    }
+
+    @Test
+    public void shouldReturnPartialHistory() {
+        final AtomicLong value = new AtomicLong(1);
+        GaugeSeries series = new GaugeSeries(gauge(value), 3);
+        assertEquals(0, series.values().length);
+        assertEquals(0, series.max());
+
+        series.sample(1);
+        assertArrayEquals(new long[] {1}, series.values());
+    }
+
+    @Test
+    public void shouldSampleAndUnregisterGauges() {
+        GaugeMetrics gauges = new GaugeMetrics(10);
+        gauges.register("endpoint.a.inFlight", gauge(new AtomicLong(1)));
+        gauges.register("endpoint.a.writable", gauge(new AtomicLong(2)));
+        gauges.register("endpoint.ab.inFlight", gauge(new AtomicLong(3)));
+
+        gauges.sample();
+        assertEquals(1, gauges.series("endpoint.a.inFlight").values().length);
+        assertEquals(Long.valueOf(3), gauges.values().get("endpoint.ab.inFlight"));
+
+        gauges.unregisterAll("endpoint.a.");
+        assertEquals(1, gauges.names().size());
+        assertNull(gauges.series("endpoint.a.writable"));
+    }
+
+    private static Gauge gauge(final AtomicLong value) {
+        return new Gauge() {
+            @Override
+            public long value() {
+                return value.get();
+            }
+        };
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.metrics;
+
+import com.couchbase.client.core.message.CouchbaseRequest;
+import com.couchbase.client.core.message.binary.BulkGetRequest;
+import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.ReplicaMode;
+import com.couchbase.client.core.message.binary.ReplicaReadRequest;
+import com.couchbase.client.core.message.binary.UpsertRequest;
+import com.couchbase.client.core.service.ServiceType;
+import io.netty.buffer.Unpooled;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the functionality of the {@link LatencyHistogram} and the {@link LatencyMetrics}.
+ */
+public class LatencyMetricsTest {
+
+    @Test
+    public void shouldMapValuesToBucketsWithinRelativeError() {
+        for (long value = 0; value < 100000000L; value = value * 2 + 7) {
+            long highest = LatencyHistogram.highestValueAt(LatencyHistogram.indexFor(value));
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / 32);
+        }
+        assertEquals(LatencyHistogram.BUCKETS - 1, LatencyHistogram.indexFor(LatencyHistogram.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldReportPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        HistogramSnapshot snapshot = histogram.snapshot(false);
+        assertEquals(1000, snapshot.count());
+        assertWithin(500, snapshot.percentile(50));
+        assertWithin(990, snapshot.percentile(99));
+        assertWithin(999, snapshot.percentile(99.9));
+        assertWithin(1000, snapshot.max());
+    }
+
+    @Test
+    public void shouldResetOnSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(TimeUnit.DAYS.toNanos(365));
+
+        assertEquals(2, histogram.snapshot(true).count());
+        assertEquals(0, histogram.snapshot(false).count());
+    }
+
+    @Test
+    public void shouldSubtractEarlierSnapshot() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        HistogramSnapshot earlier = histogram.snapshot(false);
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(1000));
+
+        HistogramSnapshot recent = histogram.snapshot(false).since(earlier);
+        assertEquals(1, recent.count());
+        assertWithin(1000, recent.max());
+
+        histogram.snapshot(true);
+        histogram.record(TimeUnit.MICROSECONDS.toNanos(10));
+        HistogramSnapshot afterReset = histogram.snapshot(false);
+        assertEquals(1, afterReset.since(earlier.merge(earlier)).count());
+    }
+
+    @Test
+    public void shouldBreakDownByOperationNodeAndService() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        metrics.record(request(new GetRequest("key", "bucket"), "node1"));
+        metrics.record(request(new GetRequest("key", "bucket"), "node2"));
+        metrics.record(request(new UpsertRequest("key", Unpooled.EMPTY_BUFFER, "bucket"), "node1"));
+
+        LatencySnapshot snapshot = metrics.snapshotAndReset();
+        assertEquals(3, snapshot.histograms().size());
+        assertEquals(2, snapshot.node("node1").count());
+        assertEquals(2, snapshot.operation(GetRequest.class).count());
+        assertEquals(3, snapshot.service(ServiceType.BINARY).count());
+        assertEquals(0, snapshot.service(ServiceType.VIEW).count());
+        assertEquals(1, snapshot.histograms().get(
+            new LatencyKey(UpsertRequest.class, "node1", ServiceType.BINARY)).count());
+
+        assertEquals(0, metrics.snapshot().node("node1").count());
+    }
+
+    @Test
+    public void shouldRecordOutcomesSeparately() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        metrics.record(request(new GetRequest("key", "bucket"), "node1"));
+        metrics.record(request(new GetRequest("key", "bucket"), "node1"), RequestOutcome.TIMED_OUT);
+        metrics.record(request(new GetRequest("key", "bucket"), null), RequestOutcome.REJECTED);
+
+        LatencySnapshot snapshot = metrics.snapshot();
+        assertEquals(3, snapshot.histograms().size());
+        assertEquals(2, snapshot.node("node1").count());
+        assertEquals(1, snapshot.outcome(RequestOutcome.COMPLETED).count());
+        assertEquals(1, snapshot.histograms().get(new LatencyKey(GetRequest.class, "node1", ServiceType.BINARY,
+            RequestOutcome.TIMED_OUT)).count());
+        assertEquals(1, snapshot.histograms().get(new LatencyKey(GetRequest.class, LatencyMetrics.UNDISPATCHED,
+            ServiceType.BINARY, RequestOutcome.REJECTED)).count());
+    }
+
+    @Test
+    public void shouldRecordFanOutRequestsAsBinary() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        metrics.record(request(new BulkGetRequest(Arrays.asList("a", "b"), "bucket"), null), RequestOutcome.TIMED_OUT);
+        metrics.record(request(new ReplicaReadRequest("key", "bucket", ReplicaMode.ALL_REPLICAS), null),
+            RequestOutcome.REJECTED);
+
+        LatencySnapshot snapshot = metrics.snapshot();
+        assertEquals(2, snapshot.service(ServiceType.BINARY).count());
+        assertEquals(1, snapshot.operation(BulkGetRequest.class).count());
+        assertEquals(1, snapshot.operation(ReplicaReadRequest.class).count());
+        assertEquals(2, metrics.snapshotAndReset().histograms().size());
+    }
+
+    @Test
+    public void shouldIgnoreRequestsWithoutSendTime() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        GetRequest request = new GetRequest("key", "bucket");
+        request.dispatchedTo("node1");
+        metrics.record(request);
+
+        assertEquals(0, metrics.snapshot().histograms().size());
+    }
+
+    @Test
+    public void shouldRecordTimeBetweenStages() {
+        LatencyMetrics metrics = new LatencyMetrics();
+        GetRequest request = new GetRequest("key", "bucket");
+        request.enableStageMarks();
+        for (RequestStage stage : RequestStage.values()) {
+            request.mark(stage);
+        }
+        metrics.record(request);
+
+        LatencySnapshot snapshot = metrics.snapshotAndReset();
+        assertEquals(0, snapshot.stage(RequestStage.PUBLISHED).count());
+        for (RequestStage stage : RequestStage.values()) {
+            if (stage != RequestStage.PUBLISHED) {
+                assertEquals(1, snapshot.stage(stage).count());
+            }
+        }
+        assertEquals(0, metrics.snapshot().stage(RequestStage.COMPLETED).count());
+    }
+
+    @Test
+    public void shouldNotMarkStagesUnlessEnabled() {
+        GetRequest request = new GetRequest("key", "bucket");
+        request.mark(RequestStage.PUBLISHED);
+        assertEquals(0, request.markOf(RequestStage.PUBLISHED));
+
+        request.enableStageMarks();
+        request.mark(RequestStage.PUBLISHED);
+        assertTrue(request.markOf(RequestStage.PUBLISHED) != 0);
+    }
+
+    private static CouchbaseRequest request(final CouchbaseRequest request, final String hostname) {
+        request.sendTime(System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1));
+        request.dispatchedTo(hostname);
+        return request;
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(actual >= expected && actual - expected <= expected / 32);
+    }
+}
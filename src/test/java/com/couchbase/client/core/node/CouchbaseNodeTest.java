@@ -30,6 +30,7 @@ import com.couchbase.client.core.service.ConfigService;
 import com.couchbase.client.core.service.Service;
 import com.couchbase.client.core.service.ServiceType;
 import com.couchbase.client.core.state.LifecycleState;
+import org.junit.AfterClass;
 import org.junit.Test;
 import rx.Observable;
 
@@ -49,6 +50,11 @@ public class CouchbaseNodeTest {
 
     private static final Environment environment = new CouchbaseEnvironment();
 
+    @AfterClass
+    public static void shutdownEnvironment() {
+        environment.shutdown();
+    }
+
     @Test
     public void shouldReturnConfiguredHostname() {
         CouchbaseNode node = new CouchbaseNode("127.0.0.1", environment, null);
@@ -180,7 +186,7 @@ public class CouchbaseNodeTest {
         when(registryMock.serviceBy(ServiceType.BINARY, "bucket")).thenReturn(serviceMock);
         CouchbaseNode node = new CouchbaseNode("127.0.0.1", registryMock, environment, null);
 
-        node.removeService(new RemoveServiceRequest(ServiceType.CONFIG, "bucket", "127.0.0.1"))
+        node.removeService(new RemoveServiceRequest(ServiceType.BINARY, "bucket", "127.0.0.1"))
             .toBlockingObservable().single();
         verify(registryMock).removeService(any(Service.class), anyString());
     }
@@ -1,16 +1,20 @@
 package com.couchbase.client.core.node.locate;
 
+import com.couchbase.client.core.config.BucketConfig;
 import com.couchbase.client.core.config.ClusterConfig;
 import com.couchbase.client.core.config.CouchbaseBucketConfig;
-import com.couchbase.client.core.config.DefaultPartition;
-import com.couchbase.client.core.config.Partition;
+import com.couchbase.client.core.config.DefaultNodeInfo;
+import com.couchbase.client.core.config.MemcacheBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.binary.EncodedKey;
+import com.couchbase.client.core.message.binary.GetBucketConfigRequest;
 import com.couchbase.client.core.message.binary.GetRequest;
+import com.couchbase.client.core.message.binary.ReplicaGetRequest;
 import com.couchbase.client.core.node.Node;
 import org.junit.Test;
 
 import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Collections;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -27,22 +31,16 @@ public class BinaryLocatorTest {
 
         GetRequest getRequestMock = mock(GetRequest.class);
         ClusterConfig configMock = mock(ClusterConfig.class);
-        Set<Node> nodes = new HashSet<Node>();
         Node node1Mock = mock(Node.class);
         when(node1Mock.hostname()).thenReturn("192.168.56.101");
         Node node2Mock = mock(Node.class);
         when(node2Mock.hostname()).thenReturn("192.168.56.102");
-        nodes.addAll(Arrays.asList(node1Mock, node2Mock));
+        Node[] nodes = new Node[] { node1Mock, node2Mock };
         CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
         when(getRequestMock.bucket()).thenReturn("bucket");
-        when(getRequestMock.key()).thenReturn("key");
+        when(getRequestMock.encodedKey()).thenReturn(new EncodedKey("key"));
         when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
-        when(bucketMock.partitions()).thenReturn(Arrays.asList(
-            new DefaultPartition((short) 0, new short[] {1}),
-            new DefaultPartition((short) 0, new short[] {1}),
-            new DefaultPartition((short) 1, new short[] {0}),
-            (Partition) new DefaultPartition((short) 1, new short[] {0})
-        ));
+        partitions(bucketMock, new short[][] {{0, 1}, {0, 1}, {1, 0}, {1, 0}});
         when(bucketMock.partitionHosts()).thenReturn(Arrays.asList(
            "192.168.56.101",
             "192.168.56.102"
@@ -52,9 +50,121 @@ public class BinaryLocatorTest {
         assertEquals(node1Mock, foundNodes[0]);
     }
 
+    @Test
+    public void shouldLocateBucketConfigRequestOnItsNodeOnly() {
+        Locator locator = new BinaryLocator();
+
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn("192.168.56.101");
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn("192.168.56.102");
+        Node[] nodes = new Node[] { node1Mock, node2Mock };
+
+        Node[] foundNodes = locator.locate(new GetBucketConfigRequest("bucket", "192.168.56.102"), nodes,
+            mock(ClusterConfig.class));
+        assertEquals(1, foundNodes.length);
+        assertEquals(node2Mock, foundNodes[0]);
+    }
+
+    @Test
+    public void shouldLocateReplicaGetRequestForCouchbaseBucket() {
+        Locator locator = new BinaryLocator();
+
+        ReplicaGetRequest requestMock = mock(ReplicaGetRequest.class);
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn("192.168.56.101");
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn("192.168.56.102");
+        Node[] nodes = new Node[] { node1Mock, node2Mock };
+        CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
+        when(requestMock.bucket()).thenReturn("bucket");
+        when(requestMock.encodedKey()).thenReturn(new EncodedKey("key"));
+        when(requestMock.replica()).thenReturn(0);
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+        when(bucketMock.numberOfReplicas()).thenReturn(1);
+        partitions(bucketMock, new short[][] {{0, 1}, {0, 1}, {1, 0}, {1, 0}});
+        when(bucketMock.partitionHosts()).thenReturn(Arrays.asList(
+            "192.168.56.101",
+            "192.168.56.102"
+        ));
+
+        Node[] foundNodes = locator.locate(requestMock, nodes, configMock);
+        assertEquals(node2Mock, foundNodes[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldFailReplicaGetRequestForUnconfiguredReplica() {
+        Locator locator = new BinaryLocator();
+
+        ReplicaGetRequest requestMock = mock(ReplicaGetRequest.class);
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
+        when(requestMock.bucket()).thenReturn("bucket");
+        when(requestMock.encodedKey()).thenReturn(new EncodedKey("key"));
+        when(requestMock.replica()).thenReturn(1);
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+        when(bucketMock.numberOfReplicas()).thenReturn(1);
+        partitions(bucketMock, new short[][] {{0, 1}});
+
+        locator.locate(requestMock, new Node[] {}, configMock);
+    }
+
+    @Test
+    public void shouldLocateGetRequestForMemcacheBucket() {
+        BinaryLocator locator = new BinaryLocator();
+
+        GetRequest getRequestMock = mock(GetRequest.class);
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn("192.168.56.101");
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn("192.168.56.102");
+        Node[] nodes = new Node[] { node1Mock, node2Mock };
+        MemcacheBucketConfig bucketMock = mock(MemcacheBucketConfig.class);
+        when(getRequestMock.bucket()).thenReturn("bucket");
+        when(getRequestMock.encodedKey()).thenReturn(new EncodedKey("key"));
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+        when(bucketMock.nodes()).thenReturn(Arrays.asList(
+            new DefaultNodeInfo(null, "192.168.56.101:8091", Collections.singletonMap("direct", 11210)),
+            (NodeInfo) new DefaultNodeInfo(null, "192.168.56.102:8091", Collections.singletonMap("direct", 11210))
+        ));
+        when(configMock.bucketConfigs()).thenReturn(Collections.<String, BucketConfig>singletonMap("bucket",
+            bucketMock));
+        locator.routingTable(RoutingTable.create(configMock, nodes));
+
+        Node[] foundNodes = locator.locate(getRequestMock, nodes, configMock);
+        assertEquals(1, foundNodes.length);
+        assertEquals(foundNodes[0], locator.locate(getRequestMock, nodes, configMock)[0]);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldNotBuildKetamaRingWhileLocating() {
+        Locator locator = new BinaryLocator();
+
+        GetRequest getRequestMock = mock(GetRequest.class);
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        MemcacheBucketConfig bucketMock = mock(MemcacheBucketConfig.class);
+        when(getRequestMock.bucket()).thenReturn("bucket");
+        when(getRequestMock.encodedKey()).thenReturn(new EncodedKey("key"));
+        when(configMock.bucketConfig("bucket")).thenReturn(bucketMock);
+
+        locator.locate(getRequestMock, new Node[] { mock(Node.class) }, configMock);
+    }
+
     @Test
     public void shouldFanOutBroadcastableRequest() {
 
     }
 
+    private static void partitions(final CouchbaseBucketConfig bucketMock, final short[][] map) {
+        when(bucketMock.numberOfPartitions()).thenReturn(map.length);
+        for (int i = 0; i < map.length; i++) {
+            when(bucketMock.nodeIndexForMaster(i)).thenReturn(map[i][0]);
+            for (int r = 1; r < map[i].length; r++) {
+                when(bucketMock.nodeIndexForReplica(i, r - 1)).thenReturn(map[i][r]);
+            }
+        }
+    }
+
 }
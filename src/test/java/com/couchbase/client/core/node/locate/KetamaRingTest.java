@@ -0,0 +1,116 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.DefaultNodeInfo;
+import com.couchbase.client.core.config.MemcacheBucketConfig;
+import com.couchbase.client.core.config.NodeInfo;
+import com.couchbase.client.core.message.binary.EncodedKey;
+import com.couchbase.client.core.node.Node;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class KetamaRingTest {
+
+    private static final Map<String, Integer> PORTS = Collections.singletonMap("direct", 11210);
+
+    @Test
+    public void shouldPlaceAllPointsOfManagedNodes() {
+        Node[] nodes = nodes("192.168.56.101", "192.168.56.102", "192.168.56.103");
+        MemcacheBucketConfig config = config("192.168.56.101", "192.168.56.102", "192.168.56.103");
+
+        KetamaRing ring = KetamaRing.create(config, nodes);
+        assertEquals(3 * 160, ring.size());
+        assertTrue(ring.isFor(config));
+        assertFalse(ring.isFor(config("192.168.56.101")));
+    }
+
+    @Test
+    public void shouldSkipUnmanagedNodes() {
+        MemcacheBucketConfig config = config("192.168.56.101", "192.168.56.102");
+
+        KetamaRing ring = KetamaRing.create(config, nodes("192.168.56.101"));
+        assertEquals(160, ring.size());
+        assertNull(KetamaRing.create(config, new Node[] {}).locate(1234));
+    }
+
+    @Test
+    public void shouldWrapAroundAtTheEndOfTheRing() {
+        Node[] nodes = nodes("192.168.56.101", "192.168.56.102");
+        KetamaRing ring = KetamaRing.create(config("192.168.56.101", "192.168.56.102"), nodes);
+
+        assertSame(ring.locate(0), ring.locate(0xFFFFFFFFL));
+    }
+
+    @Test
+    public void shouldOnlyMoveKeysOfRemovedNode() {
+        Node[] nodes = nodes("192.168.56.101", "192.168.56.102", "192.168.56.103");
+        KetamaRing before = KetamaRing.create(config("192.168.56.101", "192.168.56.102", "192.168.56.103"), nodes);
+        KetamaRing after = KetamaRing.create(config("192.168.56.101", "192.168.56.103"),
+            new Node[] { nodes[0], nodes[2] });
+
+        int moved = 0;
+        for (int i = 0; i < 1000; i++) {
+            long hash = new EncodedKey("key-" + i).ketamaHash();
+            Node owner = before.locate(hash)[0];
+            Node newOwner = after.locate(hash)[0];
+            if (owner == nodes[1]) {
+                moved++;
+            } else {
+                assertSame(owner, newOwner);
+            }
+        }
+        assertTrue(moved > 0);
+    }
+
+    private static Node[] nodes(final String... hostnames) {
+        Node[] nodes = new Node[hostnames.length];
+        for (int i = 0; i < hostnames.length; i++) {
+            nodes[i] = mock(Node.class);
+            when(nodes[i].hostname()).thenReturn(hostnames[i]);
+        }
+        return nodes;
+    }
+
+    private static MemcacheBucketConfig config(final String... hostnames) {
+        List<NodeInfo> infos = new ArrayList<NodeInfo>();
+        for (String hostname : hostnames) {
+            infos.add(new DefaultNodeInfo(null, hostname + ":8091", PORTS));
+        }
+        MemcacheBucketConfig config = mock(MemcacheBucketConfig.class);
+        when(config.nodes()).thenReturn(infos);
+        return config;
+    }
+
+}
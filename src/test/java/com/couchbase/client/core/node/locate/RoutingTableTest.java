@@ -0,0 +1,115 @@
+/**
+ * Copyright (C) 2014 Couchbase, Inc.
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALING
+ * IN THE SOFTWARE.
+ */
+package com.couchbase.client.core.node.locate;
+
+import com.couchbase.client.core.config.BucketConfig;
+import com.couchbase.client.core.config.ClusterConfig;
+import com.couchbase.client.core.config.CouchbaseBucketConfig;
+import com.couchbase.client.core.node.Node;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the functionality of the {@link RoutingTable}.
+ */
+public class RoutingTableTest {
+
+    @Test
+    public void shouldMapPartitionsToNodes() {
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn("192.168.56.101");
+        Node node2Mock = mock(Node.class);
+        when(node2Mock.hostname()).thenReturn("192.168.56.102");
+        CouchbaseBucketConfig bucketMock = bucketConfig();
+
+        RoutingTable table = RoutingTable.create(clusterConfig(bucketMock), new Node[] { node1Mock, node2Mock });
+        RoutingTable.BucketRoute route = table.route("bucket");
+
+        assertTrue(route.isFor(bucketMock));
+        assertEquals(2, route.partitions());
+        assertSame(node1Mock, route.master(0));
+        assertSame(node2Mock, route.master(1));
+        assertSame(node2Mock, route.masterTarget(1)[0]);
+        assertSame(node2Mock, route.replica(0, 0));
+        assertSame(node1Mock, route.replica(0, 1));
+        assertNull(route.replica(1, 1));
+    }
+
+    @Test
+    public void shouldLeaveUnmanagedNodesEmpty() {
+        Node node1Mock = mock(Node.class);
+        when(node1Mock.hostname()).thenReturn("192.168.56.101");
+        CouchbaseBucketConfig bucketMock = bucketConfig();
+
+        RoutingTable table = RoutingTable.create(clusterConfig(bucketMock), new Node[] { node1Mock });
+        RoutingTable.BucketRoute route = table.route("bucket");
+
+        assertSame(node1Mock, route.master(0));
+        assertNull(route.master(1));
+        assertNull(route.masterTarget(1));
+        assertFalse(route.isFor(bucketConfig()));
+    }
+
+    @Test
+    public void shouldBeEmptyWithoutConfig() {
+        assertSame(RoutingTable.EMPTY, RoutingTable.create(null, new Node[0]));
+        assertNull(RoutingTable.EMPTY.route("bucket"));
+    }
+
+    private static CouchbaseBucketConfig bucketConfig() {
+        CouchbaseBucketConfig bucketMock = mock(CouchbaseBucketConfig.class);
+        when(bucketMock.numberOfReplicas()).thenReturn(1);
+        partitions(bucketMock, new short[][] {{0, 1}, {1, 0}});
+        when(bucketMock.partitionHosts()).thenReturn(Arrays.asList("192.168.56.101", "192.168.56.102"));
+        return bucketMock;
+    }
+
+    private static ClusterConfig clusterConfig(final CouchbaseBucketConfig bucketConfig) {
+        Map<String, BucketConfig> buckets = new HashMap<String, BucketConfig>();
+        buckets.put("bucket", bucketConfig);
+        ClusterConfig configMock = mock(ClusterConfig.class);
+        when(configMock.bucketConfigs()).thenReturn(buckets);
+        return configMock;
+    }
+
+    private static void partitions(final CouchbaseBucketConfig bucketMock, final short[][] map) {
+        when(bucketMock.numberOfPartitions()).thenReturn(map.length);
+        for (int i = 0; i < map.length; i++) {
+            when(bucketMock.nodeIndexForMaster(i)).thenReturn(map[i][0]);
+            for (int r = 1; r < map[i].length; r++) {
+                when(bucketMock.nodeIndexForReplica(i, r - 1)).thenReturn(map[i][r]);
+            }
+        }
+    }
+
+}
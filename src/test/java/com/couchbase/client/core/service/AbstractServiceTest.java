@@ -27,6 +27,7 @@ import com.couchbase.client.core.env.CouchbaseEnvironment;
 import com.couchbase.client.core.env.Environment;
 import com.couchbase.client.core.state.LifecycleState;
 import com.lmax.disruptor.RingBuffer;
+import org.junit.AfterClass;
 import org.junit.Test;
 import rx.Observable;
 import rx.subjects.BehaviorSubject;
@@ -49,7 +50,12 @@ public class AbstractServiceTest {
     private final String bucket = "default";
     private final String password = "";
     private final int port = 0;
-    private final Environment environment = new CouchbaseEnvironment();
+    private static final Environment environment = new CouchbaseEnvironment();
+
+    @AfterClass
+    public static void shutdownEnvironment() {
+        environment.shutdown();
+    }
 
     @Test
     public void shouldBeDisconnectAfterInit() {